@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.benchmark;
+
+import com.github.idelstak.currencycalcfx.controller.BidAmountBindings;
+import com.github.idelstak.currencycalcfx.model.Bid;
+import com.github.idelstak.currencycalcfx.model.currency.ArithmeticMode;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the pricing of a {@link Bid}, first as raw calculations and then
+ * as the cost of one user edit: setting a property and letting the
+ * {@link BidAmountBindings} recalculate the other amount, which in turn
+ * recalculates the first one. No stage is shown; the bindings only involve
+ * JavaFX properties.
+ * <p>
+ * Each edit alternates between two values, so every invocation changes the
+ * property and runs the whole cascade.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BidBenchmark {
+
+    private static final BigDecimal[] AMOUNTS = {new BigDecimal("100.00"), new BigDecimal("12345.67")};
+    private static final BigDecimal[] COMMISSION_RATES = {new BigDecimal("2.5"), new BigDecimal("7.25")};
+
+    @Param({"DECIMAL", "FIXED_POINT"})
+    private ArithmeticMode arithmeticMode;
+
+    private Bid pricing;
+    private Bid bid;
+    private BidAmountBindings bidAmountBindings;
+    private int edit;
+
+    @Setup
+    public void setup() {
+        pricing = new Bid(arithmeticMode);
+        pricing.setCurrency(Currency.getInstance("USD"));
+        pricing.setCommissionRate(COMMISSION_RATES[0]);
+        pricing.setBidAmount(AMOUNTS[1]);
+        pricing.setYouGetAmount(AMOUNTS[1]);
+
+        bid = new Bid(arithmeticMode);
+        bid.setCurrency(Currency.getInstance("USD"));
+        bidAmountBindings = new BidAmountBindings(bid);
+        bid.setCommissionRate(COMMISSION_RATES[0]);
+        bid.setBidAmount(AMOUNTS[0]);
+    }
+
+    @Benchmark
+    public BigDecimal calculateBidAmount() {
+        return pricing.calculateBidAmount();
+    }
+
+    @Benchmark
+    public BigDecimal calculateYouGetAmount() {
+        return pricing.calculateYouGetAmount();
+    }
+
+    @Benchmark
+    public BigDecimal editBidAmount() {
+        bid.setBidAmount(AMOUNTS[edit++ & 1]);
+        return bid.getYouGetAmount();
+    }
+
+    @Benchmark
+    public BigDecimal editYouGetAmount() {
+        bid.setYouGetAmount(AMOUNTS[edit++ & 1]);
+        return bid.getBidAmount();
+    }
+
+    @Benchmark
+    public BigDecimal editCommissionRate() {
+        bid.setCommissionRate(COMMISSION_RATES[edit++ & 1]);
+        return bid.getYouGetAmount();
+    }
+
+}
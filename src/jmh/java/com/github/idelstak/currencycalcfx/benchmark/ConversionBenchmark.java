@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.benchmark;
+
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import com.github.idelstak.currencycalcfx.model.currency.ExchangeRate;
+import com.github.idelstak.currencycalcfx.model.currency.RateBook;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link ThreeWayCurrencyConversion} on a chain of quotes between
+ * the first {@code currencyCount} indexed currencies, each quoted to the next
+ * one with its reciprocal.
+ * <p>
+ * {@code convertDirect} uses a direct quote and {@code convertFallback} a
+ * route through one intermediate currency.
+ * <p>
+ * Three benchmarks compare the ways of taking a rate change into account.
+ * {@code rebuildRateMap} repeats what the controller originally did on every
+ * rate change: it builds the nested {@code HashMap} of the source and target
+ * rates, calling {@code getReverseRate} four times, and copies it as the
+ * original conversion did. {@code rebuildConversion} builds a rate book and
+ * conversion of the whole chain from scratch with the current classes.
+ * {@code applyQuote} applies only the changed quote, which is what the
+ * controller does now.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConversionBenchmark {
+
+    @Param({"3", "32", "230"})
+    private int currencyCount;
+
+    @Param({"2", "8"})
+    private int amountScale;
+
+    private Currency[] currencies;
+    private BigDecimal[] rates;
+    private ThreeWayCurrencyConversion conversion;
+    private ExchangeRate exchangeRate;
+    private ExchangeRate targetExchangeRate;
+    private BigDecimal amount;
+    private int[] changedBase;
+    private int[] changedQuote;
+    private BigDecimal[] changedRate;
+
+    @Setup
+    public void setup() {
+        var index = CurrencyIndex.ofAvailableCurrencies();
+        var count = Math.min(currencyCount, index.size());
+        currencies = new Currency[count];
+        rates = new BigDecimal[count];
+
+        for (int i = 0; i < count; i++) {
+            currencies[i] = index.currencyOf(i);
+            rates[i] = new BigDecimal("1.0" + (i % 10) + "37");
+        }
+
+        conversion = rebuildConversion();
+        exchangeRate = new ExchangeRate(currencies[0], currencies[1], new BigDecimal("130.25"));
+        targetExchangeRate = new ExchangeRate(currencies[1], currencies[Math.min(2, count - 1)], new BigDecimal("26.5"));
+        amount = BigDecimal.valueOf(123_456_789L, amountScale);
+        changedBase = new int[]{0};
+        changedQuote = new int[]{1};
+        changedRate = new BigDecimal[]{new BigDecimal("1.0411")};
+    }
+
+    @Benchmark
+    public BigDecimal convertDirect() {
+        return conversion.convert(0, 1, amount);
+    }
+
+    @Benchmark
+    public BigDecimal convertFallback() {
+        return conversion.convert(0, 2, amount);
+    }
+
+    @Benchmark
+    public ExchangeRate getReverseRate() {
+        return exchangeRate.getReverseRate();
+    }
+
+    @Benchmark
+    public Map<Currency, Map<Currency, BigDecimal>> rebuildRateMap() {
+        var sourceExchangeRate = exchangeRate;
+        var exchangeRates = new HashMap<Currency, Map<Currency, BigDecimal>>();
+
+        var sourceBaseCurrency = sourceExchangeRate.baseCurrency();
+        var sourceReverseBaseCurrency = sourceExchangeRate.getReverseRate().baseCurrency();
+        var sourceQuoteCurrency = sourceExchangeRate.quoteCurrency();
+        var sourceReverseQuoteCurrency = sourceExchangeRate.getReverseRate().quoteCurrency();
+        var targetBaseCurrency = targetExchangeRate.baseCurrency();
+        var targetReverseBaseCurrency = targetExchangeRate.getReverseRate().baseCurrency();
+        var targetQuoteCurrency = targetExchangeRate.quoteCurrency();
+        var targetReverseQuoteCurrency = targetExchangeRate.getReverseRate().quoteCurrency();
+
+        exchangeRates.put(sourceBaseCurrency, new HashMap<>());
+        exchangeRates.put(sourceQuoteCurrency, new HashMap<>());
+        exchangeRates.put(targetQuoteCurrency, new HashMap<>());
+
+        exchangeRates.get(sourceBaseCurrency).put(sourceQuoteCurrency, sourceExchangeRate.rate());
+        exchangeRates.get(sourceReverseBaseCurrency).put(sourceReverseQuoteCurrency, sourceExchangeRate.getReverseRate().rate());
+        exchangeRates.getOrDefault(targetBaseCurrency, new HashMap<>()).put(targetQuoteCurrency, targetExchangeRate.rate());
+        exchangeRates.get(targetReverseBaseCurrency).put(targetReverseQuoteCurrency, targetExchangeRate.getReverseRate().rate());
+
+        return new HashMap<>(exchangeRates);
+    }
+
+    @Benchmark
+    public ThreeWayCurrencyConversion rebuildConversion() {
+        var rateBook = new RateBook();
+
+        for (int i = 1; i < currencies.length; i++) {
+            rateBook = rateBook.withQuote(currencies[i - 1], currencies[i], rates[i]);
+        }
+
+        return new ThreeWayCurrencyConversion(rateBook);
+    }
+
+    @Benchmark
+    public ThreeWayCurrencyConversion applyQuote() {
+        return conversion.withQuotes(changedBase, changedQuote, changedRate);
+    }
+
+}
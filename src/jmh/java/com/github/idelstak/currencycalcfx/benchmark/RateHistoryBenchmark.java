@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.benchmark;
+
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import com.github.idelstak.currencycalcfx.store.RateHistory;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Looks up the rate of a pair in force at a random instant of a history of
+ * {@code ticks} ticks, one per second, e.g. ten million ticks are close to
+ * four months of one tick per second.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RateHistoryBenchmark {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Param({"100000", "10000000"})
+    private int ticks;
+
+    private Path directory;
+    private RateHistory history;
+    private int base;
+    private int quote;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() throws IOException {
+        var index = CurrencyIndex.ofAvailableCurrencies();
+        directory = Files.createTempDirectory("rate-history-benchmark");
+        history = RateHistory.open(directory, index, 1 << 20);
+        base = index.idOf("USD");
+        quote = index.idOf("KES");
+        random = new SplittableRandom(42);
+
+        for (int i = 0; i < ticks; i++) {
+            history.append(base, quote, (i + 1) * SECOND, BigDecimal.valueOf(130_0000 + random.nextInt(1_000), 4));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        history.close();
+
+        try (var files = Files.walk(directory)) {
+            for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal rateAt() {
+        return history.rateAt(base, quote, random.nextLong(SECOND, (ticks + 1) * SECOND));
+    }
+
+}
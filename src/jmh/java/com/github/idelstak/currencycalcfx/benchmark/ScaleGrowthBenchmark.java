@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.benchmark;
+
+import com.github.idelstak.currencycalcfx.model.currency.ArithmeticMode;
+import com.github.idelstak.currencycalcfx.model.currency.PrecisionPolicy;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Converts an amount back and forth {@code hops} times, once with exact
+ * products, whose scale grows with every hop, and once bounded by the amount
+ * precision of the default {@link PrecisionPolicy}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScaleGrowthBenchmark {
+
+    @Param({"2", "8", "32"})
+    private int hops;
+
+    private BigDecimal rate;
+    private BigDecimal reverseRate;
+    private BigDecimal amount;
+    private MathContext amountContext;
+
+    @Setup
+    public void setup() {
+        var policy = PrecisionPolicy.getDefault();
+        rate = new BigDecimal("130.2537");
+        reverseRate = policy.getReciprocalPolicy().reciprocal(rate);
+        amount = new BigDecimal("1234.56");
+        amountContext = policy.getAmountContext();
+    }
+
+    @Benchmark
+    public BigDecimal unboundedScale() {
+        return convertBackAndForth(MathContext.UNLIMITED);
+    }
+
+    @Benchmark
+    public BigDecimal boundedScale() {
+        return convertBackAndForth(amountContext);
+    }
+
+    private BigDecimal convertBackAndForth(MathContext mathContext) {
+        var result = amount;
+
+        for (int i = 0; i < hops; i++) {
+            result = ArithmeticMode.DECIMAL.convert(result, i % 2 == 0 ? rate : reverseRate, mathContext);
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx;
+
+import com.github.idelstak.currencycalcfx.batch.CsvBatchConversion;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.store.RateFileLoader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This {@code BatchLaunch} class is the entry point for converting CSV files
+ * from the command line, without starting JavaFX.
+ * <p>
+ * Usage:
+ * <pre>
+ * BatchLaunch --rates rates.csv --input ledger.csv --output revalued.csv --to EUR
+ *             [--amount-column 0] [--currency-column 1] [--header]
+ *             [--threads N] [--chunk-size BYTES]
+ * </pre>
+ * The rates file is read by {@link RateFileLoader}, as CSV or binary. Each row
+ * of the input is written to the output with its amount converted to the
+ * {@code --to} currency appended; see {@link CsvBatchConversion}.
+ */
+public class BatchLaunch {
+
+    public static void main(String[] args) throws IOException {
+        var options = parseOptions(args);
+
+        if (!options.keySet().containsAll(List.of("--rates", "--input", "--output", "--to"))) {
+            System.err.println("Usage: BatchLaunch --rates FILE --input FILE --output FILE --to CURRENCY"
+                    + " [--amount-column N] [--currency-column N] [--header] [--threads N] [--chunk-size BYTES]");
+            System.exit(2);
+        }
+
+        var conversionModel = new ConversionModel();
+        var conversion = new RateFileLoader(conversionModel.getIndex())
+                .load(Path.of(options.get("--rates")))
+                .publishTo(conversionModel);
+        var batchConversion = new CsvBatchConversion(conversion,
+                Currency.getInstance(options.get("--to")),
+                Integer.parseInt(options.getOrDefault("--amount-column", "0")),
+                Integer.parseInt(options.getOrDefault("--currency-column", "1")))
+                .withHeader(options.containsKey("--header"));
+
+        if (options.containsKey("--threads")) {
+            batchConversion = batchConversion.withParallelism(Integer.parseInt(options.get("--threads")));
+        }
+        if (options.containsKey("--chunk-size")) {
+            batchConversion = batchConversion.withChunkSize(Integer.parseInt(options.get("--chunk-size")));
+        }
+
+        var input = Path.of(options.get("--input"));
+        var start = System.nanoTime();
+        var result = batchConversion.convert(input, Path.of(options.get("--output")));
+        var seconds = (System.nanoTime() - start) / 1e9;
+
+        System.err.printf("Converted %d rows (%d failed) in %.2f s, %.1f MB/s%n",
+                result.rows(), result.failedRows(), seconds, Files.size(input) / 1e6 / seconds);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        var options = new HashMap<String, String>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--header")) {
+                options.put(args[i], "true");
+            } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i], args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        return options;
+    }
+}
@@ -24,8 +24,15 @@
 package com.github.idelstak.currencycalcfx;
 
 import com.github.idelstak.currencycalcfx.controller.CurrencyCalcFxController;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
 import com.github.idelstak.currencycalcfx.module.CurrencyCalcFxModule;
+import com.github.idelstak.currencycalcfx.provider.RateProvider;
+import com.github.idelstak.currencycalcfx.store.RateBookSnapshotter;
+import com.github.idelstak.currencycalcfx.store.RateHistoryRecorder;
 import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import java.util.Set;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
@@ -36,17 +43,38 @@ import javafx.stage.Stage;
  * It creates a Guice {@code Injector} with the {@link CurrencyCalcFxModule}
  * that binds dependencies for the {@link CurrencyCalcFxController}, retrieves
  * the controller from the injector, and sets its view as the primary stage's
- * scene.
+ * scene. When snapshots are enabled, the rates are restored from the last
+ * snapshot at startup and saved to it while the application runs and when it
+ * stops. When the rate history is enabled, every rate change is recorded in
+ * it. The bound {@link RateProvider}s keep publishing quotes until the
+ * application stops.
  */
 public class CurrencyCalcFxApp extends Application {
 
+    private RateBookSnapshotter rateBookSnapshotter;
+    private RateHistoryRecorder rateHistoryRecorder;
+    private Set<RateProvider> rateProviders = Set.of();
+
     @Override
     public void start(Stage primaryStage) throws Exception {
         // Create a new Guice injector with the CurrencyCalcFxModule 
         // to bind dependencies for the CurrencyCalcFxController
         var injector = Guice.createInjector(new CurrencyCalcFxModule());
+        // Restore the rates of the last launch, if snapshots are enabled,
+        // and keep saving them so the next launch starts with them
+        rateBookSnapshotter = injector.getInstance(RateBookSnapshotter.class);
+        rateBookSnapshotter.restore();
+        rateBookSnapshotter.start();
+        // Record rate changes from now on, if the rate history is enabled
+        rateHistoryRecorder = injector.getInstance(RateHistoryRecorder.class);
         // Retrieve an instance of the CurrencyCalcFxController from the injector
         var currencyCalcFxController = injector.getInstance(CurrencyCalcFxController.class);
+        // Start pushing quotes from the rate providers into the model
+        rateProviders = injector.getInstance(Key.get(new TypeLiteral<Set<RateProvider>>() {}));
+        var conversionModel = injector.getInstance(ConversionModel.class);
+        for (var rateProvider : rateProviders) {
+            rateProvider.start(conversionModel);
+        }
 
         // Set the view of the CurrencyCalcFxController as the scene 
         // for the primary stage
@@ -59,6 +87,22 @@ public class CurrencyCalcFxApp extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        // Stop the rate providers so the last snapshot holds their final quotes
+        for (var rateProvider : rateProviders) {
+            rateProvider.close();
+        }
+        // Save the rates one last time on exit
+        if (rateBookSnapshotter != null) {
+            rateBookSnapshotter.close();
+        }
+        // Write the recorded rate history to disk
+        if (rateHistoryRecorder != null) {
+            rateHistoryRecorder.close();
+        }
+    }
+
     public static void main(String[] args) {
         // Call the launch method to launch the JavaFX application, 
         // passing in any command-line arguments
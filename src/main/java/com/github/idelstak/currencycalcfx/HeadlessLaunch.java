@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx;
+
+import com.github.idelstak.currencycalcfx.model.BidPricing;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.provider.DirectoryRateProvider;
+import com.github.idelstak.currencycalcfx.server.QuoteServer;
+import com.github.idelstak.currencycalcfx.store.RateFileLoader;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+/**
+ * This {@code HeadlessLaunch} class is the entry point for serving
+ * conversions and quotes over HTTP without starting JavaFX.
+ * <p>
+ * It accepts {@code --host <name>} (default {@code localhost}) and
+ * {@code --port <number>} (default {@code 8080}) and runs a
+ * {@link QuoteServer} until the JVM is shut down. Rates are loaded at startup
+ * from the file given with {@code --rates <file>}, if any, and published
+ * straight to the server's {@link ConversionModel}. With
+ * {@code --rates-dir <directory>}, the rate files of a directory are published
+ * and reloaded whenever they change. An option without a value is rejected.
+ * <p>
+ * Unless it is set on the command line, {@code sun.net.httpserver.nodelay} is
+ * set to {@code true} before the server is created, so keep-alive responses
+ * are not held back by the client's delayed ACK.
+ */
+public class HeadlessLaunch {
+
+    public static void main(String[] args) throws IOException {
+        var host = "localhost";
+        var port = 8080;
+        Path rates = null;
+        Path ratesDirectory = null;
+
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch (args[i]) {
+                case "--host" -> host = args[i + 1];
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--rates" -> rates = Path.of(args[i + 1]);
+                case "--rates-dir" -> ratesDirectory = Path.of(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+
+        var conversionModel = new ConversionModel();
+
+        if (rates != null) {
+            new RateFileLoader(conversionModel.getIndex()).load(rates).publishTo(conversionModel);
+        }
+
+        if (ratesDirectory != null) {
+            new DirectoryRateProvider(ratesDirectory).start(conversionModel);
+        }
+
+        var server = new QuoteServer(new InetSocketAddress(host, port),
+                conversionModel, BidPricing.getDefault());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        server.start();
+
+        System.out.println("Serving quotes on http://" + host + ":" + server.getAddress().getPort());
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.batch;
+
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import com.github.idelstak.currencycalcfx.model.currency.DecimalParser;
+import com.github.idelstak.currencycalcfx.model.currency.PrecisionPolicy;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Currency;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Converts the amounts of a CSV file to one target currency.
+ * <p>
+ * Every row of the output is the input row with the converted amount appended
+ * as a last column, rounded to the minor units of the target currency. Rows
+ * whose amount can not be parsed or whose currency is unknown or not connected
+ * to the target get an empty last column and are counted as failed. Blank
+ * lines are dropped. Fields may be quoted, but line breaks inside quoted
+ * fields are not supported.
+ * <p>
+ * The input is memory-mapped in chunks of {@link #getChunkSize()} bytes, which
+ * are parsed and converted in parallel. A chunk owns the rows that start in
+ * it, so chunks are cut at any byte and need no coordination. Converted chunks
+ * are written in input order, and at most twice as many chunks as there are
+ * threads are in flight at once, which bounds the heap used to the size of
+ * their output regardless of the size of the file. Every chunk converts
+ * with the same conversion; it is immutable, so the output does not depend on
+ * how the chunks are scheduled.
+ */
+public class CsvBatchConversion {
+
+    /**
+     * The default number of input bytes converted by one task.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    /**
+     * The longest row a file may have, in bytes.
+     */
+    public static final int MAX_ROW_LENGTH = 64 << 10;
+
+    private final ThreeWayCurrencyConversion conversion;
+    private final CurrencyIndex index;
+    private final PrecisionPolicy precisionPolicy;
+    private final Currency targetCurrency;
+    private final int targetCurrencyId;
+    private final int amountColumn;
+    private final int currencyColumn;
+    private final boolean header;
+    private final int chunkSize;
+    private final int parallelism;
+
+    /**
+     * @param conversion the conversion used for every row
+     * @param targetCurrency the currency to convert to
+     * @param amountColumn the zero based column holding the amount
+     * @param currencyColumn the zero based column holding the ISO 4217 code
+     * of the currency of the amount
+     */
+    public CsvBatchConversion(ThreeWayCurrencyConversion conversion,
+            Currency targetCurrency, int amountColumn, int currencyColumn) {
+        this(conversion, targetCurrency, amountColumn, currencyColumn, false,
+                DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    private CsvBatchConversion(ThreeWayCurrencyConversion conversion,
+            Currency targetCurrency, int amountColumn, int currencyColumn,
+            boolean header, int chunkSize, int parallelism) {
+        if (amountColumn < 0 || currencyColumn < 0 || amountColumn == currencyColumn) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid columns: amount %d, currency %d", amountColumn, currencyColumn));
+        }
+        if (chunkSize < 1 || chunkSize > Integer.MAX_VALUE - MAX_ROW_LENGTH - 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+
+        this.conversion = conversion;
+        this.index = conversion.getRateBook().getIndex();
+        this.precisionPolicy = conversion.getRateBook().getPrecisionPolicy();
+        this.targetCurrency = targetCurrency;
+        this.targetCurrencyId = index.idOf(targetCurrency);
+
+        if (targetCurrencyId < 0) {
+            throw new IllegalArgumentException("Unknown currency: " + targetCurrency);
+        }
+
+        this.amountColumn = amountColumn;
+        this.currencyColumn = currencyColumn;
+        this.header = header;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return a copy that copies the first row of the input to the output
+     * with the name of the converted column appended, instead of converting
+     * it
+     */
+    public CsvBatchConversion withHeader(boolean header) {
+        return new CsvBatchConversion(conversion, targetCurrency, amountColumn,
+                currencyColumn, header, chunkSize, parallelism);
+    }
+
+    public CsvBatchConversion withChunkSize(int chunkSize) {
+        return new CsvBatchConversion(conversion, targetCurrency, amountColumn,
+                currencyColumn, header, chunkSize, parallelism);
+    }
+
+    public CsvBatchConversion withParallelism(int parallelism) {
+        return new CsvBatchConversion(conversion, targetCurrency, amountColumn,
+                currencyColumn, header, chunkSize, parallelism);
+    }
+
+    public Currency getTargetCurrency() {
+        return targetCurrency;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Converts {@code input} into {@code output}, replacing {@code output} if
+     * it exists.
+     *
+     * @return the number of rows converted and failed
+     * @throws IOException if a file can not be read or written, or a row is
+     * longer than {@link #MAX_ROW_LENGTH}
+     */
+    public Result convert(Path input, Path output) throws IOException {
+        var executor = Executors.newFixedThreadPool(parallelism, task -> {
+            var thread = new Thread(task, "csv-batch-conversion");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (var in = FileChannel.open(input, StandardOpenOption.READ);
+                var out = FileChannel.open(output, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return convert(in, out, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result convert(FileChannel in, FileChannel out, ExecutorService executor) throws IOException {
+        var size = in.size();
+        var pending = new ArrayDeque<Future<Chunk>>();
+        var channelOutput = Channels.newOutputStream(out);
+        var rows = 0L;
+        var failedRows = 0L;
+
+        for (long start = 0; start < size || !pending.isEmpty(); start += chunkSize) {
+            if (start < size) {
+                var chunkStart = start;
+                pending.add(executor.submit(() -> convertChunk(in, size, chunkStart)));
+            }
+
+            if (pending.size() == 2 * parallelism || start + chunkSize >= size) {
+                var chunk = await(pending.removeFirst());
+                chunk.output().writeTo(channelOutput);
+
+                rows += chunk.rows();
+                failedRows += chunk.failedRows();
+            }
+        }
+
+        return new Result(rows, failedRows);
+    }
+
+    private static Chunk await(Future<Chunk> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private Chunk convertChunk(FileChannel in, long size, long start) throws IOException {
+        // Map the byte before the chunk, to tell whether a row starts on its
+        // first byte, and enough bytes after it to finish its last row
+        var mapStart = Math.max(start - 1, 0);
+        var mapEnd = Math.min(size, start + chunkSize + MAX_ROW_LENGTH);
+        MappedByteBuffer bytes = in.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        var limit = bytes.limit();
+        var end = (int) Math.min(start + chunkSize - mapStart, limit);
+        var position = (int) (start - mapStart);
+        var output = new ByteArrayOutputStream(chunkSize + chunkSize / 8);
+        var row = new byte[MAX_ROW_LENGTH];
+        var rows = 0L;
+        var failedRows = 0L;
+
+        if (start > 0 && bytes.get(position - 1) != '\n') {
+            position = nextRow(bytes, position, limit, mapEnd == size);
+        }
+
+        while (position < end) {
+            var rowEnd = rowEnd(bytes, position, limit, mapEnd == size);
+            var contentEnd = rowEnd > position && bytes.get(rowEnd - 1) == '\r' ? rowEnd - 1 : rowEnd;
+
+            if (contentEnd > position) {
+                bytes.get(position, row, 0, contentEnd - position);
+                output.write(row, 0, contentEnd - position);
+                output.write(',');
+
+                if (header && start == 0 && position == 0) {
+                    writeAscii(output, "amount_" + targetCurrency.getCurrencyCode());
+                } else if (convertRow(output, bytes, position, contentEnd)) {
+                    rows++;
+                } else {
+                    failedRows++;
+                }
+
+                output.write('\n');
+            }
+
+            position = rowEnd + 1;
+        }
+
+        return new Chunk(output, rows, failedRows);
+    }
+
+    private boolean convertRow(ByteArrayOutputStream output, ByteBuffer bytes, int from, int to) {
+        var amount = field(bytes, from, to, amountColumn);
+        var currency = field(bytes, from, to, currencyColumn);
+
+        if (amount < 0 || currency < 0) {
+            return false;
+        }
+
+        var amountFrom = (int) (amount >>> 32);
+        var amountTo = (int) amount;
+        var currencyFrom = (int) (currency >>> 32);
+        var currencyId = (int) currency - currencyFrom == 3
+                ? index.idOf(bytes.get(currencyFrom), bytes.get(currencyFrom + 1), bytes.get(currencyFrom + 2))
+                : -1;
+
+        if (currencyId < 0) {
+            return false;
+        }
+
+        try {
+            var result = conversion.convert(currencyId, targetCurrencyId, DecimalParser.parse(bytes, amountFrom, amountTo));
+            writeAscii(output, precisionPolicy.roundToMinorUnits(result, targetCurrency).toPlainString());
+            return true;
+        } catch (NumberFormatException | NoSuchElementException | ArithmeticException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds a column of the row {@code from} to {@code to}, without the
+     * quotes and blanks around its value.
+     *
+     * @return the start of the value in the upper and its end in the lower
+     * 32 bits, or {@code -1} if the row has fewer columns
+     */
+    private static long field(ByteBuffer bytes, int from, int to, int column) {
+        var position = from;
+
+        for (int skipped = 0; skipped < column; skipped++) {
+            var quoted = false;
+
+            while (position < to && (quoted || bytes.get(position) != ',')) {
+                if (bytes.get(position) == '"') {
+                    quoted = !quoted;
+                }
+                position++;
+            }
+
+            if (position == to) {
+                return -1;
+            }
+
+            position++;
+        }
+
+        var fieldEnd = position;
+        var quoted = false;
+
+        while (fieldEnd < to && (quoted || bytes.get(fieldEnd) != ',')) {
+            if (bytes.get(fieldEnd) == '"') {
+                quoted = !quoted;
+            }
+            fieldEnd++;
+        }
+
+        while (position < fieldEnd && isBlankOrQuote(bytes.get(position))) {
+            position++;
+        }
+        while (fieldEnd > position && isBlankOrQuote(bytes.get(fieldEnd - 1))) {
+            fieldEnd--;
+        }
+
+        return (long) position << 32 | fieldEnd;
+    }
+
+    private static boolean isBlankOrQuote(byte b) {
+        return b == ' ' || b == '\t' || b == '"';
+    }
+
+    private static int rowEnd(ByteBuffer bytes, int from, int limit, boolean endOfFile) throws IOException {
+        for (int position = from; position < limit; position++) {
+            if (bytes.get(position) == '\n') {
+                return position;
+            }
+        }
+
+        if (endOfFile) {
+            return limit;
+        }
+
+        throw new IOException("Row longer than " + MAX_ROW_LENGTH + " bytes");
+    }
+
+    private static int nextRow(ByteBuffer bytes, int from, int limit, boolean endOfFile) throws IOException {
+        var rowEnd = rowEnd(bytes, from, limit, endOfFile);
+        return rowEnd < limit ? rowEnd + 1 : limit;
+    }
+
+    private static void writeAscii(ByteArrayOutputStream output, String text) {
+        output.writeBytes(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * The outcome of converting a file.
+     *
+     * @param rows the number of rows converted
+     * @param failedRows the number of rows that could not be converted
+     */
+    public record Result(long rows, long failedRows) {
+
+    }
+
+    private record Chunk(ByteArrayOutputStream output, long rows, long failedRows) {
+
+    }
+
+}
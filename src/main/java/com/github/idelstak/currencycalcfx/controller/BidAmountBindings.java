@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.controller;
+
+import com.github.idelstak.currencycalcfx.model.Bid;
+import java.math.BigDecimal;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.ObjectBinding;
+
+/**
+ * Keeps the bid amount and the you-get amount of a {@link Bid} in step.
+ * <p>
+ * Editing the bid amount or the commission rate recalculates the you-get
+ * amount, and editing the you-get amount recalculates the bid amount. The two
+ * bindings feed each other until a recalculation produces the value already
+ * set. Only JavaFX properties are involved, so the bindings work without a
+ * stage or the JavaFX application thread.
+ */
+public class BidAmountBindings {
+
+    private final ObjectBinding<BigDecimal> youGetAmountBinding;
+    private final ObjectBinding<BigDecimal> bidAmountBinding;
+
+    public BidAmountBindings(Bid bid) {
+        youGetAmountBinding = Bindings.createObjectBinding(
+                bid::calculateYouGetAmount,
+                bid.getCommissionRateProperty(), bid.getBidAmountProperty());
+        youGetAmountBinding.addListener((observable, oldValue, newValue) -> {
+            bid.setYouGetAmount(newValue);
+        });
+
+        bidAmountBinding = Bindings.createObjectBinding(
+                bid::calculateBidAmount,
+                bid.getCommissionRateProperty(), bid.getYouGetAmountProperty());
+        bidAmountBinding.addListener((observable, oldValue, newValue) -> {
+            bid.setBidAmount(newValue);
+        });
+    }
+
+    public ObjectBinding<BigDecimal> getYouGetAmountBinding() {
+        return youGetAmountBinding;
+    }
+
+    public ObjectBinding<BigDecimal> getBidAmountBinding() {
+        return bidAmountBinding;
+    }
+
+}
@@ -24,13 +24,12 @@
 package com.github.idelstak.currencycalcfx.controller;
 
 import com.github.idelstak.currencycalcfx.model.Bid;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionCache;
 import com.github.idelstak.currencycalcfx.view.BidPane;
 import com.github.idelstak.currencycalcfx.view.formatter.CurrencyTextFormatter;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
-import javafx.beans.binding.ObjectBinding;
 import javafx.scene.Node;
 import javafx.util.converter.BigDecimalStringConverter;
 
@@ -38,11 +37,20 @@ public class BidController {
 
     private final Bid bid;
     private final BidPane bidPane;
-    private ObjectBinding<BigDecimal> youGetAmountBinding;
+    private final ConversionCache conversionCache;
+    private final UpdateScheduler updateScheduler;
+    private BidAmountBindings bidAmountBindings;
 
     public BidController(Bid bid, BidPane bidPane) {
+        this(bid, bidPane, ConversionCache.getDefault());
+    }
+
+    public BidController(Bid bid, BidPane bidPane,
+            ConversionCache conversionCache) {
         this.bid = bid;
         this.bidPane = bidPane;
+        this.conversionCache = conversionCache;
+        updateScheduler = UpdateScheduler.getDefault();
 
         initBindings();
     }
@@ -51,13 +59,17 @@ public class BidController {
         return bid;
     }
 
+    public ConversionCache getConversionCache() {
+        return conversionCache;
+    }
+
     public Node getView() {
         return bidPane;
     }
 
     private void initBindings() {
         bidPane.getCurrenciesComboBox().itemsProperty().addListener(observable -> {
-            Platform.runLater(() -> {
+            updateScheduler.schedule(bidPane.getCurrenciesComboBox().getSelectionModel(), () -> {
                 bidPane.getCurrenciesComboBox().getSelectionModel().selectFirst();
                 bid.setBidAmount(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP));
             });
@@ -88,34 +100,21 @@ public class BidController {
         bidPane.getYouGetAmountTextField().textProperty().bindBidirectional(bid.getYouGetAmountProperty(), new BigDecimalStringConverter());
 
         bidPane.getCurrenciesComboBox().getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
-            Platform.runLater(() -> bid.setCurrency(newValue));
+            updateScheduler.schedule(bid.getCurrencyProperty(), () -> bid.setCurrency(newValue));
         });
 
         bid.getCurrencyProperty().addListener((observable, oldValue, newValue) -> {
             var threeWayCurrencyConversion = bid.getThreeWayCurrencyConversion();
             
             if (oldValue != null && newValue != null && threeWayCurrencyConversion != null) {
-                BigDecimal convertedBidAmount = threeWayCurrencyConversion.convert(oldValue, newValue, bid.getBidAmount());
+                BigDecimal convertedBidAmount = bid.getPrecisionPolicy().roundToMinorUnits(
+                        conversionCache.convert(threeWayCurrencyConversion, oldValue, newValue, bid.getBidAmount()), newValue);
 
                 bid.setBidAmount(convertedBidAmount);
             }
         });
 
-        youGetAmountBinding = Bindings.createObjectBinding(
-                bid::calculateYouGetAmount,
-                bid.getCommissionRateProperty(), bid.getBidAmountProperty());
-        youGetAmountBinding.addListener((observable, oldValue, newValue) -> {
-            bid.setYouGetAmount(newValue);
-        });
-
-        bidAmountBinding = Bindings.createObjectBinding(
-                bid::calculateBidAmount,
-                bid.getCommissionRateProperty(), bid.getYouGetAmountProperty());
-        bidAmountBinding.addListener((observable, oldValue, newValue) -> {
-            bid.setBidAmount(newValue);
-        });
-
+        bidAmountBindings = new BidAmountBindings(bid);
     }
-    private ObjectBinding<BigDecimal> bidAmountBinding;
 
 }
@@ -25,30 +25,45 @@ package com.github.idelstak.currencycalcfx.controller;
 
 import com.github.idelstak.currencycalcfx.model.Bid;
 import com.github.idelstak.currencycalcfx.model.CurrencyExchange;
-import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.ExchangeRate;
 import com.github.idelstak.currencycalcfx.view.CurrencyCalcFxPane;
 import java.math.BigDecimal;
 import java.util.*;
-import javafx.application.Platform;
+import java.util.function.BiConsumer;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.ObjectBinding;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 
 public class CurrencyCalcFxController {
 
+    static final String ARBITRAGE_STYLE_CLASS = "arbitrage";
+
     private final CurrencyExchange sourceCurrencyExchange;
     private final CurrencyExchange targetCurrencyExchange;
     private final CurrencyCalcFxPane currencyCalcFxPane;
     private final Bid bid;
+    private final ConversionModel conversionModel;
+    private final UpdateScheduler updateScheduler;
+    private final ConversionModel.RateListener bidCurrenciesListener;
+    private final Map<List<Currency>, BigDecimal> putRates;
+    private List<Currency> watchedCurrencies;
     private ObjectBinding<List<Currency>> bidCurrenciesBinding;
 
     public CurrencyCalcFxController(
             ThreeWayCurrencyExchangeController threeWayCurrencyExchangeController,
-            BidController bidController) {
+            BidController bidController,
+            ConversionModel conversionModel) {
 
         sourceCurrencyExchange = threeWayCurrencyExchangeController.getSourceCurrencyExchange();
         targetCurrencyExchange = threeWayCurrencyExchangeController.getTargetCurrencyExchange();
         bid = bidController.getBid();
+        this.conversionModel = conversionModel;
+        updateScheduler = UpdateScheduler.getDefault();
+        bidCurrenciesListener = conversion -> scheduleConversionUpdate();
+        watchedCurrencies = List.of();
+        putRates = new HashMap<>();
 
         currencyCalcFxPane = new CurrencyCalcFxPane(threeWayCurrencyExchangeController.getView(), bidController.getView());
         currencyCalcFxPane.getStylesheets().add(getClass().getResource("/css/styling.css").toExternalForm());
@@ -68,13 +83,18 @@ public class CurrencyCalcFxController {
         return targetCurrencyExchange;
     }
 
+    public ConversionModel getConversionModel() {
+        return conversionModel;
+    }
+
     public Parent getView() {
         return currencyCalcFxPane;
     }
 
     private void initBindings() {
         sourceCurrencyExchange.getBaseCurrencyProperty().addListener((observable, oldValue, newValue) -> {
-            Platform.runLater(() -> currencyCalcFxPane.getSourceBaseCurrenciesComboBox().getSelectionModel().select(newValue));
+            var selectionModel = currencyCalcFxPane.getSourceBaseCurrenciesComboBox().getSelectionModel();
+            updateScheduler.schedule(selectionModel, () -> selectionModel.select(newValue));
         });
 
         bidCurrenciesBinding = Bindings.createObjectBinding(() -> {
@@ -91,45 +111,154 @@ public class CurrencyCalcFxController {
                 targetCurrencyExchange.getQuoteCurrencyProperty());
 
         bidCurrenciesBinding.addListener((observable, oldValue, newValue) -> {
-            Platform.runLater(() -> bid.setAvailableCurrencies(newValue));
+            updateScheduler.schedule(bidCurrenciesBinding, () -> bid.setAvailableCurrencies(newValue));
+            watchBidCurrencies();
         });
 
-        threeWayCurrencyExchangeRateBinding = Bindings.createObjectBinding(() -> {
-            var sourceExchangeRate = sourceCurrencyExchange.getExchangeRate();
-            var targetExchangeRate = targetCurrencyExchange.getExchangeRate();
-            var exchangeRates = new HashMap<Currency, Map<Currency, BigDecimal>>();
-
-            if (sourceExchangeRate != null && targetExchangeRate != null) {
-                var sourceBaseCurrency = sourceExchangeRate.baseCurrency();
-                var sourceReverseBaseCurrency = sourceExchangeRate.getReverseRate().baseCurrency();
-                var sourceQuoteCurrency = sourceExchangeRate.quoteCurrency();
-                var sourceReverseQuoteCurrency = sourceExchangeRate.getReverseRate().quoteCurrency();
-                var targetBaseCurrency = targetExchangeRate.baseCurrency();
-                var targetReverseBaseCurrency = targetExchangeRate.getReverseRate().baseCurrency();
-                var targetQuoteCurrency = targetExchangeRate.quoteCurrency();
-                var targetReverseQuoteCurrency = targetExchangeRate.getReverseRate().quoteCurrency();
-
-                if (sourceBaseCurrency != null && sourceQuoteCurrency != null && targetQuoteCurrency != null) {
-                    exchangeRates.put(sourceBaseCurrency, new HashMap<>());
-                    exchangeRates.put(sourceQuoteCurrency, new HashMap<>());
-                    exchangeRates.put(targetQuoteCurrency, new HashMap<>());
-
-                    exchangeRates.get(sourceBaseCurrency).put(sourceQuoteCurrency, sourceExchangeRate.rate());
-                    exchangeRates.get(sourceReverseBaseCurrency).put(sourceReverseQuoteCurrency, sourceExchangeRate.getReverseRate().rate());
-                    exchangeRates.getOrDefault(targetBaseCurrency, new HashMap<>()).put(targetQuoteCurrency, targetExchangeRate.rate());
-                    exchangeRates.get(targetReverseBaseCurrency).put(targetReverseQuoteCurrency, targetExchangeRate.getReverseRate().rate());
-                }
+        listenToExchangeRates(sourceCurrencyExchange, targetCurrencyExchange);
+        listenToExchangeRates(targetCurrencyExchange, sourceCurrencyExchange);
+    }
+
+    /**
+     * Subscribes to the quotes between the currencies of the bid, in place of
+     * the ones it had before, and shows the conversion once for the new
+     * currencies. Changes of other quotes are not followed.
+     */
+    private void watchBidCurrencies() {
+        var currencies = new ArrayList<Currency>(3);
+
+        for (var currency : Arrays.asList(sourceCurrencyExchange.getBaseCurrency(),
+                targetCurrencyExchange.getBaseCurrency(), targetCurrencyExchange.getQuoteCurrency())) {
+            if (currency != null && !currencies.contains(currency)) {
+                currencies.add(currency);
             }
+        }
 
-            return new ThreeWayCurrencyConversion(exchangeRates);
-        },
-                sourceCurrencyExchange.getExchangeRateProperty(),
-                targetCurrencyExchange.getExchangeRateProperty());
+        forEachPair(watchedCurrencies, (currency, otherCurrency)
+                -> conversionModel.removeListener(currency, otherCurrency, bidCurrenciesListener));
+        forEachPair(currencies, (currency, otherCurrency)
+                -> conversionModel.addListener(currency, otherCurrency, bidCurrenciesListener));
+        watchedCurrencies = currencies;
+
+        scheduleConversionUpdate();
+    }
+
+    /**
+     * Shows the latest conversion on the next update. It is read when the
+     * update is applied, rather than taken from the change that scheduled
+     * it, since changes published on several threads may be notified out of
+     * order.
+     */
+    private void scheduleConversionUpdate() {
+        updateScheduler.schedule(bid.getThreeWayCurrencyConversionProperty(), () -> {
+            bid.setThreeWayCurrencyConversion(conversionModel.getConversion());
+            flagArbitrage(currencyCalcFxPane.getSourceQuoteCurrencyRateTextField(), sourceCurrencyExchange);
+            flagArbitrage(currencyCalcFxPane.getTargetQuoteCurrencyRateTextField(), targetCurrencyExchange);
+        });
+    }
+
+    private static void forEachPair(List<Currency> currencies,
+            BiConsumer<Currency, Currency> action) {
+        for (int i = 0; i < currencies.size(); i++) {
+            for (int j = i + 1; j < currencies.size(); j++) {
+                action.accept(currencies.get(i), currencies.get(j));
+            }
+        }
+    }
+
+    private void flagArbitrage(Node node, CurrencyExchange currencyExchange) {
+        var exchangeRate = currencyExchange.getExchangeRate();
+        var styleClass = node.getStyleClass();
+        var involved = isComplete(exchangeRate)
+                && conversionModel.getArbitrageDetector().involves(exchangeRate.baseCurrency(), exchangeRate.quoteCurrency());
+
+        if (involved && !styleClass.contains(ARBITRAGE_STYLE_CLASS)) {
+            styleClass.add(ARBITRAGE_STYLE_CLASS);
+        } else if (!involved) {
+            styleClass.remove(ARBITRAGE_STYLE_CLASS);
+        }
+    }
 
-        threeWayCurrencyExchangeRateBinding.addListener((observable, oldValue, newValue) -> {
-            Platform.runLater(() -> bid.setThreeWayCurrencyConversion(newValue));
+    /**
+     * Publishes the rate of {@code currencyExchange} when it is not the one
+     * already known, and takes back the quote of the pair it showed before.
+     * Only quotes the panes put are taken back, and only while nobody else
+     * has published over them, so browsing past the quotes of a rate
+     * provider or of the restored snapshot leaves them in place.
+     */
+    private void listenToExchangeRates(CurrencyExchange currencyExchange,
+            CurrencyExchange otherCurrencyExchange) {
+        currencyExchange.getExchangeRateProperty().addListener((observable, oldValue, newValue) -> {
+            var otherExchangeRate = otherCurrencyExchange.getExchangeRate();
+            var leaveOldPair = isComplete(oldValue)
+                    && !isSamePair(oldValue, newValue)
+                    && !isSamePair(oldValue, otherExchangeRate);
+            var removeOldPair = leaveOldPair && isStillPut(oldValue);
+            var putNewPair = isComplete(newValue) && !isKnown(newValue);
+
+            if (leaveOldPair) {
+                putRates.remove(List.of(oldValue.baseCurrency(), oldValue.quoteCurrency()));
+            }
+
+            if (putNewPair) {
+                putRates.remove(List.of(newValue.quoteCurrency(), newValue.baseCurrency()));
+                putRates.put(List.of(newValue.baseCurrency(), newValue.quoteCurrency()), newValue.rate());
+            }
+
+            if (putNewPair && removeOldPair) {
+                conversionModel.replaceQuote(oldValue.baseCurrency(), oldValue.quoteCurrency(),
+                        newValue.baseCurrency(), newValue.quoteCurrency(), newValue.rate());
+            } else if (putNewPair) {
+                conversionModel.putQuote(newValue.baseCurrency(), newValue.quoteCurrency(), newValue.rate());
+            } else if (removeOldPair) {
+                conversionModel.removeQuote(oldValue.baseCurrency(), oldValue.quoteCurrency());
+            }
         });
     }
-    private ObjectBinding<ThreeWayCurrencyConversion> threeWayCurrencyExchangeRateBinding;
+
+    /**
+     * @return whether the model already holds the rate of
+     * {@code exchangeRate}
+     */
+    private boolean isKnown(ExchangeRate exchangeRate) {
+        var rate = conversionModel.getConversion().getRateBook()
+                .getRate(exchangeRate.baseCurrency(), exchangeRate.quoteCurrency());
+
+        return rate != null && rate.compareTo(exchangeRate.rate()) == 0;
+    }
+
+    /**
+     * @return whether a pane put the quote of {@code exchangeRate} and the
+     * model still holds the rate it put
+     */
+    private boolean isStillPut(ExchangeRate exchangeRate) {
+        var putRate = putRates.get(List.of(exchangeRate.baseCurrency(), exchangeRate.quoteCurrency()));
+        var rate = conversionModel.getConversion().getRateBook()
+                .getRate(exchangeRate.baseCurrency(), exchangeRate.quoteCurrency());
+
+        return putRate != null && rate != null && rate.compareTo(putRate) == 0;
+    }
+
+    private static boolean isComplete(ExchangeRate exchangeRate) {
+        return exchangeRate != null
+                && exchangeRate.baseCurrency() != null
+                && exchangeRate.quoteCurrency() != null
+                && exchangeRate.rate() != null;
+    }
+
+    private static boolean isSamePair(ExchangeRate exchangeRate,
+            ExchangeRate otherExchangeRate) {
+        if (otherExchangeRate == null) {
+            return false;
+        }
+
+        var baseCurrency = exchangeRate.baseCurrency();
+        var quoteCurrency = exchangeRate.quoteCurrency();
+        var otherBaseCurrency = otherExchangeRate.baseCurrency();
+        var otherQuoteCurrency = otherExchangeRate.quoteCurrency();
+
+        return (Objects.equals(baseCurrency, otherBaseCurrency) && Objects.equals(quoteCurrency, otherQuoteCurrency))
+                || (Objects.equals(baseCurrency, otherQuoteCurrency) && Objects.equals(quoteCurrency, otherBaseCurrency));
+    }
 
 }
@@ -25,13 +25,18 @@ package com.github.idelstak.currencycalcfx.controller;
 
 import com.github.idelstak.currencycalcfx.model.Currencies;
 import com.github.idelstak.currencycalcfx.model.CurrencyExchange;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.DecimalParser;
 import com.github.idelstak.currencycalcfx.model.currency.ExchangeRate;
 import com.github.idelstak.currencycalcfx.view.CurrencyExchangePane;
-import com.github.idelstak.currencycalcfx.view.formatter.CurrencyTextFormatter;
+import com.github.idelstak.currencycalcfx.view.formatter.RateTextFormatter;
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.util.Comparator;
 import java.util.Currency;
-import javafx.application.Platform;
+import java.util.Objects;
+import javafx.animation.PauseTransition;
 import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.ObjectBinding;
@@ -41,9 +46,21 @@ import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
 import javafx.scene.control.*;
+import javafx.util.Duration;
 
 public class CurrencyExchangeController {
 
+    /**
+     * How long typing must pause before the typed rate is published.
+     */
+    public static final Duration TYPING_PAUSE = Duration.millis(300);
+
+    /**
+     * How many significant digits of a known rate are shown, so small rates
+     * such as {@code UGX -> USD} do not show as zero.
+     */
+    private static final MathContext SHOWN_RATE_CONTEXT = new MathContext(6, RoundingMode.HALF_UP);
+
     private final Currencies currencies;
     private final CurrencyExchange currencyExchange;
     private final CurrencyExchangePane currencyExchangePane;
@@ -55,14 +72,25 @@ public class CurrencyExchangeController {
     private final SelectionModel<Currency> quoteCurrenciesSelectionModel;
     private final TextField baseCurrencyRateTextField;
     private final TextField quoteCurrencyRateTextField;
+    private final ConversionModel conversionModel;
+    private final UpdateScheduler updateScheduler;
+    private final PauseTransition typingPause;
+    private boolean showingKnownRate;
+    private BigDecimal typedRate;
+    private ExchangeRate scheduledExchangeRate;
 
     public CurrencyExchangeController(Currencies currencies,
             CurrencyExchange currencyExchange,
-            CurrencyExchangePane currencyExchangePane) {
+            CurrencyExchangePane currencyExchangePane,
+            ConversionModel conversionModel) {
 
         this.currencies = currencies;
         this.currencyExchange = currencyExchange;
         this.currencyExchangePane = currencyExchangePane;
+        this.conversionModel = conversionModel;
+        updateScheduler = UpdateScheduler.getDefault();
+        typingPause = new PauseTransition(TYPING_PAUSE);
+        typingPause.setOnFinished(event -> setExchangeRateFromTypedRate());
 
         defaultCurrency = currencies.getDefaultCurrency();
 
@@ -95,7 +123,7 @@ public class CurrencyExchangeController {
         baseCurrencyRateTextField.setEditable(false);
         baseCurrencyRateTextField.setText("1.00");
 
-        quoteCurrencyRateTextField.setTextFormatter(new CurrencyTextFormatter());
+        quoteCurrencyRateTextField.setTextFormatter(new RateTextFormatter());
         quoteCurrencyRateTextField.setText("1.00");
     }
 
@@ -107,7 +135,7 @@ public class CurrencyExchangeController {
             if (newValue == null) {
                 return;
             }
-            Platform.runLater(() -> {
+            updateScheduler.schedule(currencyExchange.getBaseCurrencyProperty(), () -> {
                 currencyExchange.setBaseCurrency(newValue);
             });
         });
@@ -120,8 +148,9 @@ public class CurrencyExchangeController {
                 return;
             }
 
-            Platform.runLater(() -> {
+            updateScheduler.schedule(currencyExchange.getQuoteCurrencyProperty(), () -> {
                 currencyExchange.setQuoteCurrency(newValue);
+                showKnownRate();
             });
         });
 
@@ -131,45 +160,140 @@ public class CurrencyExchangeController {
     private void setExchangeRateFromSelectedBaseCurrency(
             ObservableValue<? extends Currency> observable, Currency oldValue,
             Currency newValue) throws NumberFormatException {
-        var rate = new BigDecimal(Double.parseDouble(baseCurrencyRateTextField.getText()));
+        var rate = getKnownRate(newValue, currencyExchange.getQuoteCurrency(), baseCurrencyRateTextField);
         var exchangeRate = new ExchangeRate(newValue, currencyExchange.getQuoteCurrency(), rate);
 
         if (newValue == null) {
             return;
         }
 
-        Platform.runLater(() -> {
-            currencyExchange.setExchangeRate(exchangeRate);
-        });
+        scheduleExchangeRate(exchangeRate);
     }
 
     private void setExchangeRateFromSelectedQuoteCurrency(
             ObservableValue<? extends Currency> observable, Currency oldValue,
             Currency newValue) throws NumberFormatException {
-        var rate = new BigDecimal(Double.parseDouble(quoteCurrencyRateTextField.getText()));
+        var rate = getKnownRate(currencyExchange.getBaseCurrency(), newValue, quoteCurrencyRateTextField);
         var exchangeRate = new ExchangeRate(currencyExchange.getBaseCurrency(), newValue, rate);
 
         if (newValue == null) {
             return;
         }
 
-        Platform.runLater(() -> {
-            currencyExchange.setExchangeRate(exchangeRate);
-        });
+        scheduleExchangeRate(exchangeRate);
     }
 
+    /**
+     * Publishes the typed rate once typing pauses for {@link #TYPING_PAUSE},
+     * so a rate typed in several keystrokes is published once. Text that is
+     * not a positive number, such as an empty field, a lone {@code "."} or
+     * {@code "0"}, cancels the pending rate and publishes nothing.
+     */
     private void setExchangeRateFromQuoteRateText(
             ObservableValue<? extends String> observable, String oldValue,
-            String newValue) throws
-            NumberFormatException {
-        var rate = new BigDecimal(Double.parseDouble(newValue));
-        var exchangeRate = new ExchangeRate(currencyExchange.getBaseCurrency(), currencyExchange.getQuoteCurrency(), rate);
-        
-        if (newValue == null) {
+            String newValue) {
+        if (showingKnownRate) {
+            return;
+        }
+
+        typedRate = parseRate(newValue);
+
+        if (typedRate != null) {
+            typingPause.playFromStart();
+        } else {
+            typingPause.stop();
+        }
+    }
+
+    /**
+     * Publishes the rate typed before the pause, only when its value differs
+     * from the rate last set, so typing {@code "1.10"} after {@code "1.1"}
+     * publishes nothing.
+     */
+    private void setExchangeRateFromTypedRate() {
+        var rate = typedRate;
+
+        if (rate == null) {
             return;
         }
 
-        Platform.runLater(() -> currencyExchange.setExchangeRate(exchangeRate));
+        var baseCurrency = currencyExchange.getBaseCurrency();
+        var quoteCurrency = currencyExchange.getQuoteCurrency();
+
+        if (scheduledExchangeRate != null
+                && Objects.equals(scheduledExchangeRate.baseCurrency(), baseCurrency)
+                && Objects.equals(scheduledExchangeRate.quoteCurrency(), quoteCurrency)
+                && scheduledExchangeRate.rate() != null
+                && scheduledExchangeRate.rate().compareTo(rate) == 0) {
+            return;
+        }
+
+        scheduleExchangeRate(new ExchangeRate(baseCurrency, quoteCurrency, rate));
+    }
+
+    /**
+     * Sets the exchange rate on the next update, replacing any rate set
+     * since the last one.
+     */
+    private void scheduleExchangeRate(ExchangeRate exchangeRate) {
+        scheduledExchangeRate = exchangeRate;
+        updateScheduler.schedule(currencyExchange.getExchangeRateProperty(), () -> {
+            currencyExchange.setExchangeRate(exchangeRate);
+        });
+    }
+
+    /**
+     * @return the rate already known for the pair, e.g. restored from a
+     * snapshot, or the rate typed in {@code rateTextField}, or {@code null}
+     * if neither is known
+     */
+    private BigDecimal getKnownRate(Currency baseCurrency, Currency quoteCurrency,
+            TextField rateTextField) {
+        var knownRate = conversionModel.getConversion().getRateBook().getRate(baseCurrency, quoteCurrency);
+
+        return knownRate != null
+                ? knownRate
+                : parseRate(rateTextField.getText());
+    }
+
+    /**
+     * @return the rate {@code text} holds, or {@code null} if it is not a
+     * positive number, e.g. while it is being typed
+     */
+    private static BigDecimal parseRate(String text) {
+        if (text == null || !DecimalParser.isDecimal(text)) {
+            return null;
+        }
+
+        var rate = DecimalParser.parse(text);
+        return rate.signum() > 0 ? rate : null;
+    }
+
+    /**
+     * Shows the rate already known for the selected pair without publishing
+     * it again, since the field shows fewer decimals than the rate may have.
+     */
+    private void showKnownRate() {
+        var knownRate = conversionModel.getConversion().getRateBook()
+                .getRate(currencyExchange.getBaseCurrency(), currencyExchange.getQuoteCurrency());
+
+        if (knownRate == null) {
+            return;
+        }
+
+        typingPause.stop();
+        showingKnownRate = true;
+
+        try {
+            quoteCurrencyRateTextField.setText(shownRate(knownRate).toPlainString());
+        } finally {
+            showingKnownRate = false;
+        }
+    }
+
+    private static BigDecimal shownRate(BigDecimal knownRate) {
+        var shown = knownRate.round(SHOWN_RATE_CONTEXT);
+        return shown.scale() < 2 ? shown.setScale(2) : shown;
     }
 
     private ObjectBinding<ObservableList<Currency>> createQuoteCurrenciesBinding() {
@@ -190,7 +314,7 @@ public class CurrencyExchangeController {
     }
 
     private void setDefaultCurrencySelection(Observable observable) {
-        Platform.runLater(this::selectDefaultCurrency);
+        updateScheduler.schedule(baseCurrenciesSelectionModel, this::selectDefaultCurrency);
     }
 
     private void selectDefaultCurrency() {
@@ -198,7 +322,7 @@ public class CurrencyExchangeController {
     }
 
     private void selectFirstQuoteCurrency(Observable observable) {
-        Platform.runLater(quoteCurrenciesSelectionModel::selectFirst);
+        updateScheduler.schedule(quoteCurrenciesSelectionModel, quoteCurrenciesSelectionModel::selectFirst);
     }
 
 }
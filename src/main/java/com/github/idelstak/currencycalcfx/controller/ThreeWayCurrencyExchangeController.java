@@ -29,7 +29,6 @@ import com.github.idelstak.currencycalcfx.view.CurrencyExchangePane;
 import com.github.idelstak.currencycalcfx.view.ThreeWayCurrencyExchangePane;
 import java.util.Currency;
 import java.util.Objects;
-import javafx.application.Platform;
 import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.ObjectBinding;
@@ -53,6 +52,7 @@ public class ThreeWayCurrencyExchangeController {
     private final ComboBox<Currency> targetBaseCurrenciesComboBox;
     private final CurrencyExchangePane targetCurrencyExchangePane;
     private final CurrencyExchangePane sourceCurrencyExchangePane;
+    private final UpdateScheduler updateScheduler;
 
     public ThreeWayCurrencyExchangeController(
             CurrencyExchangeController sourceCurrencyExchangeController,
@@ -60,6 +60,7 @@ public class ThreeWayCurrencyExchangeController {
 
         this.sourceCurrencyExchangeController = sourceCurrencyExchangeController;
         this.targetCurrencyExchangeController = targetCurrencyExchangeController;
+        updateScheduler = UpdateScheduler.getDefault();
         
         sourceCurrencyExchangePane = sourceCurrencyExchangeController.getView();
         targetCurrencyExchangePane = targetCurrencyExchangeController.getView();
@@ -139,7 +140,8 @@ public class ThreeWayCurrencyExchangeController {
     }
 
     private void selectFirstTargetBaseCurrency(Observable observable) {
-        Platform.runLater(targetBaseCurrenciesComboBox.getSelectionModel()::selectFirst);
+        var selectionModel = targetBaseCurrenciesComboBox.getSelectionModel();
+        updateScheduler.schedule(selectionModel, selectionModel::selectFirst);
     }
 
 }
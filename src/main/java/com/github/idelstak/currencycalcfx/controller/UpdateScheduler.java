@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.controller;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javafx.application.Platform;
+
+/**
+ * Applies updates to the view on the JavaFX application thread, keeping only
+ * the latest update of each target.
+ * <p>
+ * An update is scheduled for a target, usually the property or selection
+ * model it sets. Until the pending updates are applied, a newer update of the
+ * same target replaces the older one, which is dropped, so a burst of
+ * changes sets each target once, to its latest value. Pending updates are
+ * applied together by a single task on the application thread, in the order
+ * their targets were first scheduled since the previous task, which is the
+ * order the changes happened in; at most one such task is queued at a time,
+ * however many updates are scheduled.
+ * Updates may be scheduled from any thread, and updates scheduled while
+ * others are applied are applied by the next task.
+ * <p>
+ * Under light load the task is queued as soon as an update is scheduled, just
+ * like {@link Platform#runLater(Runnable)}. When the queue backs up, i.e. a
+ * task waits in the queue and runs for longer than a frame, the next task is
+ * held back for at least a frame, and for twice as long each time it happens
+ * again, up to {@link #MAX_INTERVAL}; more updates are then coalesced and the
+ * application thread is left to render. The interval is halved again as soon
+ * as tasks run within half a frame.
+ */
+public class UpdateScheduler {
+
+    public static final Duration FRAME = Duration.ofNanos(1_000_000_000L / 60);
+    public static final Duration MAX_INTERVAL = Duration.ofMillis(250);
+
+    private static final UpdateScheduler FX_SCHEDULER = new UpdateScheduler(Platform::runLater);
+
+    private final Executor applicationThread;
+    private final LongSupplier nanoClock;
+    private Map<Object, Runnable> pendingUpdates;
+    private ScheduledExecutorService delayer;
+    private boolean drainQueued;
+    private long queuedAt;
+    private long lastDrainEnd;
+    private long intervalNanos;
+    private long appliedCount;
+    private long coalescedCount;
+
+    /**
+     * @param applicationThread runs the tasks applying the updates
+     */
+    public UpdateScheduler(Executor applicationThread) {
+        this(applicationThread, System::nanoTime);
+    }
+
+    UpdateScheduler(Executor applicationThread, LongSupplier nanoClock) {
+        this.applicationThread = applicationThread;
+        this.nanoClock = nanoClock;
+        pendingUpdates = new LinkedHashMap<>();
+    }
+
+    /**
+     * @return the scheduler applying updates with
+     * {@link Platform#runLater(Runnable)}, shared by the controllers
+     */
+    public static UpdateScheduler getDefault() {
+        return FX_SCHEDULER;
+    }
+
+    /**
+     * Schedules {@code update} to be applied on the application thread,
+     * replacing the pending update of {@code target}, if any.
+     */
+    public synchronized void schedule(Object target, Runnable update) {
+        // Replacing a pending update keeps its place in the order
+        if (pendingUpdates.put(target, update) != null) {
+            coalescedCount++;
+        }
+
+        if (!drainQueued) {
+            drainQueued = true;
+            queueDrain();
+        }
+    }
+
+    /**
+     * @return the number of updates applied so far
+     */
+    public synchronized long getAppliedCount() {
+        return appliedCount;
+    }
+
+    /**
+     * @return the number of updates dropped because a newer update of their
+     * target was scheduled before they were applied
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * @return the time currently kept between two tasks applying updates
+     */
+    public synchronized Duration getInterval() {
+        return Duration.ofNanos(intervalNanos);
+    }
+
+    private void queueDrain() {
+        var now = nanoClock.getAsLong();
+        var delay = lastDrainEnd + intervalNanos - now;
+
+        if (delay <= 0) {
+            queuedAt = now;
+            applicationThread.execute(this::drain);
+            return;
+        }
+
+        if (delayer == null) {
+            delayer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "update-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        delayer.schedule(() -> {
+            synchronized (this) {
+                queuedAt = nanoClock.getAsLong();
+            }
+            applicationThread.execute(this::drain);
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain() {
+        Map<Object, Runnable> updates;
+        long start;
+        long queueDelay;
+
+        synchronized (this) {
+            updates = pendingUpdates;
+            pendingUpdates = new LinkedHashMap<>();
+            drainQueued = false;
+            start = nanoClock.getAsLong();
+            queueDelay = start - queuedAt;
+        }
+
+        for (var update : updates.values()) {
+            try {
+                update.run();
+            } catch (RuntimeException ex) {
+                var thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+            }
+        }
+
+        synchronized (this) {
+            var end = nanoClock.getAsLong();
+            var busy = queueDelay + (end - start);
+            var frame = FRAME.toNanos();
+
+            if (busy > frame) {
+                intervalNanos = Math.min(MAX_INTERVAL.toNanos(), Math.max(frame, intervalNanos * 2));
+            } else if (busy < frame / 2) {
+                intervalNanos = intervalNanos / 2 < frame / 16 ? 0 : intervalNanos / 2;
+            }
+
+            lastDrainEnd = end;
+            appliedCount += updates.size();
+        }
+    }
+
+}
@@ -23,11 +23,10 @@
  */
 package com.github.idelstak.currencycalcfx.model;
 
+import com.github.idelstak.currencycalcfx.model.currency.ArithmeticMode;
+import com.github.idelstak.currencycalcfx.model.currency.PrecisionPolicy;
 import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
 import java.math.BigDecimal;
-import static java.math.BigDecimal.ONE;
-import static java.math.BigDecimal.ZERO;
-import static java.math.RoundingMode.HALF_UP;
 import java.util.Currency;
 import java.util.List;
 import javafx.beans.property.ObjectProperty;
@@ -44,7 +43,9 @@ import javafx.collections.ObservableList;
  * three-way currency conversion.
  * <p>
  * It provides methods to calculate the bid amount and the amount received after
- * the commission is deducted.
+ * the commission is deducted. The calculations are delegated to a
+ * {@link BidPricing}, which defaults to the one selected at startup and rounds
+ * the amounts to the minor units of the selected currency.
  */
 public class Bid {
 
@@ -54,8 +55,22 @@ public class Bid {
     private final ObjectProperty<BigDecimal> bidAmountProperty;
     private final ObjectProperty<BigDecimal> youGetAmountProperty;
     private final ObjectProperty<ThreeWayCurrencyConversion> threeWayCurrencyConversionProperty;
+    private final BidPricing pricing;
 
     public Bid() {
+        this(BidPricing.getDefault());
+    }
+
+    public Bid(ArithmeticMode arithmeticMode) {
+        this(arithmeticMode, PrecisionPolicy.getDefault());
+    }
+
+    public Bid(ArithmeticMode arithmeticMode, PrecisionPolicy precisionPolicy) {
+        this(new BidPricing(arithmeticMode, precisionPolicy));
+    }
+
+    public Bid(BidPricing pricing) {
+        this.pricing = pricing;
         availableCurrencies = FXCollections.observableArrayList();
         currencyProperty = new SimpleObjectProperty<>();
         commissionRateProperty = new SimpleObjectProperty<>();
@@ -134,6 +149,18 @@ public class Bid {
         return threeWayCurrencyConversionProperty;
     }
 
+    public BidPricing getPricing() {
+        return pricing;
+    }
+
+    public ArithmeticMode getArithmeticMode() {
+        return pricing.getArithmeticMode();
+    }
+
+    public PrecisionPolicy getPrecisionPolicy() {
+        return pricing.getPrecisionPolicy();
+    }
+
     /**
      * This method calculates the bid amount based on the commission rate and
      * the amount of currency that the user will receive after the exchange.
@@ -141,35 +168,20 @@ public class Bid {
      * If the commission rate or the amount to receive is not set, it will be
      * assumed to be zero. The method calculates the commission fraction and
      * divides the amount to receive by one minus the commission fraction. The
-     * result is then rounded to two decimal places using the HALF_UP rounding
+     * result is then rounded to the minor units of the selected currency, two
+     * decimal places if no currency is selected, using the HALF_UP rounding
      * mode and returned as a BigDecimal.
      *
-     * @return a bid amount rounded to two decimal places using the HALF_UP
-     * rounding mode and returned as a BigDecimal.
+     * @return a bid amount rounded to the minor units of the selected currency
+     * using the HALF_UP rounding mode and returned as a BigDecimal.
      *
      */
     public BigDecimal calculateBidAmount() {
-        var commissionRate = getCommissionRate() != null
-                ? getCommissionRate()
-                : ZERO;
-        var youGetAmount = getYouGetAmount() != null
-                ? getYouGetAmount()
-                : ZERO;
-        var commissionFraction = commissionRate.divide(new BigDecimal("100.0"));
-
-        return youGetAmount.divide(ONE.subtract(commissionFraction), 2, HALF_UP);
+        return pricing.bidAmount(getCurrency(), getCommissionRate(), getYouGetAmount());
     }
 
     public BigDecimal calculateYouGetAmount() {
-        var commissionRate = getCommissionRate() != null
-                ? getCommissionRate()
-                : ZERO;
-        var bidAmount = getBidAmount() != null
-                ? getBidAmount()
-                : ZERO;
-        var commissionFraction = commissionRate.divide(new BigDecimal("100"));
-
-        return (ONE.subtract(commissionFraction)).multiply(bidAmount).setScale(2, HALF_UP);
+        return pricing.youGetAmount(getCurrency(), getCommissionRate(), getBidAmount());
     }
 
 }
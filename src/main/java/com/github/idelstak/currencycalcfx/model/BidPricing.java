@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model;
+
+import com.github.idelstak.currencycalcfx.model.currency.ArithmeticMode;
+import com.github.idelstak.currencycalcfx.model.currency.PrecisionPolicy;
+import java.math.BigDecimal;
+import static java.math.BigDecimal.ZERO;
+import java.util.Currency;
+
+/**
+ * Calculates bid and "you get" amounts from plain values.
+ * <p>
+ * This is the pricing behind {@link Bid}, without any JavaFX properties, so
+ * it can run on a server or on many worker threads at once. A pricing never
+ * changes and holds no state besides its {@link ArithmeticMode} and
+ * {@link PrecisionPolicy}, so one instance can be shared by every thread.
+ * <p>
+ * A missing commission rate or amount counts as zero. Amounts are rounded to
+ * the minor units of their currency, or to two decimal places if the currency
+ * is not known.
+ */
+public final class BidPricing {
+
+    private static final BidPricing DEFAULT = new BidPricing(ArithmeticMode.getDefault(), PrecisionPolicy.getDefault());
+
+    private final ArithmeticMode arithmeticMode;
+    private final PrecisionPolicy precisionPolicy;
+
+    public BidPricing(ArithmeticMode arithmeticMode,
+            PrecisionPolicy precisionPolicy) {
+        this.arithmeticMode = arithmeticMode;
+        this.precisionPolicy = precisionPolicy;
+    }
+
+    /**
+     * @return the pricing with the arithmetic mode and precision policy
+     * selected at startup
+     */
+    public static BidPricing getDefault() {
+        return DEFAULT;
+    }
+
+    public ArithmeticMode getArithmeticMode() {
+        return arithmeticMode;
+    }
+
+    public PrecisionPolicy getPrecisionPolicy() {
+        return precisionPolicy;
+    }
+
+    /**
+     * @return the amount to bid so that {@code youGetAmount} is left after
+     * {@code commissionRate} percent is deducted
+     */
+    public BigDecimal bidAmount(Currency currency, BigDecimal commissionRate,
+            BigDecimal youGetAmount) {
+        return arithmeticMode.calculateBidAmount(orZero(youGetAmount), orZero(commissionRate),
+                precisionPolicy.minorUnits(currency));
+    }
+
+    /**
+     * @return the amount left after {@code commissionRate} percent is
+     * deducted from {@code bidAmount}
+     */
+    public BigDecimal youGetAmount(Currency currency, BigDecimal commissionRate,
+            BigDecimal bidAmount) {
+        return arithmeticMode.calculateYouGetAmount(orZero(bidAmount), orZero(commissionRate),
+                precisionPolicy.minorUnits(currency));
+    }
+
+    /**
+     * @return the quote for bidding {@code bidAmount}
+     */
+    public Quote quoteBid(Currency currency, BigDecimal commissionRate,
+            BigDecimal bidAmount) {
+        return new Quote(currency, orZero(commissionRate),
+                precisionPolicy.roundToMinorUnits(orZero(bidAmount), currency),
+                youGetAmount(currency, commissionRate, bidAmount));
+    }
+
+    /**
+     * @return the quote for getting {@code youGetAmount} after commission
+     */
+    public Quote quoteYouGet(Currency currency, BigDecimal commissionRate,
+            BigDecimal youGetAmount) {
+        return new Quote(currency, orZero(commissionRate),
+                bidAmount(currency, commissionRate, youGetAmount),
+                precisionPolicy.roundToMinorUnits(orZero(youGetAmount), currency));
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : ZERO;
+    }
+
+    /**
+     * A priced bid: what is bid and what is left after the commission, both
+     * in {@code currency}.
+     */
+    public record Quote(Currency currency, BigDecimal commissionRate,
+            BigDecimal bidAmount, BigDecimal youGetAmount) {
+
+    }
+
+}
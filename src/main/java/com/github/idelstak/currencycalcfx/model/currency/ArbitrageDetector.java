@@ -0,0 +1,531 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Finds loops of quotes that return more than they start with, such as
+ * {@code USD -> KES -> UGX -> USD} multiplying to more than one.
+ * <p>
+ * Each quote is weighted by the negative logarithm of its rate, which turns a
+ * profitable loop into a cycle of negative weight. A loop made of a quote and
+ * its rounded reciprocal is never exactly neutral, so a cycle only counts when
+ * its weight is below {@code -tolerance}, widened by the rounding error of
+ * every quote in it that is the reciprocal of its reverse quote. That error
+ * follows the {@link ReciprocalPolicy} of the book, so a coarse
+ * {@value ReciprocalPolicy#RECIPROCAL_PRECISION_PROPERTY} does not turn a
+ * quote and its own reciprocal into a loop.
+ * <p>
+ * A loop can only appear or disappear when one of its quotes changes.
+ * {@link #withChanges(CrossRateTable, int[], int[])} therefore does not search
+ * the whole graph again. It keeps the loops that do not use a changed quote,
+ * checks the ones that do, and searches for new loops through each changed
+ * quote and through the quotes of loops that stopped paying. The search is a
+ * Bellman-Ford relaxation from the quote back to its base, limited to
+ * {@code maxCycleLength} quotes, so it costs at most {@code maxCycleLength}
+ * passes over the quotes reachable in that many hops.
+ * <p>
+ * Each search only yields the most profitable walk through the quote. To find
+ * the other loops through it, the search is repeated without the currencies
+ * of the loops already found, until no walk pays. Every loop that shares only
+ * the searched quote with the others is therefore found. A loop that also
+ * shares another currency with a more profitable one is not, unless it is
+ * found through another of its quotes; {@link #involves(Currency, Currency)}
+ * can miss its quotes until then.
+ * <p>
+ * Like the {@link CrossRateTable} it is built from, a detector never changes;
+ * a newer detector shares the weight rows it did not need to touch.
+ */
+public final class ArbitrageDetector {
+
+    public static final int DEFAULT_MAX_CYCLE_LENGTH = 4;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+
+    private final CrossRateTable table;
+    private final int size;
+    private final int maxCycleLength;
+    private final double tolerance;
+    private final double[][] weights;
+    private final List<Arbitrage> arbitrages;
+
+    public ArbitrageDetector(CrossRateTable table) {
+        this(table, DEFAULT_MAX_CYCLE_LENGTH, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Builds a detector by searching for loops through every quote of
+     * {@code table}.
+     */
+    public ArbitrageDetector(CrossRateTable table, int maxCycleLength,
+            double tolerance) {
+        if (maxCycleLength < 2) {
+            throw new IllegalArgumentException("A cycle needs at least 2 quotes: " + maxCycleLength);
+        }
+
+        this.table = table;
+        size = table.getIndex().size();
+        this.maxCycleLength = maxCycleLength;
+        this.tolerance = tolerance;
+        weights = new double[size][];
+
+        for (int base = 0; base < size; base++) {
+            weights[base] = weightRow(table, base);
+        }
+
+        var found = new ArrayList<Arbitrage>();
+
+        for (int base = 0; base < size; base++) {
+            for (int quote : table.neighbours(base)) {
+                searchThrough(found, base, quote);
+            }
+        }
+
+        arbitrages = Collections.unmodifiableList(found);
+    }
+
+    private ArbitrageDetector(ArbitrageDetector detector, CrossRateTable table,
+            double[][] weights, List<Arbitrage> arbitrages) {
+        this.table = table;
+        size = detector.size;
+        maxCycleLength = detector.maxCycleLength;
+        tolerance = detector.tolerance;
+        this.weights = weights;
+        this.arbitrages = arbitrages;
+    }
+
+    public CrossRateTable getCrossRateTable() {
+        return table;
+    }
+
+    /**
+     * @return the profitable loops found, each listed once
+     */
+    public List<Arbitrage> getArbitrages() {
+        return arbitrages;
+    }
+
+    /**
+     * @return {@code true} if a profitable loop uses a quote between
+     * {@code currency} and {@code otherCurrency}, in either direction
+     */
+    public boolean involves(Currency currency, Currency otherCurrency) {
+        for (var arbitrage : arbitrages) {
+            if (arbitrage.involves(currency, otherCurrency)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a detector for {@code newTable}, in which only the quotes from
+     * {@code baseCurrencies[i]} to {@code quoteCurrencies[i]} changed.
+     */
+    public ArbitrageDetector withChanges(CrossRateTable newTable,
+            int[] baseCurrencies, int[] quoteCurrencies) {
+        var detector = new ArbitrageDetector(this, newTable, weights.clone(), arbitrages);
+        var touched = new boolean[size];
+
+        for (int i = 0; i < baseCurrencies.length; i++) {
+            var base = baseCurrencies[i];
+
+            if (!touched[base]) {
+                touched[base] = true;
+                detector.weights[base] = weightRow(newTable, base);
+            }
+        }
+
+        var found = new ArrayList<Arbitrage>(arbitrages.size());
+        var dropped = new ArrayList<Arbitrage>();
+
+        for (var arbitrage : arbitrages) {
+            if (!arbitrage.usesAny(baseCurrencies, quoteCurrencies)
+                    || detector.isProfitable(arbitrage.cycle)) {
+                found.add(arbitrage);
+            } else {
+                dropped.add(arbitrage);
+            }
+        }
+
+        for (int i = 0; i < baseCurrencies.length; i++) {
+            detector.searchThrough(found, baseCurrencies[i], quoteCurrencies[i]);
+        }
+
+        // A dropped loop may have hidden another profitable loop through
+        // one of its quotes
+        for (var arbitrage : dropped) {
+            var cycle = arbitrage.cycle;
+
+            for (int i = 0; i < cycle.length; i++) {
+                detector.searchThrough(found, cycle[i], cycle[(i + 1) % cycle.length]);
+            }
+        }
+
+        return new ArbitrageDetector(detector, newTable, detector.weights,
+                found.equals(arbitrages) ? arbitrages : Collections.unmodifiableList(found));
+    }
+
+    private void searchThrough(List<Arbitrage> found, int base, int quote) {
+        if (Double.isNaN(weight(base, quote))) {
+            return;
+        }
+
+        var excluded = new boolean[size];
+        var direct = true;
+        var walk = findCycle(base, quote, excluded, direct);
+
+        while (walk != null) {
+            splitIntoCycles(found, walk);
+
+            // Search again around the loop just found, so a less profitable
+            // loop through the same quote is not hidden behind it
+            var excludedAny = false;
+
+            for (int currency : walk) {
+                if (currency != base && currency != quote && !excluded[currency]) {
+                    excluded[currency] = true;
+                    excludedAny = true;
+                }
+            }
+
+            if (!excludedAny) {
+                direct = false;
+            }
+
+            walk = findCycle(base, quote, excluded, direct);
+        }
+    }
+
+    /**
+     * Searches for the cheapest closed walk that starts with the quote from
+     * {@code base} to {@code quote}, avoiding the {@code excluded} currencies
+     * and, unless {@code direct}, the reverse quote.
+     *
+     * @return the currencies of the walk, starting with {@code base}, or
+     * {@code null} if no walk through the quote is profitable
+     */
+    private int[] findCycle(int base, int quote, boolean[] excluded,
+            boolean direct) {
+        var firstWeight = weight(base, quote);
+        var hops = maxCycleLength - 1;
+        var distances = new double[hops + 1][];
+        var predecessors = new int[hops + 1][];
+        var frontier = new int[size];
+        var next = new int[size];
+        var frontierSize = 1;
+        var bestWeight = Double.POSITIVE_INFINITY;
+        var bestHops = -1;
+
+        distances[0] = new double[size];
+        Arrays.fill(distances[0], Double.POSITIVE_INFINITY);
+        distances[0][quote] = 0;
+        frontier[0] = quote;
+
+        for (int hop = 1; hop <= hops && frontierSize > 0; hop++) {
+            var previous = distances[hop - 1];
+            var current = new double[size];
+            var route = new int[size];
+            var nextSize = 0;
+            Arrays.fill(current, Double.POSITIVE_INFINITY);
+
+            for (int i = 0; i < frontierSize; i++) {
+                var currency = frontier[i];
+
+                for (int neighbour : table.neighbours(currency)) {
+                    if (excluded[neighbour] || (!direct && currency == quote && neighbour == base)) {
+                        continue;
+                    }
+
+                    var distance = previous[currency] + weight(currency, neighbour);
+
+                    if (distance < current[neighbour]) {
+                        if (current[neighbour] == Double.POSITIVE_INFINITY) {
+                            next[nextSize++] = neighbour;
+                        }
+
+                        current[neighbour] = distance;
+                        route[neighbour] = currency;
+                    }
+                }
+            }
+
+            distances[hop] = current;
+            predecessors[hop] = route;
+
+            if (current[base] < bestWeight) {
+                bestWeight = current[base];
+                bestHops = hop;
+            }
+
+            var swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
+
+        if (bestHops < 0 || firstWeight + bestWeight >= -tolerance) {
+            return null;
+        }
+
+        var cycle = new int[bestHops + 1];
+        var currency = base;
+
+        for (int hop = bestHops; hop > 0; hop--) {
+            currency = predecessors[hop][currency];
+            cycle[hop] = currency;
+        }
+
+        cycle[0] = base;
+
+        return cycle;
+    }
+
+    /**
+     * Adds the profitable loops of {@code walk}. A walk that visits a
+     * currency twice is made of shorter loops, and at least one of them is
+     * profitable when the walk is.
+     */
+    private void splitIntoCycles(List<Arbitrage> found, int[] walk) {
+        var stack = new int[walk.length];
+        var top = 0;
+
+        for (int currency : walk) {
+            var seen = indexOf(stack, top, currency);
+
+            if (seen >= 0) {
+                addIfProfitable(found, Arrays.copyOfRange(stack, seen, top));
+                top = seen;
+            }
+
+            stack[top++] = currency;
+        }
+
+        addIfProfitable(found, Arrays.copyOf(stack, top));
+    }
+
+    private static int indexOf(int[] stack, int top, int currency) {
+        for (int i = 0; i < top; i++) {
+            if (stack[i] == currency) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isProfitable(int[] cycle) {
+        var total = 0d;
+        var allowance = tolerance;
+
+        for (int i = 0; i < cycle.length; i++) {
+            var base = cycle[i];
+            var quote = cycle[(i + 1) % cycle.length];
+            var weight = weight(base, quote);
+
+            if (Double.isNaN(weight)) {
+                return false;
+            }
+
+            total += weight;
+            allowance += roundingError(base, quote);
+        }
+
+        return total < -allowance;
+    }
+
+    /**
+     * @return how far, relative to the quote from {@code base} to
+     * {@code quote}, rounding may have moved it if it is the reciprocal of the
+     * reverse quote, or 0 if it is not
+     */
+    private double roundingError(int base, int quote) {
+        var rateBook = table.getRateBook();
+
+        if (!rateBook.hasRate(quote, base)) {
+            return 0;
+        }
+
+        var rate = rateBook.getRate(base, quote);
+        var reciprocal = rateBook.getReciprocalPolicy().reciprocal(rateBook.getRate(quote, base));
+
+        return rate.compareTo(reciprocal) == 0
+                ? rate.ulp().doubleValue() / rate.doubleValue()
+                : 0;
+    }
+
+    private void addIfProfitable(List<Arbitrage> found, int[] cycle) {
+        if (cycle.length < 2 || !isProfitable(cycle)) {
+            return;
+        }
+
+        var arbitrage = toArbitrage(cycle);
+
+        if (!found.contains(arbitrage)) {
+            found.add(arbitrage);
+        }
+    }
+
+    /**
+     * Rotates {@code cycle} to start at its lowest id, so the same loop found
+     * through different quotes compares equal.
+     */
+    private Arbitrage toArbitrage(int[] cycle) {
+        var start = 0;
+
+        for (int i = 1; i < cycle.length; i++) {
+            if (cycle[i] < cycle[start]) {
+                start = i;
+            }
+        }
+
+        var rotated = new int[cycle.length];
+        var currencies = new ArrayList<Currency>(cycle.length);
+        var factor = BigDecimal.ONE;
+        var index = table.getIndex();
+        var rateBook = table.getRateBook();
+
+        for (int i = 0; i < cycle.length; i++) {
+            rotated[i] = cycle[(start + i) % cycle.length];
+        }
+
+        for (int i = 0; i < rotated.length; i++) {
+            currencies.add(index.currencyOf(rotated[i]));
+            factor = factor.multiply(rateBook.getRate(rotated[i], rotated[(i + 1) % rotated.length]), MathContext.DECIMAL64);
+        }
+
+        return new Arbitrage(rotated, Collections.unmodifiableList(currencies), factor);
+    }
+
+    private double weight(int base, int quote) {
+        var row = weights[base];
+        return row != null ? row[quote] : Double.NaN;
+    }
+
+    private static double[] weightRow(CrossRateTable table, int base) {
+        var quotes = table.neighbours(base);
+
+        if (quotes.length == 0) {
+            return null;
+        }
+
+        var rateBook = table.getRateBook();
+        var row = new double[rateBook.getIndex().size()];
+        Arrays.fill(row, Double.NaN);
+
+        for (int quote : quotes) {
+            row[quote] = -Math.log(rateBook.getRate(base, quote).doubleValue());
+        }
+
+        return row;
+    }
+
+    /**
+     * A profitable loop of quotes. The loop starts at the currency with the
+     * lowest id and returns to it from the last currency listed.
+     */
+    public static final class Arbitrage {
+
+        private final int[] cycle;
+        private final List<Currency> currencies;
+        private final BigDecimal factor;
+
+        private Arbitrage(int[] cycle, List<Currency> currencies,
+                BigDecimal factor) {
+            this.cycle = cycle;
+            this.currencies = currencies;
+            this.factor = factor;
+        }
+
+        public List<Currency> getCurrencies() {
+            return currencies;
+        }
+
+        /**
+         * @return the product of the rates around the loop; one unit of the
+         * first currency comes back as this many units
+         */
+        public BigDecimal getFactor() {
+            return factor;
+        }
+
+        public boolean involves(Currency currency, Currency otherCurrency) {
+            for (int i = 0; i < currencies.size(); i++) {
+                var from = currencies.get(i);
+                var to = currencies.get((i + 1) % currencies.size());
+
+                if ((from.equals(currency) && to.equals(otherCurrency))
+                        || (from.equals(otherCurrency) && to.equals(currency))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean usesAny(int[] baseCurrencies, int[] quoteCurrencies) {
+            for (int i = 0; i < cycle.length; i++) {
+                var from = cycle[i];
+                var to = cycle[(i + 1) % cycle.length];
+
+                for (int j = 0; j < baseCurrencies.length; j++) {
+                    if (baseCurrencies[j] == from && quoteCurrencies[j] == to) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Arbitrage other && Arrays.equals(cycle, other.cycle);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(cycle);
+        }
+
+        @Override
+        public String toString() {
+            var joined = new StringBuilder();
+
+            for (var currency : currencies) {
+                joined.append(currency.getCurrencyCode()).append(" -> ");
+            }
+
+            return joined.append(currencies.get(0).getCurrencyCode()).append(" x ").append(factor).toString();
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import static java.math.BigDecimal.ONE;
+import java.math.MathContext;
+import static java.math.RoundingMode.HALF_UP;
+
+/**
+ * Selects how conversions and bid amounts are calculated.
+ * <p>
+ * {@link #DECIMAL} is the original {@link BigDecimal} arithmetic: conversions
+ * are rounded to a {@link MathContext}, which a {@link PrecisionPolicy}
+ * provides, and bid amounts to the requested number of decimal places.
+ * {@link #FIXED_POINT} does the same calculations on scaled {@code long}s with
+ * {@link FixedPointDecimal}. It rounds conversions {@code HALF_UP} to
+ * {@link FixedPointDecimal#AMOUNT_SCALE} decimal places and produces the same
+ * results as the exact {@code DECIMAL} product rounded once to that scale. If
+ * a value does not fit a {@code long}, it falls back to {@code BigDecimal}
+ * arithmetic for that calculation, rounding the same way.
+ * <p>
+ * The mode is chosen once at startup from the
+ * {@value #ARITHMETIC_PROPERTY} system property, which can be {@code decimal}
+ * (the default) or {@code fixed-point}.
+ */
+public enum ArithmeticMode {
+
+    DECIMAL {
+        @Override
+        public BigDecimal convert(BigDecimal amount, BigDecimal rate,
+                MathContext mathContext) {
+            return amount.multiply(rate, mathContext);
+        }
+
+        @Override
+        public BigDecimal calculateBidAmount(BigDecimal youGetAmount,
+                BigDecimal commissionRate, int scale) {
+            var commissionFraction = commissionRate.movePointLeft(2);
+
+            return youGetAmount.divide(ONE.subtract(commissionFraction), scale, HALF_UP);
+        }
+
+        @Override
+        public BigDecimal calculateYouGetAmount(BigDecimal bidAmount,
+                BigDecimal commissionRate, int scale) {
+            var commissionFraction = commissionRate.movePointLeft(2);
+
+            return (ONE.subtract(commissionFraction)).multiply(bidAmount).setScale(scale, HALF_UP);
+        }
+    },
+    FIXED_POINT {
+        @Override
+        public BigDecimal convert(BigDecimal amount, BigDecimal rate,
+                MathContext mathContext) {
+            var packedRate = FixedPointDecimal.packRate(rate);
+
+            if (packedRate == FixedPointDecimal.NO_RATE || amount.scale() < 0) {
+                return roundedProduct(amount, rate);
+            }
+
+            try {
+                return BigDecimal.valueOf(FixedPointDecimal.convert(
+                        amount.unscaledValue().longValueExact(), amount.scale(),
+                        packedRate, FixedPointDecimal.AMOUNT_SCALE), FixedPointDecimal.AMOUNT_SCALE);
+            } catch (ArithmeticException ex) {
+                return roundedProduct(amount, rate);
+            }
+        }
+
+        @Override
+        public BigDecimal calculateBidAmount(BigDecimal youGetAmount,
+                BigDecimal commissionRate, int scale) {
+            try {
+                return BigDecimal.valueOf(FixedPointDecimal.bidAmount(
+                        youGetAmount.unscaledValue().longValueExact(), youGetAmount.scale(),
+                        commissionRate.unscaledValue().longValueExact(), commissionRate.scale(), scale), scale);
+            } catch (ArithmeticException ex) {
+                return DECIMAL.calculateBidAmount(youGetAmount, commissionRate, scale);
+            }
+        }
+
+        @Override
+        public BigDecimal calculateYouGetAmount(BigDecimal bidAmount,
+                BigDecimal commissionRate, int scale) {
+            try {
+                return BigDecimal.valueOf(FixedPointDecimal.youGetAmount(
+                        bidAmount.unscaledValue().longValueExact(), bidAmount.scale(),
+                        commissionRate.unscaledValue().longValueExact(), commissionRate.scale(), scale), scale);
+            } catch (ArithmeticException ex) {
+                return DECIMAL.calculateYouGetAmount(bidAmount, commissionRate, scale);
+            }
+        }
+    };
+
+    public static final String ARITHMETIC_PROPERTY = "currencycalcfx.arithmetic";
+
+    private static final ArithmeticMode STARTUP_MODE = fromName(System.getProperty(ARITHMETIC_PROPERTY, "decimal"));
+
+    /**
+     * @return the mode selected by the {@value #ARITHMETIC_PROPERTY} system
+     * property when the application started
+     */
+    public static ArithmeticMode getDefault() {
+        return STARTUP_MODE;
+    }
+
+    public static ArithmeticMode fromName(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "decimal" ->
+                DECIMAL;
+            case "fixed-point", "fixed" ->
+                FIXED_POINT;
+            default ->
+                throw new IllegalArgumentException("Unknown arithmetic mode: " + name);
+        };
+    }
+
+    /**
+     * @return the exact product of {@code amount} and {@code rate}, rounded
+     * once to {@link FixedPointDecimal#AMOUNT_SCALE}, as {@link #FIXED_POINT}
+     * rounds it when it fits a {@code long}
+     */
+    private static BigDecimal roundedProduct(BigDecimal amount, BigDecimal rate) {
+        return amount.multiply(rate).setScale(FixedPointDecimal.AMOUNT_SCALE, HALF_UP);
+    }
+
+    /**
+     * @return {@code amount} multiplied by {@code rate}, exactly
+     */
+    public BigDecimal convert(BigDecimal amount, BigDecimal rate) {
+        return convert(amount, rate, MathContext.UNLIMITED);
+    }
+
+    /**
+     * @return {@code amount} multiplied by {@code rate}, rounded to
+     * {@code mathContext} when the product is a {@link BigDecimal}
+     */
+    public abstract BigDecimal convert(BigDecimal amount, BigDecimal rate,
+            MathContext mathContext);
+
+    /**
+     * @return the amount to bid so that {@code youGetAmount} is left after the
+     * commission, in percent, is deducted, rounded to two decimal places
+     */
+    public BigDecimal calculateBidAmount(BigDecimal youGetAmount,
+            BigDecimal commissionRate) {
+        return calculateBidAmount(youGetAmount, commissionRate, 2);
+    }
+
+    /**
+     * @return the amount to bid so that {@code youGetAmount} is left after the
+     * commission, in percent, is deducted, rounded to {@code scale} decimal
+     * places
+     */
+    public abstract BigDecimal calculateBidAmount(BigDecimal youGetAmount,
+            BigDecimal commissionRate, int scale);
+
+    /**
+     * @return the amount left after the commission, in percent, is deducted
+     * from {@code bidAmount}, rounded to two decimal places
+     */
+    public BigDecimal calculateYouGetAmount(BigDecimal bidAmount,
+            BigDecimal commissionRate) {
+        return calculateYouGetAmount(bidAmount, commissionRate, 2);
+    }
+
+    /**
+     * @return the amount left after the commission, in percent, is deducted
+     * from {@code bidAmount}, rounded to {@code scale} decimal places
+     */
+    public abstract BigDecimal calculateYouGetAmount(BigDecimal bidAmount,
+            BigDecimal commissionRate, int scale);
+
+}
@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the results of recent conversions, evicting the least recently
+ * used one once {@code maxSize} results are held.
+ * <p>
+ * A result is keyed by the two currencies, the amount, the version of the
+ * {@link RateBook} it was computed from and the {@link ArithmeticMode}.
+ * Changing a rate publishes a new book version, so results computed from
+ * older rates are never returned; they simply stop being used and are evicted
+ * in time. Amounts are compared with {@link BigDecimal#equals(Object)}, so
+ * {@code 100} and {@code 100.00} are cached separately, just as
+ * {@link ThreeWayCurrencyConversion#convert(Currency, Currency, BigDecimal)}
+ * returns them with different scales.
+ * <p>
+ * A cache of size {@code 0} converts every amount and remembers nothing. The
+ * cache used by default is chosen at startup from the
+ * {@value #CACHE_SIZE_PROPERTY} system property and is disabled unless the
+ * property is set. Results taken from the cache are not passed to the
+ * {@link ConversionTracer} again. A cache can be shared between threads.
+ */
+public class ConversionCache {
+
+    public static final String CACHE_SIZE_PROPERTY = "currencycalcfx.cache.size";
+
+    private static final ConversionCache STARTUP_CACHE = new ConversionCache(Integer.getInteger(CACHE_SIZE_PROPERTY, 0));
+
+    private final int maxSize;
+    private final Map<Key, BigDecimal> results;
+    private long hitCount;
+    private long missCount;
+
+    public ConversionCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size can not be negative: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BigDecimal> eldest) {
+                return size() > ConversionCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cache selected by the {@value #CACHE_SIZE_PROPERTY} system
+     * property when the application started
+     */
+    public static ConversionCache getDefault() {
+        return STARTUP_CACHE;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Converts {@code amount} with {@code conversion}, or returns the result
+     * of an earlier identical conversion against the same rates.
+     *
+     * @throws java.util.NoSuchElementException if the currencies are not
+     * connected; failures are not cached
+     */
+    public BigDecimal convert(ThreeWayCurrencyConversion conversion,
+            Currency fromCurrency, Currency toCurrency, BigDecimal amount) {
+        if (!isEnabled() || fromCurrency.equals(toCurrency)) {
+            return conversion.convert(fromCurrency, toCurrency, amount);
+        }
+
+        var rateBook = conversion.getRateBook();
+        var key = new Key(rateBook.requireId(fromCurrency), rateBook.requireId(toCurrency), amount,
+                rateBook.getVersion(), conversion.getArithmeticMode());
+
+        synchronized (this) {
+            var result = results.get(key);
+
+            if (result != null) {
+                hitCount++;
+                return result;
+            }
+
+            missCount++;
+        }
+
+        var result = conversion.convert(key.fromCurrency(), key.toCurrency(), amount);
+
+        synchronized (this) {
+            results.put(key, result);
+        }
+
+        return result;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ConversionCache{size=" + results.size() + ", maxSize=" + maxSize
+                + ", hits=" + hitCount + ", misses=" + missCount + '}';
+    }
+
+    private record Key(int fromCurrency, int toCurrency, BigDecimal amount,
+            long version, ArithmeticMode arithmeticMode) {
+
+    }
+
+}
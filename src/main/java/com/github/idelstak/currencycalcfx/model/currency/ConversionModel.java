@@ -0,0 +1,272 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current {@link ThreeWayCurrencyConversion} for the lifetime of the
+ * application and applies rate changes to it as deltas.
+ * <p>
+ * Quotes are applied with their reciprocal: putting {@code USD -> KES} also
+ * puts {@code KES -> USD}. Each change is published as one new, immutable
+ * conversion, in which only the changed quotes and the routes through them
+ * have been recomputed. Publishing is safe from any thread; readers always
+ * see either the whole change or none of it.
+ * <p>
+ * Every change also updates an {@link ArbitrageDetector}, published together
+ * with the conversion, so profitable loops of quotes are found as soon as the
+ * quote that closes them is entered.
+ * <p>
+ * Listeners can subscribe to all changes or to a single pair of currencies,
+ * regardless of direction. A pair listener is only notified when a quote
+ * between its two currencies changes. Listeners are called on the thread that
+ * published the change, so changes published concurrently on several threads
+ * may reach a listener out of order; a listener that needs the latest rates
+ * should read {@link #getConversion()}, or compare the
+ * {@link RateBook#getVersion() versions} of the conversions it receives.
+ */
+public class ConversionModel {
+
+    private final AtomicReference<State> state;
+    private final List<RateListener> listeners;
+    private final Map<Integer, List<RateListener>> pairListeners;
+    private final int size;
+
+    public ConversionModel() {
+        this(new ThreeWayCurrencyConversion(new RateBook()));
+    }
+
+    public ConversionModel(ThreeWayCurrencyConversion conversion) {
+        state = new AtomicReference<>(new State(conversion, new ArbitrageDetector(conversion.getCrossRateTable())));
+        listeners = new CopyOnWriteArrayList<>();
+        pairListeners = new ConcurrentHashMap<>();
+        size = conversion.getRateBook().getIndex().size();
+    }
+
+    public ThreeWayCurrencyConversion getConversion() {
+        return state.get().conversion();
+    }
+
+    /**
+     * @return the detector for the current conversion
+     */
+    public ArbitrageDetector getArbitrageDetector() {
+        return state.get().arbitrageDetector();
+    }
+
+    public CurrencyIndex getIndex() {
+        return getConversion().getRateBook().getIndex();
+    }
+
+    public void addListener(RateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(RateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Subscribes {@code listener} to changes of the quotes between
+     * {@code currency} and {@code otherCurrency}, in either direction.
+     */
+    public void addListener(Currency currency, Currency otherCurrency,
+            RateListener listener) {
+        pairListeners.computeIfAbsent(pairKey(currency, otherCurrency), key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void removeListener(Currency currency, Currency otherCurrency,
+            RateListener listener) {
+        var subscribers = pairListeners.get(pairKey(currency, otherCurrency));
+
+        if (subscribers != null) {
+            subscribers.remove(listener);
+        }
+    }
+
+    /**
+     * Puts the quote from {@code baseCurrency} to {@code quoteCurrency} and
+     * its reciprocal.
+     *
+     * @return the published conversion
+     */
+    public ThreeWayCurrencyConversion putQuote(Currency baseCurrency,
+            Currency quoteCurrency, BigDecimal rate) {
+        var index = getIndex();
+        var base = requireId(index, baseCurrency);
+        var quote = requireId(index, quoteCurrency);
+
+        return publishQuotes(new int[]{base}, new int[]{quote}, new BigDecimal[]{rate});
+    }
+
+    /**
+     * Removes the quotes between {@code baseCurrency} and
+     * {@code quoteCurrency}, in both directions.
+     *
+     * @return the published conversion
+     */
+    public ThreeWayCurrencyConversion removeQuote(Currency baseCurrency,
+            Currency quoteCurrency) {
+        var index = getIndex();
+        var base = requireId(index, baseCurrency);
+        var quote = requireId(index, quoteCurrency);
+
+        return publishQuotes(new int[]{base}, new int[]{quote}, new BigDecimal[1]);
+    }
+
+    /**
+     * Replaces the quote between {@code oldBaseCurrency} and
+     * {@code oldQuoteCurrency} with one from {@code baseCurrency} to
+     * {@code quoteCurrency}, and their reciprocals, in a single change.
+     *
+     * @return the published conversion
+     */
+    public ThreeWayCurrencyConversion replaceQuote(Currency oldBaseCurrency,
+            Currency oldQuoteCurrency, Currency baseCurrency,
+            Currency quoteCurrency, BigDecimal rate) {
+        var index = getIndex();
+        var oldBase = requireId(index, oldBaseCurrency);
+        var oldQuote = requireId(index, oldQuoteCurrency);
+        var base = requireId(index, baseCurrency);
+        var quote = requireId(index, quoteCurrency);
+
+        return publishQuotes(new int[]{oldBase, base}, new int[]{oldQuote, quote},
+                new BigDecimal[]{null, rate});
+    }
+
+    /**
+     * Sets the direct quotes from {@code baseCurrencies[i]} to
+     * {@code quoteCurrencies[i]} to {@code rates[i]}, or removes them where
+     * the rate is {@code null}, and publishes them as one change. Reciprocals
+     * are not added.
+     *
+     * @return the published conversion
+     */
+    public ThreeWayCurrencyConversion publish(int[] baseCurrencies,
+            int[] quoteCurrencies, BigDecimal[] rates) {
+        return publish(conversion -> conversion.withRates(baseCurrencies, quoteCurrencies, rates),
+                baseCurrencies, quoteCurrencies);
+    }
+
+    /**
+     * Sets the quotes from {@code baseCurrencies[i]} to
+     * {@code quoteCurrencies[i]} and their reciprocals, or removes both where
+     * the rate is {@code null}, and publishes them as one change. The
+     * reciprocals are computed once, by the rate book.
+     *
+     * @return the published conversion
+     */
+    public ThreeWayCurrencyConversion publishQuotes(int[] baseCurrencies,
+            int[] quoteCurrencies, BigDecimal[] rates) {
+        return publish(conversion -> conversion.withQuotes(baseCurrencies, quoteCurrencies, rates),
+                RateBook.bothWays(baseCurrencies, quoteCurrencies),
+                RateBook.bothWays(quoteCurrencies, baseCurrencies));
+    }
+
+    private ThreeWayCurrencyConversion publish(
+            UnaryOperator<ThreeWayCurrencyConversion> change,
+            int[] baseCurrencies, int[] quoteCurrencies) {
+        State current;
+        ThreeWayCurrencyConversion updated;
+        ArbitrageDetector arbitrageDetector;
+
+        do {
+            current = state.get();
+            updated = change.apply(current.conversion());
+            arbitrageDetector = current.arbitrageDetector()
+                    .withChanges(updated.getCrossRateTable(), baseCurrencies, quoteCurrencies);
+        } while (!state.compareAndSet(current, new State(updated, arbitrageDetector)));
+
+        notifyListeners(updated, baseCurrencies, quoteCurrencies);
+
+        return updated;
+    }
+
+    private void notifyListeners(ThreeWayCurrencyConversion updated,
+            int[] baseCurrencies, int[] quoteCurrencies) {
+        for (var listener : listeners) {
+            listener.ratesChanged(updated);
+        }
+
+        if (pairListeners.isEmpty()) {
+            return;
+        }
+
+        var notified = new HashSet<Integer>();
+
+        for (int i = 0; i < baseCurrencies.length; i++) {
+            var key = pairKey(baseCurrencies[i], quoteCurrencies[i]);
+            var subscribers = pairListeners.get(key);
+
+            if (subscribers != null && notified.add(key)) {
+                for (var listener : subscribers) {
+                    listener.ratesChanged(updated);
+                }
+            }
+        }
+    }
+
+    private int pairKey(Currency currency, Currency otherCurrency) {
+        var index = getIndex();
+        return pairKey(requireId(index, currency), requireId(index, otherCurrency));
+    }
+
+    private int pairKey(int currency, int otherCurrency) {
+        return Math.min(currency, otherCurrency) * size + Math.max(currency, otherCurrency);
+    }
+
+    private static int requireId(CurrencyIndex index, Currency currency) {
+        var id = index.idOf(currency);
+
+        if (id < 0) {
+            throw new IllegalArgumentException("Currency is not indexed: " + currency);
+        }
+
+        return id;
+    }
+
+    private record State(ThreeWayCurrencyConversion conversion,
+            ArbitrageDetector arbitrageDetector) {
+
+    }
+
+    /**
+     * Receives the conversion published by a change of rates.
+     */
+    @FunctionalInterface
+    public interface RateListener {
+
+        void ratesChanged(ThreeWayCurrencyConversion conversion);
+    }
+
+}
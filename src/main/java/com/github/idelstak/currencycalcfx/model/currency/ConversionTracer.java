@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives an event for every conversion done by a
+ * {@link ThreeWayCurrencyConversion}.
+ * <p>
+ * Tracers are called on the conversion path, so implementations must be cheap
+ * and must not block. {@link #DISABLED} ignores every event and is what
+ * conversions use unless another tracer is given. The tracer used by default
+ * is chosen at startup: when the {@value #TRACE_CAPACITY_PROPERTY} system
+ * property is set to a positive number, a {@link RingBufferConversionTracer}
+ * of that capacity is used, sampling one in
+ * {@value #TRACE_SAMPLE_RATE_PROPERTY} conversions (every conversion if the
+ * property is not set). When the {@value #TRACE_FILE_PROPERTY} system property
+ * is also set, the recorded conversions are dumped to that file when the JVM
+ * shuts down.
+ */
+public interface ConversionTracer {
+
+    String TRACE_CAPACITY_PROPERTY = "currencycalcfx.trace.capacity";
+    String TRACE_SAMPLE_RATE_PROPERTY = "currencycalcfx.trace.sample-rate";
+    String TRACE_FILE_PROPERTY = "currencycalcfx.trace.file";
+
+    ConversionTracer DISABLED = (table, fromCurrency, toCurrency, rate, amount, result) -> {
+    };
+
+    /**
+     * @return the tracer selected by the system properties at startup
+     */
+    static ConversionTracer getDefault() {
+        return DefaultTracer.TRACER;
+    }
+
+    /**
+     * Called after an amount has been converted.
+     *
+     * @param table the table the route and rate were taken from
+     * @param fromCurrency the id of the currency converted from
+     * @param toCurrency the id of the currency converted to
+     * @param rate the rate used
+     * @param amount the amount converted
+     * @param result the converted amount
+     */
+    void conversionDone(CrossRateTable table, int fromCurrency, int toCurrency,
+            BigDecimal rate, BigDecimal amount, BigDecimal result);
+
+    final class DefaultTracer {
+
+        private static final Logger LOG = Logger.getLogger(ConversionTracer.class.getName());
+        private static final ConversionTracer TRACER = createTracer();
+
+        private DefaultTracer() {
+        }
+
+        private static ConversionTracer createTracer() {
+            var capacity = Integer.getInteger(TRACE_CAPACITY_PROPERTY, 0);
+
+            if (capacity <= 0) {
+                return DISABLED;
+            }
+
+            var tracer = new RingBufferConversionTracer(capacity, Integer.getInteger(TRACE_SAMPLE_RATE_PROPERTY, 1));
+            var file = System.getProperty(TRACE_FILE_PROPERTY, "");
+
+            if (!file.isBlank()) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        tracer.dump(Path.of(file));
+                    } catch (IOException ex) {
+                        LOG.log(Level.WARNING, "Failed to dump the conversion trace to " + file, ex);
+                    }
+                }, "conversion-trace-dump"));
+            }
+
+            return tracer;
+        }
+    }
+
+}
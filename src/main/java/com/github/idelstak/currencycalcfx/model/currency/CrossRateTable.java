@@ -0,0 +1,392 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Precomputes a conversion route and a cross rate for every pair of currencies
+ * in a {@link RateBook}.
+ * <p>
+ * A route is the path with the fewest hops between two currencies. Neighbours
+ * are always explored in {@link CurrencyIndex} id order, so when several
+ * routes have the same number of hops the same one is chosen every time. The
+ * cross rate of a route is the product of the direct rates along it, which
+ * means a direct quote always wins over a route through other currencies.
+ * <p>
+ * Routes are kept per source currency: a predecessor row, a row of targets in
+ * the order they were reached and a row of cross rates, both as
+ * {@link BigDecimal}s rounded to the rate precision of the book's
+ * {@link PrecisionPolicy} and packed for {@link FixedPointDecimal}. Only
+ * currencies that have at least one quote get rows, so a book with a handful
+ * of quotes costs a handful of rows even when every ISO currency is indexed.
+ * <p>
+ * Like the rate book it is built from, a table never changes.
+ * {@link #withRateBook(RateBook, int[], int[])} returns a table for a newer
+ * book that shares every row it does not need to touch. If the rate of an
+ * existing quote changes, the routes stay the same and only the cross rates
+ * that go through that quote are multiplied again. If a quote is added or
+ * removed, only the routes of the sources that can be affected are searched
+ * again.
+ */
+public final class CrossRateTable {
+
+    private static final int[] NONE = new int[0];
+
+    private final RateBook rateBook;
+    private final MathContext rateContext;
+    private final int size;
+    private final int[][] neighbours;
+    private final int[][] predecessors;
+    private final int[][] reachOrders;
+    private final BigDecimal[][] crossRates;
+    private final long[][] fixedCrossRates;
+
+    public CrossRateTable(RateBook rateBook) {
+        this.rateBook = rateBook;
+        rateContext = rateBook.getPrecisionPolicy().getRateContext();
+        size = rateBook.getIndex().size();
+        neighbours = new int[size][];
+        predecessors = new int[size][];
+        reachOrders = new int[size][];
+        crossRates = new BigDecimal[size][];
+        fixedCrossRates = new long[size][];
+
+        for (int base = 0; base < size; base++) {
+            neighbours[base] = findNeighbours(base);
+        }
+
+        for (int source = 0; source < size; source++) {
+            searchRoutes(source);
+        }
+    }
+
+    private CrossRateTable(CrossRateTable table, RateBook rateBook) {
+        this.rateBook = rateBook;
+        rateContext = rateBook.getPrecisionPolicy().getRateContext();
+        size = table.size;
+        neighbours = table.neighbours.clone();
+        predecessors = table.predecessors.clone();
+        reachOrders = table.reachOrders.clone();
+        crossRates = table.crossRates.clone();
+        fixedCrossRates = table.fixedCrossRates.clone();
+    }
+
+    public RateBook getRateBook() {
+        return rateBook;
+    }
+
+    public CurrencyIndex getIndex() {
+        return rateBook.getIndex();
+    }
+
+    /**
+     * @return the currencies {@code baseCurrency} has a direct quote to, in id
+     * order; the returned array is shared and must not be modified
+     */
+    int[] neighbours(int baseCurrency) {
+        return neighbours[baseCurrency];
+    }
+
+    /**
+     * @return the rate for converting from {@code fromCurrency} to
+     * {@code toCurrency} along its route, or {@code null} if the currencies
+     * are not connected
+     */
+    public BigDecimal getCrossRate(int fromCurrency, int toCurrency) {
+        var rates = crossRates[fromCurrency];
+        return rates != null ? rates[toCurrency] : null;
+    }
+
+    /**
+     * @return the cross rate packed by {@link FixedPointDecimal}, or
+     * {@link FixedPointDecimal#NO_RATE} if the currencies are not connected
+     */
+    public long getFixedCrossRate(int fromCurrency, int toCurrency) {
+        var rates = fixedCrossRates[fromCurrency];
+        return rates != null ? rates[toCurrency] : FixedPointDecimal.NO_RATE;
+    }
+
+    /**
+     * @return the number of conversions on the route from
+     * {@code fromCurrency} to {@code toCurrency}, or {@code -1} if the
+     * currencies are not connected
+     */
+    public int getHops(int fromCurrency, int toCurrency) {
+        if (fromCurrency == toCurrency) {
+            return 0;
+        }
+
+        var route = predecessors[fromCurrency];
+
+        if (route == null || route[toCurrency] < 0) {
+            return -1;
+        }
+
+        var hops = 0;
+
+        for (int currency = toCurrency; currency != fromCurrency; currency = route[currency]) {
+            hops++;
+        }
+
+        return hops;
+    }
+
+    /**
+     * @return the ids of the currencies on the route, starting with
+     * {@code fromCurrency} and ending with {@code toCurrency}, or an empty
+     * array if the currencies are not connected
+     */
+    public int[] getRoute(int fromCurrency, int toCurrency) {
+        var hops = getHops(fromCurrency, toCurrency);
+
+        if (hops < 0) {
+            return NONE;
+        }
+
+        var route = new int[hops + 1];
+        var currency = toCurrency;
+
+        for (int i = hops; i > 0; i--) {
+            route[i] = currency;
+            currency = predecessors[fromCurrency][currency];
+        }
+
+        route[0] = fromCurrency;
+
+        return route;
+    }
+
+    /**
+     * Packs the first intermediate currencies of a route into a
+     * {@code long}, sixteen bits per currency id, without allocating.
+     *
+     * @param fromCurrency the id of the source currency
+     * @param toCurrency the id of the target currency
+     * @param maxIntermediates how many intermediates to pack, at most four
+     * @return the ids of the intermediate currencies in route order, the
+     * first in the lowest bits
+     */
+    public long getIntermediates(int fromCurrency, int toCurrency,
+            int maxIntermediates) {
+        var hops = getHops(fromCurrency, toCurrency);
+        var intermediates = 0L;
+        var currency = toCurrency;
+
+        for (int i = hops - 2; i >= 0; i--) {
+            currency = predecessors[fromCurrency][currency];
+
+            if (i < maxIntermediates) {
+                intermediates |= (long) currency << (16 * i);
+            }
+        }
+
+        return intermediates;
+    }
+
+    public List<Currency> getRoute(Currency fromCurrency, Currency toCurrency) {
+        var index = rateBook.getIndex();
+        var route = new ArrayList<Currency>();
+
+        for (int currency : getRoute(rateBook.requireId(fromCurrency), rateBook.requireId(toCurrency))) {
+            route.add(index.currencyOf(currency));
+        }
+
+        return route;
+    }
+
+    /**
+     * Returns the table for {@code newRateBook}, which must differ from the
+     * book of this table only in the quotes from {@code baseCurrencies[i]} to
+     * {@code quoteCurrencies[i]}.
+     */
+    public CrossRateTable withRateBook(RateBook newRateBook,
+            int[] baseCurrencies, int[] quoteCurrencies) {
+        var table = new CrossRateTable(this, newRateBook);
+        var researched = new boolean[size];
+        var changedBases = new boolean[size];
+
+        // Work out which sources need their routes searched again from the
+        // routes of this table, before any row is replaced
+        for (int i = 0; i < baseCurrencies.length; i++) {
+            var base = baseCurrencies[i];
+            var quote = quoteCurrencies[i];
+
+            if (base == quote) {
+                continue;
+            }
+
+            var quoted = newRateBook.hasRate(base, quote);
+            var wasQuoted = Arrays.binarySearch(neighbours[base], quote) >= 0;
+
+            if (quoted == wasQuoted) {
+                continue;
+            }
+
+            changedBases[base] = true;
+
+            for (int source = 0; source < size; source++) {
+                var route = predecessors[source];
+                // A new quote can only shorten routes from sources that already
+                // reach its base; a removed quote only breaks routes through it
+                researched[source] |= quoted
+                        ? source == base || (route != null && route[base] >= 0)
+                        : route != null && route[quote] == base && source != quote;
+            }
+        }
+
+        for (int base = 0; base < size; base++) {
+            if (changedBases[base]) {
+                table.neighbours[base] = table.findNeighbours(base);
+            }
+        }
+
+        for (int source = 0; source < size; source++) {
+            if (researched[source]) {
+                table.searchRoutes(source);
+            }
+        }
+
+        var copiedRates = researched.clone();
+
+        for (int i = 0; i < baseCurrencies.length; i++) {
+            var base = baseCurrencies[i];
+            var quote = quoteCurrencies[i];
+
+            if (base != quote && newRateBook.hasRate(base, quote)) {
+                table.updateCrossRates(base, quote, researched, copiedRates);
+            }
+        }
+
+        return table;
+    }
+
+    public CrossRateTable withRateBook(RateBook newRateBook,
+            int baseCurrency, int quoteCurrency) {
+        return withRateBook(newRateBook, new int[]{baseCurrency}, new int[]{quoteCurrency});
+    }
+
+    private void updateCrossRates(int baseCurrency, int quoteCurrency,
+            boolean[] researched, boolean[] copiedRates) {
+        var changed = new boolean[size];
+
+        for (int source = 0; source < size; source++) {
+            var route = predecessors[source];
+
+            if (researched[source] || route == null || route[quoteCurrency] != baseCurrency || source == quoteCurrency) {
+                continue;
+            }
+
+            if (!copiedRates[source]) {
+                crossRates[source] = crossRates[source].clone();
+                fixedCrossRates[source] = fixedCrossRates[source].clone();
+                copiedRates[source] = true;
+            }
+
+            var order = reachOrders[source];
+            var rates = crossRates[source];
+            var fixedRates = fixedCrossRates[source];
+
+            Arrays.fill(changed, false);
+            changed[quoteCurrency] = true;
+            rates[quoteCurrency] = rates[baseCurrency].multiply(rateBook.getRate(baseCurrency, quoteCurrency), rateContext);
+            fixedRates[quoteCurrency] = FixedPointDecimal.packRate(rates[quoteCurrency]);
+
+            // Targets are visited in the order they were reached, so every
+            // predecessor is up to date before the targets routed through it
+            for (int target : order) {
+                var predecessor = route[target];
+
+                if (target != quoteCurrency && target != source && changed[predecessor]) {
+                    rates[target] = rates[predecessor].multiply(rateBook.getRate(predecessor, target), rateContext);
+                    fixedRates[target] = FixedPointDecimal.packRate(rates[target]);
+                    changed[target] = true;
+                }
+            }
+        }
+    }
+
+    private void searchRoutes(int source) {
+        if (neighbours[source].length == 0) {
+            predecessors[source] = null;
+            reachOrders[source] = null;
+            crossRates[source] = null;
+            fixedCrossRates[source] = null;
+            return;
+        }
+
+        var route = new int[size];
+        var rates = new BigDecimal[size];
+        var fixedRates = new long[size];
+        var queue = new int[size];
+
+        Arrays.fill(route, -1);
+        Arrays.fill(fixedRates, FixedPointDecimal.NO_RATE);
+
+        route[source] = source;
+        rates[source] = BigDecimal.ONE;
+        fixedRates[source] = FixedPointDecimal.packRate(1, 0);
+
+        var head = 0;
+        var tail = 0;
+        queue[tail++] = source;
+
+        while (head < tail) {
+            var currency = queue[head++];
+
+            for (int neighbour : neighbours[currency]) {
+                if (route[neighbour] < 0) {
+                    route[neighbour] = currency;
+                    rates[neighbour] = rates[currency].multiply(rateBook.getRate(currency, neighbour), rateContext);
+                    fixedRates[neighbour] = FixedPointDecimal.packRate(rates[neighbour]);
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        predecessors[source] = route;
+        reachOrders[source] = Arrays.copyOf(queue, tail);
+        crossRates[source] = rates;
+        fixedCrossRates[source] = fixedRates;
+    }
+
+    private int[] findNeighbours(int base) {
+        var found = new int[size];
+        var count = 0;
+
+        for (int quote = 0; quote < size; quote++) {
+            if (quote != base && rateBook.hasRate(base, quote)) {
+                found[count++] = quote;
+            }
+        }
+
+        return count > 0 ? Arrays.copyOf(found, count) : NONE;
+    }
+
+}
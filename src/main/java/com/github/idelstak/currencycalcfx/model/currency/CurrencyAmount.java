@@ -24,14 +24,17 @@
 package com.github.idelstak.currencycalcfx.model.currency;
 
 import java.math.BigDecimal;
-import static java.math.RoundingMode.HALF_UP;
 import java.util.Currency;
 
+/**
+ * An amount of money, rounded to the minor units of its currency by the
+ * default {@link PrecisionPolicy}.
+ */
 public record CurrencyAmount(Currency currency, BigDecimal amount) {
 
     public CurrencyAmount(Currency currency, BigDecimal amount) {
         this.currency = currency;
-        this.amount = amount.setScale(2, HALF_UP);
+        this.amount = PrecisionPolicy.getDefault().roundToMinorUnits(amount, currency);
     }
 
 }
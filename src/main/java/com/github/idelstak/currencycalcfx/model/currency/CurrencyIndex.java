@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Currency;
+
+/**
+ * Assigns every {@link Currency} a compact, stable {@code int} id so that rates
+ * can be kept in flat arrays instead of hash maps.
+ * <p>
+ * Ids are handed out in currency code order, starting at zero, which makes
+ * them deterministic across runs for the same set of currencies. Looking up an
+ * id does not hash: ISO 4217 codes are three upper case letters, so each code
+ * is packed into a number below {@code 26 * 26 * 26} and used directly as an
+ * index into a lookup table.
+ */
+public final class CurrencyIndex {
+
+    private static final int CODE_SPACE = 26 * 26 * 26;
+    private static final CurrencyIndex AVAILABLE_CURRENCIES = new CurrencyIndex(Currency.getAvailableCurrencies());
+
+    private final Currency[] currencies;
+    private final short[] idsByCode;
+
+    public CurrencyIndex(Collection<Currency> currencies) {
+        this.currencies = currencies.stream()
+                .distinct()
+                .sorted(Comparator.comparing(Currency::getCurrencyCode))
+                .toArray(Currency[]::new);
+
+        if (this.currencies.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many currencies: " + this.currencies.length);
+        }
+
+        idsByCode = new short[CODE_SPACE];
+        Arrays.fill(idsByCode, (short) -1);
+
+        for (int id = 0; id < this.currencies.length; id++) {
+            var code = packCode(this.currencies[id].getCurrencyCode());
+
+            if (code < 0) {
+                throw new IllegalArgumentException("Not an ISO 4217 currency code: " + this.currencies[id]);
+            }
+
+            idsByCode[code] = (short) id;
+        }
+    }
+
+    /**
+     * @return the index of every currency known to the running JVM
+     */
+    public static CurrencyIndex ofAvailableCurrencies() {
+        return AVAILABLE_CURRENCIES;
+    }
+
+    public int size() {
+        return currencies.length;
+    }
+
+    /**
+     * @param currency the currency to look up
+     * @return the id of the currency, or {@code -1} if it is not indexed
+     */
+    public int idOf(Currency currency) {
+        return currency != null
+                ? idOf(currency.getCurrencyCode())
+                : -1;
+    }
+
+    /**
+     * @param currencyCode a three letter currency code
+     * @return the id of the currency, or {@code -1} if it is not indexed
+     */
+    public int idOf(CharSequence currencyCode) {
+        var code = packCode(currencyCode);
+        return code >= 0 ? idsByCode[code] : -1;
+    }
+
+    /**
+     * Looks up a currency code held as ASCII bytes, e.g. straight from a
+     * file, without decoding it to a string.
+     *
+     * @return the id of the currency, or {@code -1} if it is not indexed
+     */
+    public int idOf(byte first, byte second, byte third) {
+        var code = packCode(first, second, third);
+        return code >= 0 ? idsByCode[code] : -1;
+    }
+
+    public Currency currencyOf(int id) {
+        return currencies[id];
+    }
+
+    private static int packCode(CharSequence currencyCode) {
+        if (currencyCode.length() != 3) {
+            return -1;
+        }
+
+        var packed = 0;
+
+        for (int i = 0; i < 3; i++) {
+            var letter = currencyCode.charAt(i) - 'A';
+
+            if (letter < 0 || letter >= 26) {
+                return -1;
+            }
+
+            packed = packed * 26 + letter;
+        }
+
+        return packed;
+    }
+
+    private static int packCode(int first, int second, int third) {
+        first -= 'A';
+        second -= 'A';
+        third -= 'A';
+
+        if ((first | second | third) < 0 || first >= 26 || second >= 26 || third >= 26) {
+            return -1;
+        }
+
+        return (first * 26 + second) * 26 + third;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Parses plain decimal numbers, such as {@code -1234.50}, straight from ASCII
+ * bytes or from text.
+ * <p>
+ * A number is an optional sign, digits and at most one decimal point, with at
+ * least one digit; exponents and grouping separators are not accepted. Digits
+ * are accumulated in an unscaled {@code long} and the scale is the number of
+ * digits after the point, so numbers of up to 18 digits are parsed exactly,
+ * never through {@code double}, and without creating any intermediate object;
+ * longer numbers fall back to {@link BigDecimal#BigDecimal(char[])}.
+ */
+public final class DecimalParser {
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private DecimalParser() {
+    }
+
+    /**
+     * Parses the bytes {@code from} (inclusive) to {@code to} (exclusive) of
+     * {@code bytes}, by absolute index.
+     *
+     * @return the parsed number, keeping the scale it was written with
+     * @throws NumberFormatException if the bytes are not a plain decimal
+     * number
+     */
+    public static BigDecimal parse(ByteBuffer bytes, int from, int to) {
+        return parse(bytes, null, from, to);
+    }
+
+    /**
+     * Parses {@code text}, e.g. the text of a field as it is being typed.
+     *
+     * @return the parsed number, keeping the scale it was written with
+     * @throws NumberFormatException if the text is not a plain decimal number
+     * @see #isDecimal(CharSequence)
+     */
+    public static BigDecimal parse(CharSequence text) {
+        return parse(null, text, 0, text.length());
+    }
+
+    /**
+     * Tells whether {@link #parse(CharSequence)} accepts {@code text}, without
+     * creating any object, so incomplete input such as {@code ""}, {@code "-"}
+     * or {@code "."} can be skipped without catching an exception.
+     */
+    public static boolean isDecimal(CharSequence text) {
+        var length = text.length();
+        var position = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        var digits = 0;
+        var point = false;
+
+        for (; position < length; position++) {
+            var c = text.charAt(position);
+
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return false;
+            }
+        }
+
+        return digits > 0;
+    }
+
+    /**
+     * Parses the characters {@code from} (inclusive) to {@code to}
+     * (exclusive) of {@code bytes}, or of {@code text} if {@code bytes} is
+     * {@code null}.
+     */
+    private static BigDecimal parse(ByteBuffer bytes, CharSequence text, int from, int to) {
+        var position = from;
+        var negative = false;
+
+        if (position < to && (charAt(bytes, text, position) == '-' || charAt(bytes, text, position) == '+')) {
+            negative = charAt(bytes, text, position) == '-';
+            position++;
+        }
+
+        var unscaled = 0L;
+        var digits = 0;
+        var scale = -1;
+
+        for (; position < to; position++) {
+            var c = charAt(bytes, text, position);
+
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                throw notANumber(bytes, text, from, to);
+            }
+        }
+
+        if (digits == 0) {
+            throw notANumber(bytes, text, from, to);
+        }
+        if (digits > MAX_LONG_DIGITS) {
+            return new BigDecimal(chars(bytes, text, from, to));
+        }
+
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private static NumberFormatException notANumber(ByteBuffer bytes, CharSequence text, int from, int to) {
+        return new NumberFormatException("Not a decimal number: \"" + new String(chars(bytes, text, from, to)) + "\"");
+    }
+
+    private static char charAt(ByteBuffer bytes, CharSequence text, int index) {
+        return bytes != null ? (char) bytes.get(index) : text.charAt(index);
+    }
+
+    private static char[] chars(ByteBuffer bytes, CharSequence text, int from, int to) {
+        var chars = new char[to - from];
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = charAt(bytes, text, from + i);
+        }
+
+        return chars;
+    }
+
+}
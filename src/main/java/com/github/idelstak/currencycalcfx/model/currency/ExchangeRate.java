@@ -24,13 +24,20 @@
 package com.github.idelstak.currencycalcfx.model.currency;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.Currency;
 
+/**
+ * A quote from {@code baseCurrency} to {@code quoteCurrency}.
+ * <p>
+ * {@link #getReverseRate()} divides every time it is called. Code that needs
+ * reciprocals repeatedly should put the quote in a {@link RateBook} with
+ * {@link RateBook#withQuotes(int[], int[], BigDecimal[])}, which computes the
+ * reciprocal once and stores it next to the quote.
+ */
 public record ExchangeRate(Currency baseCurrency, Currency quoteCurrency,
         BigDecimal rate) {
 
     public ExchangeRate getReverseRate() {
-        return new ExchangeRate(quoteCurrency, baseCurrency, BigDecimal.ONE.divide(rate, 15, RoundingMode.HALF_UP));
+        return new ExchangeRate(quoteCurrency, baseCurrency, ReciprocalPolicy.getDefault().reciprocal(rate));
     }
 }
@@ -0,0 +1,266 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Decimal arithmetic on scaled {@code long}s, used by the
+ * {@link ArithmeticMode#FIXED_POINT fixed-point} conversion engine.
+ * <p>
+ * Amounts are plain unscaled {@code long}s whose scale is passed alongside
+ * them, so {@code 12.34} at scale {@code 2} is {@code 1234}. Rates carry their
+ * own scale and are packed into a single {@code long}: the upper 59 bits hold
+ * the unscaled value and the lower 5 bits the scale, which keeps a whole rate
+ * matrix in one primitive array. A packed rate holds up to 17 significant
+ * digits with up to 31 fraction digits; rates with more digits are rounded
+ * {@link RoundingMode#HALF_UP HALF_UP} to 17 significant digits when packed.
+ * <p>
+ * Products are formed in 128 bits and rounded {@code HALF_UP} once, to the
+ * requested result scale. For amounts and rates that fit the formats above the
+ * results are therefore identical to the exact {@link BigDecimal} result
+ * rounded to the same scale with {@code HALF_UP}. None of the methods that
+ * work on {@code long}s allocate; results that do not fit a {@code long} throw
+ * an {@link ArithmeticException}.
+ */
+public final class FixedPointDecimal {
+
+    /**
+     * The scale of the amounts produced by the fixed-point engine when no
+     * other scale is requested.
+     */
+    public static final int AMOUNT_SCALE = 4;
+    /**
+     * The packed value of a missing or unrepresentable rate.
+     */
+    public static final long NO_RATE = Long.MIN_VALUE;
+
+    private static final int SCALE_BITS = 5;
+    private static final int MAX_SCALE = (1 << SCALE_BITS) - 1;
+    private static final long MAX_UNSCALED_RATE = (1L << (63 - SCALE_BITS)) - 1;
+    private static final MathContext RATE_PRECISION = new MathContext(17, RoundingMode.HALF_UP);
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPointDecimal() {
+    }
+
+    /**
+     * @return the packed form of {@code rate}, or {@link #NO_RATE} if the rate
+     * is {@code null} or too large to be packed
+     */
+    public static long packRate(BigDecimal rate) {
+        if (rate == null) {
+            return NO_RATE;
+        }
+
+        var rounded = rate.round(RATE_PRECISION).stripTrailingZeros();
+
+        if (rounded.scale() < 0) {
+            rounded = rounded.setScale(0);
+        } else if (rounded.scale() > MAX_SCALE) {
+            rounded = rounded.setScale(MAX_SCALE, RoundingMode.HALF_UP);
+        }
+
+        if (rounded.unscaledValue().bitLength() > 63 - SCALE_BITS) {
+            return NO_RATE;
+        }
+
+        return packRate(rounded.unscaledValue().longValue(), rounded.scale());
+    }
+
+    public static long packRate(long unscaledRate, int scale) {
+        if (scale < 0 || scale > MAX_SCALE || Math.abs(unscaledRate) > MAX_UNSCALED_RATE) {
+            throw new ArithmeticException("Rate cannot be packed: " + unscaledRate + "E-" + scale);
+        }
+
+        return (unscaledRate << SCALE_BITS) | scale;
+    }
+
+    public static long unscaledRate(long packedRate) {
+        return packedRate >> SCALE_BITS;
+    }
+
+    public static int rateScale(long packedRate) {
+        return (int) (packedRate & MAX_SCALE);
+    }
+
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * @return {@code amount} as an unscaled {@code long} at {@code scale},
+     * rounded {@code HALF_UP} if it has more fraction digits
+     * @throws ArithmeticException if the amount does not fit
+     */
+    public static long toUnscaled(BigDecimal amount, int scale) {
+        return amount.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Multiplies an amount by a packed rate.
+     *
+     * @param amount the unscaled amount
+     * @param amountScale the scale of {@code amount}
+     * @param packedRate a rate packed by {@link #packRate(BigDecimal)}
+     * @param resultScale the scale of the result
+     * @return the unscaled product, rounded {@code HALF_UP} to
+     * {@code resultScale}
+     */
+    public static long convert(long amount, int amountScale, long packedRate,
+            int resultScale) {
+        if (packedRate == NO_RATE) {
+            throw new ArithmeticException("No rate");
+        }
+
+        return multiply(amount, amountScale, unscaledRate(packedRate), rateScale(packedRate), resultScale);
+    }
+
+    /**
+     * @return the unscaled amount left after a commission in percent has been
+     * deducted from {@code bidAmount}, rounded {@code HALF_UP} to
+     * {@code resultScale}
+     */
+    public static long youGetAmount(long bidAmount, int bidScale,
+            long commissionRate, int commissionScale, int resultScale) {
+        // (1 - commission / 100) has the scale of the commission plus two
+        var factorScale = commissionScale + 2;
+        var factor = Math.subtractExact(pow10(factorScale), commissionRate);
+
+        return multiply(bidAmount, bidScale, factor, factorScale, resultScale);
+    }
+
+    /**
+     * @return the unscaled amount that has to be bid so that
+     * {@code youGetAmount} is left after a commission in percent has been
+     * deducted, rounded {@code HALF_UP} to {@code resultScale}
+     */
+    public static long bidAmount(long youGetAmount, int youGetScale,
+            long commissionRate, int commissionScale, int resultScale) {
+        var factorScale = commissionScale + 2;
+        var factor = Math.subtractExact(pow10(factorScale), commissionRate);
+
+        // youGet / 10^youGetScale / (factor / 10^factorScale), at resultScale
+        var numeratorScale = factorScale + resultScale - youGetScale;
+        var numerator = numeratorScale >= 0
+                ? Math.multiplyExact(youGetAmount, pow10(numeratorScale))
+                : youGetAmount;
+        var denominator = numeratorScale >= 0
+                ? factor
+                : Math.multiplyExact(factor, pow10(-numeratorScale));
+
+        return divide(numerator, denominator);
+    }
+
+    private static long multiply(long a, int aScale, long b, int bScale,
+            int resultScale) {
+        var negative = (a < 0) != (b < 0);
+        var x = Math.absExact(a);
+        var y = Math.absExact(b);
+        // Both factors are below 2^63, so the product fits in 126 bits
+        var lo = x * y;
+        var hi = Math.multiplyHigh(x, y);
+        var shift = aScale + bScale - resultScale;
+
+        if (shift <= 0) {
+            if (hi != 0 || lo < 0) {
+                throw new ArithmeticException("Overflow");
+            }
+            return negative
+                    ? -Math.multiplyExact(lo, pow10(-shift))
+                    : Math.multiplyExact(lo, pow10(-shift));
+        }
+
+        // Divide the 128 bit product by 10^shift in steps of at most nine
+        // digits, leaving a single digit for the last step so its remainder
+        // decides the HALF_UP rounding
+        var lastRemainder = 0L;
+
+        for (int remaining = shift; remaining > 0;) {
+            var step = remaining > 1 ? Math.min(remaining - 1, 9) : 1;
+            var divisor = POWERS_OF_TEN[step];
+
+            var q3 = (hi >>> 32) / divisor;
+            var r = (hi >>> 32) % divisor;
+            var current = (r << 32) | (hi & 0xFFFFFFFFL);
+            var q2 = current / divisor;
+            r = current % divisor;
+            current = (r << 32) | (lo >>> 32);
+            var q1 = current / divisor;
+            r = current % divisor;
+            current = (r << 32) | (lo & 0xFFFFFFFFL);
+            var q0 = current / divisor;
+
+            lastRemainder = current % divisor;
+            hi = (q3 << 32) | q2;
+            lo = (q1 << 32) | q0;
+            remaining -= step;
+        }
+
+        if (hi != 0 || lo < 0 || (lastRemainder >= 5 && lo == Long.MAX_VALUE)) {
+            throw new ArithmeticException("Overflow");
+        }
+
+        var result = lastRemainder >= 5 ? lo + 1 : lo;
+        return negative ? -result : result;
+    }
+
+    private static long divide(long numerator, long denominator) {
+        if (denominator == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+
+        var negative = (numerator < 0) != (denominator < 0);
+        var n = Math.absExact(numerator);
+        var d = Math.absExact(denominator);
+        var quotient = n / d;
+        var remainder = n % d;
+
+        // Round half up without overflowing 2 * remainder
+        if (remainder >= d - remainder) {
+            quotient++;
+        }
+
+        return negative ? -quotient : quotient;
+    }
+
+    private static long pow10(int exponent) {
+        if (exponent < 0 || exponent >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Scale out of range: " + exponent);
+        }
+
+        return POWERS_OF_TEN[exponent];
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts very large batches on several cores.
+ * <p>
+ * A batch is split in halves until the ranges are no longer than the
+ * threshold, and the ranges are converted by the tasks of a
+ * {@link ForkJoinPool}. Every task reads from the same
+ * {@link ThreeWayCurrencyConversion#snapshot() snapshot}, taken once when the
+ * batch starts; since conversions are immutable, rates published while the
+ * batch runs do not leak into it. Each element is written only to its own
+ * slot of the results, which keeps the output identical to a sequential
+ * conversion regardless of how the tasks are scheduled.
+ * <p>
+ * Batches no longer than the threshold are converted on the calling thread.
+ */
+public class ParallelBatchConversion {
+
+    /**
+     * The default number of elements below which a range is converted
+     * sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 16_384;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelBatchConversion() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelBatchConversion(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Converts a batch as
+     * {@link ThreeWayCurrencyConversion#convert(int[], int[], BigDecimal[], BigDecimal[])}
+     * does, splitting it across the pool when it is longer than the
+     * threshold.
+     */
+    public void convert(ThreeWayCurrencyConversion conversion,
+            int[] fromCurrencies, int[] toCurrencies, BigDecimal[] amounts,
+            BigDecimal[] results) {
+        if (amounts.length <= threshold) {
+            conversion.convert(fromCurrencies, toCurrencies, amounts, results);
+            return;
+        }
+
+        checkBatch(fromCurrencies.length, toCurrencies.length, amounts.length, results.length);
+
+        var snapshot = conversion.snapshot();
+        pool.invoke(new RangeConversion((offset, length) -> {
+            snapshot.convert(fromCurrencies, toCurrencies, amounts, results, offset, length);
+        }, 0, amounts.length, threshold));
+    }
+
+    /**
+     * Converts a batch of unscaled amounts as
+     * {@link ThreeWayCurrencyConversion#convert(int[], int[], long[], int, long[], int)}
+     * does, splitting it across the pool when it is longer than the
+     * threshold.
+     */
+    public void convert(ThreeWayCurrencyConversion conversion,
+            int[] fromCurrencies, int[] toCurrencies, long[] amounts,
+            int amountScale, long[] results, int resultScale) {
+        if (amounts.length <= threshold) {
+            conversion.convert(fromCurrencies, toCurrencies, amounts, amountScale, results, resultScale);
+            return;
+        }
+
+        checkBatch(fromCurrencies.length, toCurrencies.length, amounts.length, results.length);
+
+        var snapshot = conversion.snapshot();
+        pool.invoke(new RangeConversion((offset, length) -> {
+            snapshot.convert(fromCurrencies, toCurrencies, amounts, amountScale, results, resultScale, offset, length);
+        }, 0, amounts.length, threshold));
+    }
+
+    private static void checkBatch(int fromCurrencies, int toCurrencies,
+            int amounts, int results) {
+        if (fromCurrencies != amounts || toCurrencies != amounts || results < amounts) {
+            throw new IllegalArgumentException(String.format(
+                    "Batch arrays differ in length: %d from currencies, %d to currencies, %d amounts, %d results",
+                    fromCurrencies, toCurrencies, amounts, results));
+        }
+    }
+
+    private interface RangeConverter {
+
+        void convert(int offset, int length);
+    }
+
+    private static final class RangeConversion extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeConverter converter;
+        private final int offset;
+        private final int length;
+        private final int threshold;
+
+        RangeConversion(RangeConverter converter, int offset, int length, int threshold) {
+            this.converter = converter;
+            this.offset = offset;
+            this.length = length;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (length <= threshold) {
+                converter.convert(offset, length);
+                return;
+            }
+
+            var half = length >>> 1;
+
+            invokeAll(new RangeConversion(converter, offset, half, threshold),
+                    new RangeConversion(converter, offset + half, length - half, threshold));
+        }
+    }
+
+}
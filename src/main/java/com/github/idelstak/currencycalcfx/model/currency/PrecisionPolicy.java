@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Decides how precise the numbers are at each stage of a conversion:
+ * <ul>
+ * <li> reciprocals stored next to quotes, by a {@link ReciprocalPolicy}
+ * <li> cross rates, the products of the rates along a route, rounded to the
+ * rate {@link MathContext}
+ * <li> converted amounts, the product of an amount and a cross rate, rounded
+ * to the amount {@link MathContext}
+ * <li> amounts shown to the user, rounded to the minor units of their
+ * currency as given by {@link Currency#getDefaultFractionDigits()}; for
+ * currencies without minor units, such as gold, the fallback scale is used
+ * </ul>
+ * Bounding the rate and amount precision keeps the scale of chained
+ * {@link BigDecimal} products from growing with every hop and every
+ * recalculation, which would otherwise make each operation slower than the
+ * one before.
+ * <p>
+ * The default policy is chosen once at startup. The
+ * {@value #PRECISION_DIGITS_PROPERTY} system property sets the number of
+ * significant digits kept by rates and amounts (34 if not set), and
+ * reciprocals follow {@link ReciprocalPolicy#getDefault()}.
+ */
+public final class PrecisionPolicy {
+
+    public static final String PRECISION_DIGITS_PROPERTY = "currencycalcfx.precision.digits";
+    public static final int DEFAULT_PRECISION_DIGITS = 34;
+    public static final int DEFAULT_FALLBACK_SCALE = 2;
+
+    private static final PrecisionPolicy STARTUP_POLICY = new PrecisionPolicy(
+            new MathContext(Integer.getInteger(PRECISION_DIGITS_PROPERTY, DEFAULT_PRECISION_DIGITS), RoundingMode.HALF_UP),
+            new MathContext(Integer.getInteger(PRECISION_DIGITS_PROPERTY, DEFAULT_PRECISION_DIGITS), RoundingMode.HALF_UP),
+            ReciprocalPolicy.getDefault(), RoundingMode.HALF_UP, DEFAULT_FALLBACK_SCALE);
+
+    private final MathContext rateContext;
+    private final MathContext amountContext;
+    private final ReciprocalPolicy reciprocalPolicy;
+    private final RoundingMode roundingMode;
+    private final int fallbackScale;
+
+    public PrecisionPolicy(MathContext rateContext, MathContext amountContext,
+            ReciprocalPolicy reciprocalPolicy, RoundingMode roundingMode,
+            int fallbackScale) {
+        this.rateContext = rateContext;
+        this.amountContext = amountContext;
+        this.reciprocalPolicy = reciprocalPolicy;
+        this.roundingMode = roundingMode;
+        this.fallbackScale = fallbackScale;
+    }
+
+    /**
+     * @return the policy selected by the system properties when the
+     * application started
+     */
+    public static PrecisionPolicy getDefault() {
+        return STARTUP_POLICY;
+    }
+
+    public PrecisionPolicy withReciprocalPolicy(ReciprocalPolicy reciprocalPolicy) {
+        return new PrecisionPolicy(rateContext, amountContext, reciprocalPolicy, roundingMode, fallbackScale);
+    }
+
+    /**
+     * @return a policy that keeps {@code digits} significant digits in rates
+     * and amounts
+     */
+    public PrecisionPolicy withIntermediatePrecision(int digits) {
+        return new PrecisionPolicy(new MathContext(digits, rateContext.getRoundingMode()),
+                new MathContext(digits, amountContext.getRoundingMode()),
+                reciprocalPolicy, roundingMode, fallbackScale);
+    }
+
+    public MathContext getRateContext() {
+        return rateContext;
+    }
+
+    public MathContext getAmountContext() {
+        return amountContext;
+    }
+
+    public ReciprocalPolicy getReciprocalPolicy() {
+        return reciprocalPolicy;
+    }
+
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+
+    /**
+     * @return the number of decimal places of amounts in {@code currency}, or
+     * the fallback scale if the currency is {@code null} or has no minor units
+     */
+    public int minorUnits(Currency currency) {
+        var digits = currency != null ? currency.getDefaultFractionDigits() : -1;
+        return digits >= 0 ? digits : fallbackScale;
+    }
+
+    public BigDecimal roundToMinorUnits(BigDecimal amount, Currency currency) {
+        return amount.setScale(minorUnits(currency), roundingMode);
+    }
+
+    @Override
+    public String toString() {
+        return "PrecisionPolicy{rates=" + rateContext + ", amounts=" + amountContext
+                + ", reciprocals=" + reciprocalPolicy + ", " + roundingMode
+                + ", fallbackScale=" + fallbackScale + '}';
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable, versioned book of direct exchange rate quotes.
+ * <p>
+ * Each currency is mapped to an id by a {@link CurrencyIndex} and the rates
+ * are kept in a dense matrix with one row per base currency, so looking up a
+ * rate is two array accesses no matter how many currencies are indexed. The
+ * rates are kept as {@link BigDecimal}s so that conversions give exactly the
+ * same results as they did with the nested maps this class replaces. Next to
+ * them, every rate is also kept in a primitive {@code long} matrix in the
+ * packed form of {@link FixedPointDecimal}, for the fixed-point engine.
+ * <p>
+ * A rate book never changes. {@link #withRate(int, int, BigDecimal)} and its
+ * siblings return a new book that shares every row with this one except the
+ * row of the changed base currency, so changing a quote copies one row and
+ * the table of rows instead of the whole matrix. Rows without quotes are not
+ * allocated at all. Because books are immutable they can be handed to any
+ * thread and are always read consistently.
+ * <p>
+ * Every book has a version that is unique and greater than the version of
+ * every book created before it, so a version identifies the exact rates a
+ * result was computed from.
+ */
+public final class RateBook {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final CurrencyIndex index;
+    private final int size;
+    private final BigDecimal[][] rates;
+    private final long[][] fixedRates;
+    private final PrecisionPolicy precisionPolicy;
+    private final long version;
+
+    public RateBook() {
+        this(CurrencyIndex.ofAvailableCurrencies());
+    }
+
+    public RateBook(CurrencyIndex index) {
+        this(index, PrecisionPolicy.getDefault());
+    }
+
+    public RateBook(CurrencyIndex index, ReciprocalPolicy reciprocalPolicy) {
+        this(index, PrecisionPolicy.getDefault().withReciprocalPolicy(reciprocalPolicy));
+    }
+
+    public RateBook(CurrencyIndex index, PrecisionPolicy precisionPolicy) {
+        this(index, precisionPolicy, new BigDecimal[index.size()][], new long[index.size()][]);
+    }
+
+    private RateBook(CurrencyIndex index, PrecisionPolicy precisionPolicy,
+            BigDecimal[][] rates, long[][] fixedRates) {
+        this.index = index;
+        this.precisionPolicy = precisionPolicy;
+        this.rates = rates;
+        this.fixedRates = fixedRates;
+        size = index.size();
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Makes every book created from now on have a version greater than
+     * {@code version}, such as the version of a book restored from a
+     * snapshot, so that versions stay unique across restarts.
+     */
+    public static void continueVersionsAfter(long version) {
+        VERSIONS.accumulateAndGet(version, Math::max);
+    }
+
+    public CurrencyIndex getIndex() {
+        return index;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public PrecisionPolicy getPrecisionPolicy() {
+        return precisionPolicy;
+    }
+
+    public ReciprocalPolicy getReciprocalPolicy() {
+        return precisionPolicy.getReciprocalPolicy();
+    }
+
+    public RateBook withRate(Currency baseCurrency, Currency quoteCurrency,
+            BigDecimal rate) {
+        return withRate(requireId(baseCurrency), requireId(quoteCurrency), rate);
+    }
+
+    /**
+     * @return a book with the quote from {@code baseCurrency} to
+     * {@code quoteCurrency} set to {@code rate}, or removed if {@code rate}
+     * is {@code null}
+     */
+    public RateBook withRate(int baseCurrency, int quoteCurrency,
+            BigDecimal rate) {
+        return withRates(new int[]{baseCurrency}, new int[]{quoteCurrency}, new BigDecimal[]{rate});
+    }
+
+    public RateBook withoutRate(int baseCurrency, int quoteCurrency) {
+        return withRate(baseCurrency, quoteCurrency, null);
+    }
+
+    /**
+     * Sets many quotes at once. Quote {@code i} goes from
+     * {@code baseCurrencies[i]} to {@code quoteCurrencies[i]}; a {@code null}
+     * rate removes the quote. Each changed row is copied once, however many of
+     * its quotes change, and all changes appear in a single new version.
+     *
+     * @return a book with the quotes set
+     */
+    public RateBook withRates(int[] baseCurrencies, int[] quoteCurrencies,
+            BigDecimal[] rates) {
+        var newRates = this.rates.clone();
+        var newFixedRates = fixedRates.clone();
+        var copied = new boolean[size];
+
+        for (int i = 0; i < rates.length; i++) {
+            var base = baseCurrencies[i];
+            var quote = quoteCurrencies[i];
+
+            if (!copied[base]) {
+                newRates[base] = newRates[base] != null ? newRates[base].clone() : new BigDecimal[size];
+                newFixedRates[base] = newFixedRates[base] != null ? newFixedRates[base].clone() : emptyFixedRow(size);
+                copied[base] = true;
+            }
+
+            newRates[base][quote] = rates[i];
+            newFixedRates[base][quote] = FixedPointDecimal.packRate(rates[i]);
+        }
+
+        return new RateBook(index, precisionPolicy, newRates, newFixedRates);
+    }
+
+    public RateBook withQuote(Currency baseCurrency, Currency quoteCurrency,
+            BigDecimal rate) {
+        return withQuotes(new int[]{requireId(baseCurrency)}, new int[]{requireId(quoteCurrency)}, new BigDecimal[]{rate});
+    }
+
+    /**
+     * Sets quotes together with their reciprocals. Quote {@code i} sets the
+     * rate from {@code baseCurrencies[i]} to {@code quoteCurrencies[i]} and
+     * the reverse rate, rounded by the {@link ReciprocalPolicy} of this book;
+     * a {@code null} rate removes both. Each reciprocal is computed here, once
+     * per change, so readers of the book never divide.
+     *
+     * @return a book with the quotes and their reciprocals set
+     */
+    public RateBook withQuotes(int[] baseCurrencies, int[] quoteCurrencies,
+            BigDecimal[] rates) {
+        return withRates(bothWays(baseCurrencies, quoteCurrencies),
+                bothWays(quoteCurrencies, baseCurrencies), withReciprocals(rates));
+    }
+
+    /**
+     * @return {@code first} followed by {@code second}, the layout
+     * {@link #withQuotes(int[], int[], BigDecimal[])} passes to
+     * {@link #withRates(int[], int[], BigDecimal[])}
+     */
+    static int[] bothWays(int[] first, int[] second) {
+        var joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private BigDecimal[] withReciprocals(BigDecimal[] rates) {
+        var joined = Arrays.copyOf(rates, rates.length * 2);
+
+        for (int i = 0; i < rates.length; i++) {
+            joined[rates.length + i] = rates[i] != null ? getReciprocalPolicy().reciprocal(rates[i]) : null;
+        }
+
+        return joined;
+    }
+
+    /**
+     * @return the direct rate from {@code baseCurrency} to
+     * {@code quoteCurrency}, or {@code null} if there is no such quote
+     */
+    public BigDecimal getRate(Currency baseCurrency, Currency quoteCurrency) {
+        var base = index.idOf(baseCurrency);
+        var quote = index.idOf(quoteCurrency);
+
+        return base >= 0 && quote >= 0
+                ? getRate(base, quote)
+                : null;
+    }
+
+    public BigDecimal getRate(int baseCurrency, int quoteCurrency) {
+        var row = rates[baseCurrency];
+        return row != null ? row[quoteCurrency] : null;
+    }
+
+    /**
+     * @return the direct rate packed by {@link FixedPointDecimal}, or
+     * {@link FixedPointDecimal#NO_RATE} if there is none
+     */
+    public long getFixedRate(int baseCurrency, int quoteCurrency) {
+        var row = fixedRates[baseCurrency];
+        return row != null ? row[quoteCurrency] : FixedPointDecimal.NO_RATE;
+    }
+
+    public boolean hasRate(int baseCurrency, int quoteCurrency) {
+        return getRate(baseCurrency, quoteCurrency) != null;
+    }
+
+    /**
+     * @return whether this book shares the row of {@code baseCurrency} with
+     * {@code other}, which is the case when neither book changed any quote
+     * from that currency since one was derived from the other
+     */
+    public boolean sharesRow(RateBook other, int baseCurrency) {
+        return rates[baseCurrency] == other.rates[baseCurrency];
+    }
+
+    int requireId(Currency currency) {
+        var id = index.idOf(currency);
+
+        if (id < 0) {
+            throw new IllegalArgumentException("Currency is not indexed: " + currency);
+        }
+
+        return id;
+    }
+
+    private static long[] emptyFixedRow(int size) {
+        var row = new long[size];
+        Arrays.fill(row, FixedPointDecimal.NO_RATE);
+        return row;
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder("RateBook{version=").append(version);
+
+        for (int base = 0; base < size; base++) {
+            for (int quote = 0; quote < size; quote++) {
+                var rate = getRate(base, quote);
+
+                if (rate != null) {
+                    builder.append(", ")
+                            .append(index.currencyOf(base)).append("->")
+                            .append(index.currencyOf(quote)).append('=')
+                            .append(rate);
+                }
+            }
+        }
+
+        return builder.append('}').toString();
+    }
+
+}
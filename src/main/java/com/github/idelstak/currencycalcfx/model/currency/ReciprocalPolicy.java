@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Decides how the reciprocal of a quote is rounded.
+ * <p>
+ * A reciprocal is either rounded to a fixed number of decimal places, which
+ * is what {@link ExchangeRate#getReverseRate()} has always done with 15
+ * places, or to a number of significant digits. Significant digits keep small
+ * reciprocals, such as the one of {@code USD -> UGX}, as precise as large
+ * ones.
+ * <p>
+ * The default is chosen once at startup from the
+ * {@value #RECIPROCAL_PRECISION_PROPERTY} system property. When the property
+ * holds a number of significant digits, reciprocals are rounded
+ * {@code HALF_UP} to that many digits; otherwise they are rounded to 15
+ * decimal places.
+ */
+public final class ReciprocalPolicy {
+
+    public static final String RECIPROCAL_PRECISION_PROPERTY = "currencycalcfx.reciprocal.precision";
+    public static final ReciprocalPolicy FIFTEEN_PLACES = ofScale(15, RoundingMode.HALF_UP);
+
+    private static final ReciprocalPolicy STARTUP_POLICY = fromProperty(System.getProperty(RECIPROCAL_PRECISION_PROPERTY));
+
+    private final int scale;
+    private final RoundingMode roundingMode;
+    private final MathContext mathContext;
+
+    private ReciprocalPolicy(int scale, RoundingMode roundingMode,
+            MathContext mathContext) {
+        this.scale = scale;
+        this.roundingMode = roundingMode;
+        this.mathContext = mathContext;
+    }
+
+    /**
+     * @return a policy rounding reciprocals to {@code scale} decimal places
+     */
+    public static ReciprocalPolicy ofScale(int scale, RoundingMode roundingMode) {
+        return new ReciprocalPolicy(scale, roundingMode, null);
+    }
+
+    /**
+     * @return a policy rounding reciprocals to the precision of
+     * {@code mathContext}
+     */
+    public static ReciprocalPolicy ofPrecision(MathContext mathContext) {
+        if (mathContext.getPrecision() == 0) {
+            throw new IllegalArgumentException("A reciprocal needs a bounded precision");
+        }
+
+        return new ReciprocalPolicy(0, mathContext.getRoundingMode(), mathContext);
+    }
+
+    /**
+     * @return the policy selected by the
+     * {@value #RECIPROCAL_PRECISION_PROPERTY} system property when the
+     * application started
+     */
+    public static ReciprocalPolicy getDefault() {
+        return STARTUP_POLICY;
+    }
+
+    private static ReciprocalPolicy fromProperty(String digits) {
+        return digits == null || digits.isBlank()
+                ? FIFTEEN_PLACES
+                : ofPrecision(new MathContext(Integer.parseInt(digits.trim()), RoundingMode.HALF_UP));
+    }
+
+    /**
+     * @return {@code 1 / rate}, rounded by this policy
+     */
+    public BigDecimal reciprocal(BigDecimal rate) {
+        return mathContext != null
+                ? BigDecimal.ONE.divide(rate, mathContext)
+                : BigDecimal.ONE.divide(rate, scale, roundingMode);
+    }
+
+    @Override
+    public String toString() {
+        return mathContext != null
+                ? "ReciprocalPolicy{precision=" + mathContext.getPrecision() + ", " + roundingMode + '}'
+                : "ReciprocalPolicy{scale=" + scale + ", " + roundingMode + '}';
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link ConversionTracer} that keeps the most recent conversions in a
+ * fixed-size ring buffer, so that they can be dumped on demand: to a file when
+ * the JVM shuts down, see {@link ConversionTracer#TRACE_FILE_PROPERTY}, or
+ * through the {@code /trace} endpoint of the
+ * {@link com.github.idelstak.currencycalcfx.server.QuoteServer}.
+ * <p>
+ * The buffer is allocated up front as parallel arrays and recording an event
+ * only stores primitives and references into them; nothing is allocated per
+ * conversion. With a sample rate of {@code n}, roughly one in {@code n}
+ * conversions is recorded. Sampling is random per thread, so concurrent
+ * converters do not contend on a shared counter.
+ * <p>
+ * Recording is safe from any number of threads. Sampled events are written
+ * under a short lock, which unsampled conversions never take.
+ */
+public class RingBufferConversionTracer implements ConversionTracer {
+
+    /**
+     * The number of intermediate currencies of a route kept per event. Longer
+     * routes are recorded with their first intermediates only.
+     */
+    static final int MAX_INTERMEDIATES = 4;
+
+    private final int capacity;
+    private final int sampleRate;
+    private long sequence;
+    private final long[] timestamps;
+    private final int[] fromCurrencies;
+    private final int[] toCurrencies;
+    private final long[] intermediates;
+    private final int[] hops;
+    private final BigDecimal[] rates;
+    private final BigDecimal[] amounts;
+    private final BigDecimal[] results;
+    private final CurrencyIndex[] indexes;
+
+    public RingBufferConversionTracer(int capacity, int sampleRate) {
+        if (capacity < 1 || sampleRate < 1) {
+            throw new IllegalArgumentException("Capacity and sample rate must be positive");
+        }
+
+        this.capacity = capacity;
+        this.sampleRate = sampleRate;
+        timestamps = new long[capacity];
+        fromCurrencies = new int[capacity];
+        toCurrencies = new int[capacity];
+        intermediates = new long[capacity];
+        hops = new int[capacity];
+        rates = new BigDecimal[capacity];
+        amounts = new BigDecimal[capacity];
+        results = new BigDecimal[capacity];
+        indexes = new CurrencyIndex[capacity];
+    }
+
+    @Override
+    public void conversionDone(CrossRateTable table, int fromCurrency,
+            int toCurrency, BigDecimal rate, BigDecimal amount,
+            BigDecimal result) {
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+
+        synchronized (this) {
+            var eventSequence = ++sequence;
+            var slot = (int) ((eventSequence - 1) % capacity);
+
+            timestamps[slot] = System.currentTimeMillis();
+            fromCurrencies[slot] = fromCurrency;
+            toCurrencies[slot] = toCurrency;
+            hops[slot] = table.getHops(fromCurrency, toCurrency);
+            intermediates[slot] = table.getIntermediates(fromCurrency, toCurrency, MAX_INTERMEDIATES);
+            rates[slot] = rate;
+            amounts[slot] = amount;
+            results[slot] = result;
+            indexes[slot] = table.getIndex();
+        }
+    }
+
+    /**
+     * @return the number of conversions recorded since this tracer was
+     * created, including the ones that have since been overwritten
+     */
+    public synchronized long getRecordedCount() {
+        return sequence;
+    }
+
+    /**
+     * @return the recorded conversions still in the buffer, oldest first
+     */
+    public synchronized List<ConversionEvent> getEvents() {
+        var last = sequence;
+        var first = Math.max(1, last - capacity + 1);
+        var events = new ArrayList<ConversionEvent>((int) (last - first + 1));
+
+        for (long eventSequence = first; eventSequence <= last; eventSequence++) {
+            var slot = (int) ((eventSequence - 1) % capacity);
+            var index = indexes[slot];
+            var route = new ArrayList<Currency>();
+            route.add(index.currencyOf(fromCurrencies[slot]));
+
+            for (int i = 0; i < Math.min(hops[slot] - 1, MAX_INTERMEDIATES); i++) {
+                route.add(index.currencyOf((int) ((intermediates[slot] >>> (16 * i)) & 0xFFFF)));
+            }
+
+            route.add(index.currencyOf(toCurrencies[slot]));
+
+            events.add(new ConversionEvent(Instant.ofEpochMilli(timestamps[slot]), route,
+                    hops[slot] - 1 > MAX_INTERMEDIATES, rates[slot], amounts[slot], results[slot]));
+        }
+
+        return events;
+    }
+
+    /**
+     * Writes the recorded conversions, oldest first and one per line, to
+     * {@code out}.
+     */
+    public void dump(Appendable out) {
+        try {
+            for (var event : getEvents()) {
+                out.append(event.toString()).append(System.lineSeparator());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes the recorded conversions, oldest first and one per line, to
+     * {@code file}, replacing it.
+     */
+    public void dump(Path file) throws IOException {
+        try (var out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            dump(out);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * A recorded conversion.
+     *
+     * @param timestamp when the conversion was done
+     * @param route the currencies the amount was converted through, starting
+     * with the source currency and ending with the target currency
+     * @param truncated whether intermediate currencies were left out of
+     * {@code route} because it was longer than could be recorded
+     * @param rate the cross rate of the route
+     * @param amount the amount converted
+     * @param result the converted amount
+     */
+    public record ConversionEvent(Instant timestamp, List<Currency> route,
+            boolean truncated, BigDecimal rate, BigDecimal amount,
+            BigDecimal result) {
+
+        @Override
+        public String toString() {
+            var path = new StringBuilder();
+
+            for (int i = 0; i < route.size(); i++) {
+                path.append(i > 0 ? (truncated && i == route.size() - 1 ? " ... " : " -> ") : "")
+                        .append(route.get(i).getCurrencyCode());
+            }
+
+            return String.format("%s %s %s @ %s = %s", timestamp, path, amount, rate, result);
+        }
+    }
+
+}
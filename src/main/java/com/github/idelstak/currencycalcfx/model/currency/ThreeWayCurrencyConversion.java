@@ -25,20 +25,27 @@ package com.github.idelstak.currencycalcfx.model.currency;
 
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * Provides functionality for converting currencies using exchange rates.
  * Supports direct conversions as well as conversions that require an
- * intermediate currency. Exchange rates are represented as a Map of Maps, where
- * the outer map represents the source currency, the inner map represents the
- * target currency, and the value represents the conversion rate.
+ * intermediate currency. Exchange rates are held in a {@link RateBook}, a dense
+ * matrix indexed by the {@link CurrencyIndex} id of the source and target
+ * currencies. A Map of Maps, where the outer map represents the source
+ * currency, the inner map represents the target currency, and the value
+ * represents the conversion rate, is still accepted and copied into a rate
+ * book.
  * <p>
  * Provides a method to convert a given amount from one currency to another. If
  * a direct conversion rate is available, it is used to perform the conversion.
  * If a direct conversion rate is not available, a fallback rate is used, which
- * involves using an intermediate currency.
+ * is the product of the rates along the shortest route through intermediate
+ * currencies. Routes and their rates are precomputed by a
+ * {@link CrossRateTable}, so every pair resolves with a single lookup.
+ * <p>
+ * Conversions are not logged. Every conversion of a single amount is reported
+ * to a {@link ConversionTracer} instead, which does nothing unless tracing has
+ * been enabled.
  * <p>
  * Example usage:
  * <pre>
@@ -69,17 +76,127 @@ import java.util.logging.Logger;
  * }
  * </pre>
  * <p>
+ * A conversion never changes once it has been created: new rates are applied
+ * with {@link #withRate(Currency, Currency, BigDecimal)}, which returns a new
+ * conversion that shares all unaffected data with this one. A conversion can
+ * therefore be used from any thread.
+ * <p>
+ * Cross rates and converted amounts keep the number of significant digits
+ * set by the {@link PrecisionPolicy} of the rate book. Converted amounts are
+ * not rounded to the minor units of their currency here; callers showing an
+ * amount use {@link PrecisionPolicy#roundToMinorUnits(BigDecimal, Currency)}.
+ * <p>
  * Note: The conversion rates are assumed to be accurate and up-to-date.
  */
 public class ThreeWayCurrencyConversion {
 
-    private final Map<Currency, Map<Currency, BigDecimal>> exchangeRates;
+    private final RateBook rateBook;
+    private final CurrencyIndex index;
+    private final CrossRateTable crossRateTable;
+    private final ArithmeticMode arithmeticMode;
+    private final ConversionTracer tracer;
 
     public ThreeWayCurrencyConversion(
             Map<Currency, Map<Currency, BigDecimal>> exchangeRates) {
-        this.exchangeRates = new HashMap<>(exchangeRates);
+        this(toRateBook(exchangeRates));
+    }
+
+    public ThreeWayCurrencyConversion(RateBook rateBook) {
+        this(rateBook, ArithmeticMode.getDefault());
+    }
+
+    public ThreeWayCurrencyConversion(RateBook rateBook,
+            ArithmeticMode arithmeticMode) {
+        this(rateBook, arithmeticMode, ConversionTracer.getDefault());
+    }
+
+    public ThreeWayCurrencyConversion(RateBook rateBook,
+            ArithmeticMode arithmeticMode, ConversionTracer tracer) {
+        this(new CrossRateTable(rateBook), arithmeticMode, tracer);
+    }
+
+    private ThreeWayCurrencyConversion(CrossRateTable crossRateTable,
+            ArithmeticMode arithmeticMode, ConversionTracer tracer) {
+        this.crossRateTable = crossRateTable;
+        this.arithmeticMode = arithmeticMode;
+        this.tracer = tracer;
+        rateBook = crossRateTable.getRateBook();
+        index = rateBook.getIndex();
+    }
+
+    public RateBook getRateBook() {
+        return rateBook;
+    }
+
+    public CrossRateTable getCrossRateTable() {
+        return crossRateTable;
+    }
+
+    public ArithmeticMode getArithmeticMode() {
+        return arithmeticMode;
+    }
+
+    /**
+     * @return the tracer conversions are reported to
+     */
+    public ConversionTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * @return the version of the rate book conversions are done with
+     */
+    public long getVersion() {
+        return rateBook.getVersion();
+    }
+
+    /**
+     * Conversions never change, so a conversion is its own snapshot.
+     *
+     * @return this conversion
+     */
+    public ThreeWayCurrencyConversion snapshot() {
+        return this;
+    }
+
+    /**
+     * @return a conversion with the direct quote from {@code baseCurrency} to
+     * {@code quoteCurrency} set to {@code rate}, in which only the routes and
+     * cross rates that depend on that quote have been recomputed
+     */
+    public ThreeWayCurrencyConversion withRate(Currency baseCurrency,
+            Currency quoteCurrency, BigDecimal rate) {
+        return withRates(new int[]{rateBook.requireId(baseCurrency)},
+                new int[]{rateBook.requireId(quoteCurrency)}, new BigDecimal[]{rate});
+    }
+
+    /**
+     * @return a conversion with the direct quotes from
+     * {@code baseCurrencies[i]} to {@code quoteCurrencies[i]} set to
+     * {@code rates[i]}, published together as one new rate book version
+     */
+    public ThreeWayCurrencyConversion withRates(int[] baseCurrencies,
+            int[] quoteCurrencies, BigDecimal[] rates) {
+        var newRateBook = rateBook.withRates(baseCurrencies, quoteCurrencies, rates);
+        var newCrossRateTable = crossRateTable.withRateBook(newRateBook, baseCurrencies, quoteCurrencies);
+
+        return new ThreeWayCurrencyConversion(newCrossRateTable, arithmeticMode, tracer);
+    }
+
+    /**
+     * @return a conversion with the quotes from {@code baseCurrencies[i]} to
+     * {@code quoteCurrencies[i]} and their reciprocals set, as
+     * {@link RateBook#withQuotes(int[], int[], BigDecimal[])} does
+     */
+    public ThreeWayCurrencyConversion withQuotes(int[] baseCurrencies,
+            int[] quoteCurrencies, BigDecimal[] rates) {
+        var newRateBook = rateBook.withQuotes(baseCurrencies, quoteCurrencies, rates);
+        var newCrossRateTable = crossRateTable.withRateBook(newRateBook,
+                RateBook.bothWays(baseCurrencies, quoteCurrencies),
+                RateBook.bothWays(quoteCurrencies, baseCurrencies));
+
+        return new ThreeWayCurrencyConversion(newCrossRateTable, arithmeticMode, tracer);
     }
-    private static final Logger LOG = Logger.getLogger(ThreeWayCurrencyConversion.class.getName());
 
     public BigDecimal convert(Currency fromCurrency, Currency toCurrency,
             BigDecimal amount) {
@@ -89,45 +206,226 @@ public class ThreeWayCurrencyConversion {
             return amount;
         }
 
-        // Get the conversion rate from the exchange rate map
-        BigDecimal conversionRate = exchangeRates.get(fromCurrency).get(toCurrency);
+        return convert(rateBook.requireId(fromCurrency), rateBook.requireId(toCurrency), amount);
+    }
+
+    /**
+     * Converts an amount between two currencies identified by their
+     * {@link CurrencyIndex} ids. This is the fast path used by
+     * {@link #convert(Currency, Currency, BigDecimal)}; callers that convert
+     * many amounts should resolve the ids once and call this method directly.
+     *
+     * @param fromCurrency the id of the currency the amount is in
+     * @param toCurrency the id of the currency to convert to
+     * @param amount the amount to convert
+     * @return the converted amount
+     * @throws NoSuchElementException if the currencies are not connected by
+     * any route
+     */
+    public BigDecimal convert(int fromCurrency, int toCurrency,
+            BigDecimal amount) {
+        if (fromCurrency == toCurrency) {
+            return amount;
+        }
+
+        // Get the precomputed rate along the route between the two currencies
+        BigDecimal conversionRate = crossRateTable.getCrossRate(fromCurrency, toCurrency);
 
-        // If there is no direct conversion rate, use a fallback rate involving an intermediate currency
         if (conversionRate == null) {
-            // Get the rates for the source currency
-            Map<Currency, BigDecimal> fromCurrencyRates = exchangeRates.get(fromCurrency);
+            throw new NoSuchElementException(String.format("No conversion rate available for %s -> %s",
+                    index.currencyOf(fromCurrency), index.currencyOf(toCurrency)));
+        }
+
+        BigDecimal result = arithmeticMode.convert(amount, conversionRate, rateBook.getPrecisionPolicy().getAmountContext());
+
+        tracer.conversionDone(crossRateTable, fromCurrency, toCurrency, conversionRate, amount, result);
+
+        return result;
+    }
+
+    /**
+     * Converts an unscaled amount with {@link FixedPointDecimal}, without
+     * allocating. The rate is the packed cross rate of the route between the
+     * two currencies, so the result is the same as the one of
+     * {@link ArithmeticMode#FIXED_POINT} rounded to {@code resultScale}.
+     *
+     * @param fromCurrency the id of the currency the amount is in
+     * @param toCurrency the id of the currency to convert to
+     * @param amount the unscaled amount to convert
+     * @param amountScale the scale of {@code amount}
+     * @param resultScale the scale of the result
+     * @return the unscaled converted amount, rounded {@code HALF_UP}
+     * @throws NoSuchElementException if the currencies are not connected by
+     * any route
+     * @throws ArithmeticException if the rate or the result does not fit a
+     * {@code long}
+     */
+    public long convert(int fromCurrency, int toCurrency, long amount,
+            int amountScale, int resultScale) {
+        long conversionRate = fromCurrency == toCurrency
+                ? FixedPointDecimal.packRate(1, 0)
+                : crossRateTable.getFixedCrossRate(fromCurrency, toCurrency);
+
+        if (conversionRate == FixedPointDecimal.NO_RATE) {
+            if (crossRateTable.getCrossRate(fromCurrency, toCurrency) != null) {
+                throw new ArithmeticException(String.format("Rate for %s -> %s does not fit a long",
+                        index.currencyOf(fromCurrency), index.currencyOf(toCurrency)));
+            }
+            throw new NoSuchElementException(String.format("No conversion rate available for %s -> %s",
+                    index.currencyOf(fromCurrency), index.currencyOf(toCurrency)));
+        }
 
-            LOG.log(Level.INFO, "No direct conversion rate available for {0} -> {1}, using fallback rate",
-                    new Object[]{fromCurrency, toCurrency});
+        return FixedPointDecimal.convert(amount, amountScale, conversionRate, resultScale);
+    }
 
-            // Use the first available intermediate currency and rate as the fallback
-            Map.Entry<Currency, BigDecimal> fallbackEntry = fromCurrencyRates.entrySet().stream().findFirst().orElseThrow();
+    /**
+     * Converts a batch of amounts held in parallel arrays: element {@code i}
+     * of {@code amounts} is converted from {@code fromCurrencies[i]} to
+     * {@code toCurrencies[i]} and written to {@code results[i]}.
+     * <p>
+     * Rates are not resolved per element: every pair is a single lookup in
+     * the precomputed {@link CrossRateTable}, and the last pair is reused as
+     * long as consecutive elements share it. Nothing is logged per element.
+     *
+     * @param fromCurrencies the {@link CurrencyIndex} ids of the currencies
+     * the amounts are in
+     * @param toCurrencies the ids of the currencies to convert to
+     * @param amounts the amounts to convert
+     * @param results receives the converted amounts
+     * @throws NoSuchElementException if a pair is not connected by any route
+     */
+    public void convert(int[] fromCurrencies, int[] toCurrencies,
+            BigDecimal[] amounts, BigDecimal[] results) {
+        checkBatch(fromCurrencies.length, toCurrencies.length, amounts.length, results.length);
+        convert(fromCurrencies, toCurrencies, amounts, results, 0, amounts.length);
+    }
 
-            // Convert the amount to the intermediate currency using the fallback rate
-            BigDecimal convertedAmount = fallbackEntry.getValue().multiply(amount);
+    /**
+     * Converts the elements {@code offset} to {@code offset + length} of a
+     * batch, as {@link #convert(int[], int[], BigDecimal[], BigDecimal[])}
+     * does for a whole batch.
+     */
+    public void convert(int[] fromCurrencies, int[] toCurrencies,
+            BigDecimal[] amounts, BigDecimal[] results, int offset, int length) {
+        var amountContext = rateBook.getPrecisionPolicy().getAmountContext();
+        var lastFromCurrency = -1;
+        var lastToCurrency = -1;
+        BigDecimal conversionRate = null;
 
-            // Get the rates for the intermediate currency
-            Map<Currency, BigDecimal> fallbackRates = exchangeRates.get(fallbackEntry.getKey());
+        for (int i = offset, end = offset + length; i < end; i++) {
+            var fromCurrency = fromCurrencies[i];
+            var toCurrency = toCurrencies[i];
 
-            LOG.log(Level.INFO, "Fallback conversion rate used: {0} {1} = {2} {3}",
-                    new Object[]{fromCurrency, amount, toCurrency, convertedAmount});
+            if (fromCurrency != lastFromCurrency || toCurrency != lastToCurrency) {
+                conversionRate = fromCurrency == toCurrency
+                        ? null
+                        : requireCrossRate(fromCurrency, toCurrency, i);
+                lastFromCurrency = fromCurrency;
+                lastToCurrency = toCurrency;
+            }
 
-            // Calculate the final amount using the conversion rate from the intermediate currency to the target currency
-            return fallbackRates.get(toCurrency).multiply(convertedAmount);
+            results[i] = conversionRate != null
+                    ? arithmeticMode.convert(amounts[i], conversionRate, amountContext)
+                    : amounts[i];
         }
+    }
 
-        // If there is a direct conversion rate, use it to calculate the final amount
-        BigDecimal result = amount.multiply(conversionRate);
+    /**
+     * Converts a batch of unscaled amounts with {@link FixedPointDecimal},
+     * without allocating. Element {@code i} of {@code amounts} is converted
+     * from {@code fromCurrencies[i]} to {@code toCurrencies[i]} and written to
+     * {@code results[i]}.
+     *
+     * @param fromCurrencies the {@link CurrencyIndex} ids of the currencies
+     * the amounts are in
+     * @param toCurrencies the ids of the currencies to convert to
+     * @param amounts the unscaled amounts to convert
+     * @param amountScale the scale of every amount
+     * @param results receives the unscaled converted amounts
+     * @param resultScale the scale of every result
+     * @throws NoSuchElementException if a pair is not connected by any route
+     * @throws ArithmeticException if a rate or a result does not fit a
+     * {@code long}
+     */
+    public void convert(int[] fromCurrencies, int[] toCurrencies,
+            long[] amounts, int amountScale, long[] results, int resultScale) {
+        checkBatch(fromCurrencies.length, toCurrencies.length, amounts.length, results.length);
+        convert(fromCurrencies, toCurrencies, amounts, amountScale, results, resultScale, 0, amounts.length);
+    }
 
-        LOG.log(Level.INFO, "Conversion rate used: {0} {1} = {2} {3}",
-                new Object[]{fromCurrency, amount, toCurrency, result});
+    /**
+     * Converts the elements {@code offset} to {@code offset + length} of a
+     * batch, as
+     * {@link #convert(int[], int[], long[], int, long[], int)} does for a
+     * whole batch.
+     */
+    public void convert(int[] fromCurrencies, int[] toCurrencies,
+            long[] amounts, int amountScale, long[] results, int resultScale,
+            int offset, int length) {
+        var lastFromCurrency = -1;
+        var lastToCurrency = -1;
+        var conversionRate = FixedPointDecimal.NO_RATE;
 
-        return result;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            var fromCurrency = fromCurrencies[i];
+            var toCurrency = toCurrencies[i];
+
+            if (fromCurrency != lastFromCurrency || toCurrency != lastToCurrency) {
+                conversionRate = fromCurrency == toCurrency
+                        ? FixedPointDecimal.packRate(1, 0)
+                        : crossRateTable.getFixedCrossRate(fromCurrency, toCurrency);
+
+                if (conversionRate == FixedPointDecimal.NO_RATE) {
+                    requireCrossRate(fromCurrency, toCurrency, i);
+                    throw new ArithmeticException(String.format("Rate for %s -> %s at index %d does not fit a long",
+                            index.currencyOf(fromCurrency), index.currencyOf(toCurrency), i));
+                }
+
+                lastFromCurrency = fromCurrency;
+                lastToCurrency = toCurrency;
+            }
+
+            results[i] = FixedPointDecimal.convert(amounts[i], amountScale, conversionRate, resultScale);
+        }
+    }
+
+    private BigDecimal requireCrossRate(int fromCurrency, int toCurrency,
+            int element) {
+        var conversionRate = crossRateTable.getCrossRate(fromCurrency, toCurrency);
+
+        if (conversionRate == null) {
+            throw new NoSuchElementException(String.format("No conversion rate available for %s -> %s at index %d",
+                    index.currencyOf(fromCurrency), index.currencyOf(toCurrency), element));
+        }
+
+        return conversionRate;
+    }
+
+    private static void checkBatch(int fromCurrencies, int toCurrencies,
+            int amounts, int results) {
+        if (fromCurrencies != amounts || toCurrencies != amounts || results < amounts) {
+            throw new IllegalArgumentException(String.format(
+                    "Batch arrays differ in length: %d from currencies, %d to currencies, %d amounts, %d results",
+                    fromCurrencies, toCurrencies, amounts, results));
+        }
+    }
+
+    private static RateBook toRateBook(
+            Map<Currency, Map<Currency, BigDecimal>> exchangeRates) {
+        var rateBook = new RateBook();
+
+        for (var fromCurrencyRates : exchangeRates.entrySet()) {
+            for (var rate : fromCurrencyRates.getValue().entrySet()) {
+                rateBook = rateBook.withRate(fromCurrencyRates.getKey(), rate.getKey(), rate.getValue());
+            }
+        }
+
+        return rateBook;
     }
 
     @Override
     public String toString() {
-        return "ThreeWayCurrencyConversion{" + "rates=" + exchangeRates + '}';
+        return "ThreeWayCurrencyConversion{" + "rates=" + rateBook + '}';
     }
 
 }
@@ -24,6 +24,7 @@
 package com.github.idelstak.currencycalcfx.module;
 
 import com.github.idelstak.currencycalcfx.controller.*;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
@@ -34,10 +35,12 @@ public class CurrencyCalcFxControllerProvider implements
     private ThreeWayCurrencyExchangeController threeWayCurrencyExchangeController;
     @Inject
     private BidController bidController;
+    @Inject
+    private ConversionModel conversionModel;
 
     @Override
     public CurrencyCalcFxController get() {
-        return new CurrencyCalcFxController(threeWayCurrencyExchangeController, bidController);
+        return new CurrencyCalcFxController(threeWayCurrencyExchangeController, bidController, conversionModel);
     }
 
 }
@@ -25,8 +25,15 @@ package com.github.idelstak.currencycalcfx.module;
 
 import com.github.idelstak.currencycalcfx.controller.*;
 import com.github.idelstak.currencycalcfx.model.*;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.provider.RateProvider;
+import com.github.idelstak.currencycalcfx.store.RateBookSnapshotter;
+import com.github.idelstak.currencycalcfx.store.RateHistoryRecorder;
 import com.github.idelstak.currencycalcfx.view.*;
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import java.util.Set;
 
 /**
  * This is a Guice module implementation that provides a way to configure and
@@ -48,8 +55,22 @@ import com.google.inject.AbstractModule;
  * ThreeWayCurrencyExchangeControllerProvider
  * <li> BidController bound to an instance of BidController created with a Bid
  * object and a BidPane object
+ * <li> ConversionModel bound to a single instance, shared for the lifetime of
+ * the application
+ * <li> RateBookSnapshotter bound to RateBookSnapshotterProvider, as a single
+ * instance saving that ConversionModel
+ * <li> RateHistoryRecorder bound to RateHistoryRecorderProvider, as a single
+ * instance recording the rates published to that ConversionModel
+ * <li> a set of RateProvider bound to RateProvidersProvider, as a single
+ * set holding the DirectoryRateProvider when it is configured, the
+ * TickFeedSimulator when it is configured, and the providers found with
+ * ServiceLoader
  * <li> CurrencyCalcFxController bound to CurrencyCalcFxControllerProvider
  * </ul>
+ * Configuring the module does no I/O and creates none of them: snapshots are
+ * restored, the rate history is opened and the rate providers are loaded when
+ * the application starts and first asks for them.
+ * <p>
  * By defining these bindings, this module specifies the dependencies of the
  * CurrencyCalcFX application and configures Guice to provide instances of these
  * dependencies when needed.
@@ -65,6 +86,13 @@ public class CurrencyCalcFxModule extends AbstractModule {
         bind(CurrencyExchangeController.class).toProvider(CurrencyExchangeControllerProvider.class);
         bind(ThreeWayCurrencyExchangeController.class).toProvider(ThreeWayCurrencyExchangeControllerProvider.class);
         bind(BidController.class).toInstance(new BidController(new Bid(), new BidPane()));
+
+        bind(ConversionModel.class).in(Singleton.class);
+        bind(RateBookSnapshotter.class).toProvider(RateBookSnapshotterProvider.class).in(Singleton.class);
+        bind(RateHistoryRecorder.class).toProvider(RateHistoryRecorderProvider.class).in(Singleton.class);
+
+        bind(new TypeLiteral<Set<RateProvider>>() {}).toProvider(RateProvidersProvider.class).in(Singleton.class);
+
         bind(CurrencyCalcFxController.class).toProvider(CurrencyCalcFxControllerProvider.class);
     }
 
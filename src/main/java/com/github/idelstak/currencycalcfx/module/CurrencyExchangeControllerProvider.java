@@ -26,6 +26,7 @@ package com.github.idelstak.currencycalcfx.module;
 import com.github.idelstak.currencycalcfx.controller.CurrencyExchangeController;
 import com.github.idelstak.currencycalcfx.model.Currencies;
 import com.github.idelstak.currencycalcfx.model.CurrencyExchange;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
 import com.github.idelstak.currencycalcfx.view.CurrencyExchangePane;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -39,10 +40,12 @@ public class CurrencyExchangeControllerProvider implements
     private CurrencyExchange currencyExchange;
     @Inject
     private CurrencyExchangePane currencyExchangePane;
+    @Inject
+    private ConversionModel conversionModel;
 
     @Override
     public CurrencyExchangeController get() {
-        return new CurrencyExchangeController(currencies, currencyExchange, currencyExchangePane);
+        return new CurrencyExchangeController(currencies, currencyExchange, currencyExchangePane, conversionModel);
     }
 
 }
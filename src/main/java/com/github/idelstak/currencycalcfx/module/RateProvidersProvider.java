@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.module;
+
+import com.github.idelstak.currencycalcfx.provider.DirectoryRateProvider;
+import com.github.idelstak.currencycalcfx.provider.RateProvider;
+import com.github.idelstak.currencycalcfx.provider.TickFeedSimulator;
+import com.google.inject.Provider;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the rate providers when the application first asks for them, rather
+ * than when the module is configured. A provider from
+ * {@link ServiceLoader} that can not be created is logged and left out, so
+ * it does not keep the others from starting.
+ */
+public class RateProvidersProvider implements Provider<Set<RateProvider>> {
+
+    private static final Logger LOG = Logger.getLogger(RateProvidersProvider.class.getName());
+
+    @Override
+    public Set<RateProvider> get() {
+        var rateProviders = new LinkedHashSet<RateProvider>();
+        DirectoryRateProvider.getDefault().ifPresent(rateProviders::add);
+        TickFeedSimulator.getDefault().ifPresent(rateProviders::add);
+
+        var loaded = ServiceLoader.load(RateProvider.class).iterator();
+
+        while (true) {
+            try {
+                if (!loaded.hasNext()) {
+                    break;
+                }
+
+                rateProviders.add(loaded.next());
+            } catch (ServiceConfigurationError ex) {
+                LOG.log(Level.WARNING, "Failed to load a rate provider", ex);
+            }
+        }
+
+        return Collections.unmodifiableSet(rateProviders);
+    }
+
+}
@@ -0,0 +1,335 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.provider;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.store.RateFileLoader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Publishes the quotes of the rate files of a directory and keeps them
+ * current as files are added, changed and removed.
+ * <p>
+ * Every file of the directory is read by {@link RateFileLoader}, so it may be
+ * CSV or binary; hidden files and files ending in {@code .tmp} are ignored,
+ * which lets writers replace a file atomically by moving a temporary file
+ * over it. A {@link WatchService} reports changes, which are collected until
+ * the directory has been quiet for the settle delay, so a file written in
+ * several steps is read once.
+ * <p>
+ * Reloads are incremental: the quotes of a changed file are compared with
+ * the ones last read from it, and only the quotes that were added, changed or
+ * removed are published, in a single change of the model and in the order
+ * of the files. A quote removed from a file, or the quotes of a deleted file,
+ * are removed from the model unless another file still quotes the pair, in
+ * either direction. A file that can not be read, or that holds a quote that
+ * can not be published, is logged and its previous quotes are kept.
+ * <p>
+ * The provider used by default watches the directory named by the
+ * {@value #DIRECTORY_PROPERTY} system property, and none if it is not set.
+ */
+public class DirectoryRateProvider implements RateProvider {
+
+    public static final String DIRECTORY_PROPERTY = "currencycalcfx.rates.dir";
+    public static final Duration DEFAULT_SETTLE_DELAY = Duration.ofMillis(100);
+
+    private static final Logger LOG = Logger.getLogger(DirectoryRateProvider.class.getName());
+
+    private final Path directory;
+    private final Duration settleDelay;
+    private final Map<Path, Map<Integer, BigDecimal>> quotesByFile;
+    private ConversionModel conversionModel;
+    private RateFileLoader loader;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public DirectoryRateProvider(Path directory) {
+        this(directory, DEFAULT_SETTLE_DELAY);
+    }
+
+    public DirectoryRateProvider(Path directory, Duration settleDelay) {
+        this.directory = directory;
+        this.settleDelay = settleDelay;
+        quotesByFile = new HashMap<>();
+    }
+
+    /**
+     * @return a provider of the directory named by the
+     * {@value #DIRECTORY_PROPERTY} system property, if it is set
+     */
+    public static Optional<DirectoryRateProvider> getDefault() {
+        return Optional.ofNullable(System.getProperty(DIRECTORY_PROPERTY))
+                .filter(directory -> !directory.isBlank())
+                .map(directory -> new DirectoryRateProvider(Path.of(directory)));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Publishes the quotes of every file of the directory and starts watching
+     * it on a background thread.
+     */
+    @Override
+    public synchronized void start(ConversionModel conversionModel) throws IOException {
+        if (this.conversionModel != null) {
+            throw new IllegalStateException("Rate provider already started: " + directory);
+        }
+
+        this.conversionModel = conversionModel;
+        loader = new RateFileLoader(conversionModel.getIndex());
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        reload(listFiles());
+
+        watcher = new Thread(this::watch, "directory-rate-provider");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public void close() {
+        Thread stopped;
+
+        synchronized (this) {
+            if (watchService == null) {
+                return;
+            }
+
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Failed to stop watching " + directory, ex);
+            }
+
+            stopped = watcher;
+        }
+
+        try {
+            stopped.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                var key = watchService.take();
+                var changed = new LinkedHashSet<Path>();
+                var overflow = false;
+
+                // Collect changes until the directory settles
+                while (key != null) {
+                    for (var event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (isRateFile((Path) event.context())) {
+                            changed.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+
+                    key.reset();
+                    key = watchService.poll(settleDelay.toMillis(), TimeUnit.MILLISECONDS);
+                }
+
+                if (overflow) {
+                    changed.addAll(listFiles());
+                    synchronized (this) {
+                        changed.addAll(quotesByFile.keySet());
+                    }
+                }
+
+                reload(changed);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ex) {
+            // Closed
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Stopped watching " + directory, ex);
+        }
+    }
+
+    /**
+     * Reads the files and publishes the quotes that changed in one change of
+     * the model, in the order of the files.
+     */
+    private synchronized void reload(Set<Path> files) {
+        var changes = new LinkedHashMap<Integer, BigDecimal>();
+
+        for (var file : files) {
+            Map<Integer, BigDecimal> loaded;
+
+            try {
+                loaded = load(file);
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Keeping previous quotes of unreadable rate file " + file, ex);
+                continue;
+            }
+
+            var previous = loaded.isEmpty()
+                    ? quotesByFile.remove(file)
+                    : quotesByFile.put(file, loaded);
+
+            for (var quote : loaded.entrySet()) {
+                if (previous == null || !quote.getValue().equals(previous.get(quote.getKey()))) {
+                    changes.put(quote.getKey(), quote.getValue());
+                }
+            }
+
+            if (previous != null) {
+                for (var pair : previous.keySet()) {
+                    if (!loaded.containsKey(pair)) {
+                        removeQuote(changes, pair);
+                    }
+                }
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        var size = conversionModel.getIndex().size();
+        var bases = new int[changes.size()];
+        var quotes = new int[changes.size()];
+        var rates = new BigDecimal[changes.size()];
+        var i = 0;
+
+        for (var change : changes.entrySet()) {
+            bases[i] = change.getKey() / size;
+            quotes[i] = change.getKey() % size;
+            rates[i++] = change.getValue();
+        }
+
+        try {
+            conversionModel.publishQuotes(bases, quotes, rates);
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Failed to publish the quotes of " + files, ex);
+        }
+    }
+
+    /**
+     * @return the quotes of the file, none if it is gone
+     * @throws IllegalArgumentException if a quote can not be published
+     */
+    private Map<Integer, BigDecimal> load(Path file) throws IOException {
+        var loaded = new HashMap<Integer, BigDecimal>();
+
+        if (!Files.isRegularFile(file)) {
+            return loaded;
+        }
+
+        var sheet = loader.load(file);
+
+        for (int i = 0; i < sheet.size(); i++) {
+            var base = sheet.baseCurrencies()[i];
+            var quote = sheet.quoteCurrencies()[i];
+            var rate = sheet.rates()[i];
+
+            if (base == quote || rate.signum() <= 0) {
+                throw new IllegalArgumentException(String.format("Quote %d: invalid rate %s from %s to %s",
+                        i + 1, rate, conversionModel.getIndex().currencyOf(base), conversionModel.getIndex().currencyOf(quote)));
+            }
+
+            loaded.put(pairKey(base, quote), rate);
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Removes the quote of the pair no longer quoted by a file, falling back
+     * to another file that quotes the pair in either direction: since a
+     * quote is published with its reciprocal, removing the pair would also
+     * remove the reverse quote of the other file.
+     */
+    private void removeQuote(Map<Integer, BigDecimal> changes, int pair) {
+        var rate = quoteFromAnyFile(pair);
+        var reverse = reversePair(pair);
+        var reverseRate = rate == null ? quoteFromAnyFile(reverse) : null;
+
+        if (reverseRate != null) {
+            changes.remove(pair);
+            changes.remove(reverse);
+            changes.put(reverse, reverseRate);
+        } else {
+            changes.put(pair, rate);
+        }
+    }
+
+    private BigDecimal quoteFromAnyFile(int pair) {
+        for (var quotes : quotesByFile.values()) {
+            var rate = quotes.get(pair);
+
+            if (rate != null) {
+                return rate;
+            }
+        }
+
+        return null;
+    }
+
+    private Set<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> isRateFile(file.getFileName()) && Files.isRegularFile(file))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    }
+
+    private static boolean isRateFile(Path fileName) {
+        var name = fileName.toString();
+        return !name.startsWith(".") && !name.endsWith(".tmp");
+    }
+
+    private int pairKey(int baseCurrency, int quoteCurrency) {
+        return baseCurrency * conversionModel.getIndex().size() + quoteCurrency;
+    }
+
+    private int reversePair(int pair) {
+        var size = conversionModel.getIndex().size();
+        return pairKey(pair % size, pair / size);
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.provider;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import java.io.IOException;
+
+/**
+ * A source of exchange rates that pushes quotes into a
+ * {@link ConversionModel} on its own threads, outside the JavaFX application
+ * thread.
+ * <p>
+ * Providers are bound by the
+ * {@link com.github.idelstak.currencycalcfx.module.CurrencyCalcFxModule}:
+ * the {@link DirectoryRateProvider} when it is configured, the
+ * {@link TickFeedSimulator} when it is configured, and every provider listed
+ * in a {@code META-INF/services/com.github.idelstak.currencycalcfx.provider.RateProvider}
+ * file on the class path, found with {@link java.util.ServiceLoader}. They
+ * are created when the application starts, which starts them once the model
+ * is ready and closes them on exit.
+ */
+public interface RateProvider extends AutoCloseable {
+
+    /**
+     * Starts publishing quotes to {@code conversionModel}, until the provider
+     * is closed. A provider is started at most once.
+     *
+     * @throws IOException if the source of the rates can not be opened
+     */
+    void start(ConversionModel conversionModel) throws IOException;
+
+    /**
+     * Stops publishing quotes and releases the source of the rates.
+     */
+    @Override
+    void close();
+
+}
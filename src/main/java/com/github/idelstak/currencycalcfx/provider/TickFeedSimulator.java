@@ -0,0 +1,418 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.provider;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates synthetic quotes for load testing, as a random walk of the rate
+ * of each pair, at a fixed number of ticks per second.
+ * <p>
+ * Ticks are published through a {@link SubmissionPublisher} to a subscriber
+ * that puts each one in the {@link ConversionModel} and requests the next one
+ * only then, so the model pulls ticks no faster than it absorbs them. Ticks
+ * that do not fit in the subscriber's buffer are waited on for the offer
+ * timeout, which slows the generator down, and dropped after it; a zero
+ * timeout drops them at once. Lag is measured from the time a tick was due
+ * to the time it was published, so it includes both the generator falling
+ * behind its schedule and ticks waiting in the buffer, and is kept with the
+ * counts of generated, delivered and dropped ticks in the
+ * {@link #getStatistics() statistics}.
+ * <p>
+ * The simulator used by default runs when the {@value #TICKS_PER_SECOND_PROPERTY}
+ * system property is set, for the pairs listed in the
+ * {@value #PAIRS_PROPERTY} property, e.g. {@code USD/KES,KES/UGX}. A pair
+ * starts from its rate in the model, or from {@code 1}.
+ */
+public class TickFeedSimulator implements RateProvider {
+
+    public static final String TICKS_PER_SECOND_PROPERTY = "currencycalcfx.ticks.per-second";
+    public static final String PAIRS_PROPERTY = "currencycalcfx.ticks.pairs";
+    public static final String DEFAULT_PAIRS = "USD/KES,USD/UGX,KES/UGX";
+    public static final double DEFAULT_VOLATILITY = 0.0005;
+    public static final int DEFAULT_BUFFER_CAPACITY = 256;
+
+    private static final Logger LOG = Logger.getLogger(TickFeedSimulator.class.getName());
+    private static final MathContext RATE_CONTEXT = new MathContext(8);
+
+    private final List<Pair> pairs;
+    private final double ticksPerSecond;
+    private final double volatility;
+    private final int bufferCapacity;
+    private final Duration offerTimeout;
+    private final long seed;
+    private final LongAdder generated;
+    private final LongAdder delivered;
+    private final LongAdder dropped;
+    private final LagHistogram lag;
+    private ExecutorService executor;
+    private SubmissionPublisher<Tick> publisher;
+    private Thread generator;
+    private volatile boolean running;
+
+    public TickFeedSimulator(List<Pair> pairs, double ticksPerSecond) {
+        this(pairs, ticksPerSecond, DEFAULT_VOLATILITY, DEFAULT_BUFFER_CAPACITY, Duration.ZERO, System.nanoTime());
+    }
+
+    private TickFeedSimulator(List<Pair> pairs, double ticksPerSecond,
+            double volatility, int bufferCapacity, Duration offerTimeout, long seed) {
+        if (pairs.isEmpty() || !(ticksPerSecond > 0)) {
+            throw new IllegalArgumentException("Need at least one pair and a positive tick rate");
+        }
+
+        this.pairs = List.copyOf(pairs);
+        this.ticksPerSecond = ticksPerSecond;
+        this.volatility = volatility;
+        this.bufferCapacity = bufferCapacity;
+        this.offerTimeout = offerTimeout;
+        this.seed = seed;
+        generated = new LongAdder();
+        delivered = new LongAdder();
+        dropped = new LongAdder();
+        lag = new LagHistogram();
+    }
+
+    /**
+     * @return a simulator configured by the {@value #TICKS_PER_SECOND_PROPERTY}
+     * and {@value #PAIRS_PROPERTY} system properties, if the tick rate is set
+     */
+    public static Optional<TickFeedSimulator> getDefault() {
+        var ticksPerSecond = Double.parseDouble(System.getProperty(TICKS_PER_SECOND_PROPERTY, "0"));
+
+        if (!(ticksPerSecond > 0)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new TickFeedSimulator(
+                Pair.parseAll(System.getProperty(PAIRS_PROPERTY, DEFAULT_PAIRS)), ticksPerSecond));
+    }
+
+    /**
+     * @return a copy moving each rate by a factor of {@code exp(volatility * g)}
+     * per tick, where {@code g} is normally distributed
+     */
+    public TickFeedSimulator withVolatility(double volatility) {
+        return new TickFeedSimulator(pairs, ticksPerSecond, volatility, bufferCapacity, offerTimeout, seed);
+    }
+
+    /**
+     * @return a copy buffering at most {@code bufferCapacity} ticks, rounded up
+     * to a power of two, ahead of the model
+     */
+    public TickFeedSimulator withBufferCapacity(int bufferCapacity) {
+        return new TickFeedSimulator(pairs, ticksPerSecond, volatility, bufferCapacity, offerTimeout, seed);
+    }
+
+    /**
+     * @return a copy waiting up to {@code offerTimeout} for room in the buffer
+     * before dropping a tick
+     */
+    public TickFeedSimulator withOfferTimeout(Duration offerTimeout) {
+        return new TickFeedSimulator(pairs, ticksPerSecond, volatility, bufferCapacity, offerTimeout, seed);
+    }
+
+    /**
+     * @return a copy generating the same walk on every run
+     */
+    public TickFeedSimulator withSeed(long seed) {
+        return new TickFeedSimulator(pairs, ticksPerSecond, volatility, bufferCapacity, offerTimeout, seed);
+    }
+
+    public List<Pair> getPairs() {
+        return pairs;
+    }
+
+    public double getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * Starts generating ticks on a background thread and publishing them to
+     * {@code conversionModel} on another.
+     */
+    @Override
+    public synchronized void start(ConversionModel conversionModel) {
+        if (publisher != null) {
+            throw new IllegalStateException("Tick feed already started");
+        }
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "tick-feed-subscriber");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        publisher.subscribe(new ModelSubscriber(conversionModel));
+
+        running = true;
+        generator = new Thread(() -> generate(conversionModel), "tick-feed-generator");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    /**
+     * Stops generating ticks and waits for the buffered ones to be published.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+
+            running = false;
+        }
+
+        LockSupport.unpark(generator);
+
+        try {
+            generator.join(TimeUnit.SECONDS.toMillis(1));
+            publisher.close();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        LOG.info(() -> "Tick feed stopped: " + getStatistics());
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(generated.sum(), delivered.sum(), dropped.sum(),
+                lag.percentile(0.5), lag.percentile(0.99), lag.max());
+    }
+
+    private void generate(ConversionModel conversionModel) {
+        var index = conversionModel.getIndex();
+        var rateBook = conversionModel.getConversion().getRateBook();
+        var baseCurrencies = new int[pairs.size()];
+        var quoteCurrencies = new int[pairs.size()];
+        var levels = new double[pairs.size()];
+
+        for (int i = 0; i < pairs.size(); i++) {
+            baseCurrencies[i] = index.idOf(pairs.get(i).baseCurrency());
+            quoteCurrencies[i] = index.idOf(pairs.get(i).quoteCurrency());
+            var rate = rateBook.getRate(baseCurrencies[i], quoteCurrencies[i]);
+            levels[i] = rate != null ? rate.doubleValue() : 1;
+        }
+
+        var random = new SplittableRandom(seed);
+        var timeoutNanos = offerTimeout.toNanos();
+        var start = System.nanoTime();
+        long sequence = 0;
+
+        while (running) {
+            var due = start + (long) (sequence * 1e9 / ticksPerSecond);
+            var wait = due - System.nanoTime();
+
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+
+            var pair = (int) (sequence++ % pairs.size());
+            levels[pair] *= Math.exp(volatility * random.nextGaussian());
+            var tick = new Tick(baseCurrencies[pair], quoteCurrencies[pair],
+                    new BigDecimal(levels[pair], RATE_CONTEXT), due);
+
+            generated.increment();
+            publisher.offer(tick, timeoutNanos, TimeUnit.NANOSECONDS, (subscriber, item) -> {
+                dropped.increment();
+                return false;
+            });
+        }
+    }
+
+    /**
+     * A pair whose rate is simulated.
+     */
+    public record Pair(Currency baseCurrency, Currency quoteCurrency) {
+
+        /**
+         * @return the pairs of a list like {@code USD/KES,KES/UGX}
+         */
+        public static List<Pair> parseAll(String pairs) {
+            return Arrays.stream(pairs.split(","))
+                    .map(String::trim)
+                    .filter(pair -> !pair.isEmpty())
+                    .map(Pair::parse)
+                    .toList();
+        }
+
+        private static Pair parse(String pair) {
+            var currencies = pair.split("/");
+
+            if (currencies.length != 2) {
+                throw new IllegalArgumentException("Not a currency pair: \"" + pair + "\"");
+            }
+
+            return new Pair(Currency.getInstance(currencies[0].trim()), Currency.getInstance(currencies[1].trim()));
+        }
+    }
+
+    /**
+     * A generated quote, due to be published at {@code dueNanos} on the
+     * {@link System#nanoTime()} clock.
+     */
+    public record Tick(int baseCurrency, int quoteCurrency, BigDecimal rate, long dueNanos) {
+    }
+
+    /**
+     * What the simulator observed so far; lags are in nanoseconds, within
+     * 1/8 of their value.
+     */
+    public record Statistics(long generated, long delivered, long dropped,
+            long medianLagNanos, long p99LagNanos, long maxLagNanos) {
+
+        public double getDropRatio() {
+            return generated == 0 ? 0 : (double) dropped / generated;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d generated, %d delivered, %d dropped (%.2f%%), lag p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                    generated, delivered, dropped, getDropRatio() * 100,
+                    medianLagNanos / 1e6, p99LagNanos / 1e6, maxLagNanos / 1e6);
+        }
+    }
+
+    private final class ModelSubscriber implements Flow.Subscriber<Tick> {
+
+        private final ConversionModel conversionModel;
+        private Flow.Subscription subscription;
+
+        private ModelSubscriber(ConversionModel conversionModel) {
+            this.conversionModel = conversionModel;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Tick tick) {
+            conversionModel.publishQuotes(new int[]{tick.baseCurrency()},
+                    new int[]{tick.quoteCurrency()}, new BigDecimal[]{tick.rate()});
+            lag.record(System.nanoTime() - tick.dueNanos());
+            delivered.increment();
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            LOG.log(Level.WARNING, "Tick feed failed", throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    /**
+     * Counts values in buckets of eight per power of two, so a percentile is
+     * known within 1/8 of its value without keeping the values.
+     */
+    static final class LagHistogram {
+
+        private static final int SUB_BUCKETS = 8;
+
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private volatile long max;
+
+        void record(long value) {
+            var clamped = Math.max(0, value);
+            counts.incrementAndGet(bucketOf(clamped));
+            total.increment();
+
+            if (clamped > max) {
+                max = clamped;
+            }
+        }
+
+        long max() {
+            return max;
+        }
+
+        /**
+         * @return the highest value of the bucket holding the given fraction
+         * of the recorded values
+         */
+        long percentile(double fraction) {
+            var target = (long) Math.ceil(total.sum() * fraction);
+            long seen = 0;
+
+            for (int bucket = 0; bucket < counts.length(); bucket++) {
+                seen += counts.get(bucket);
+
+                if (seen >= Math.max(1, target)) {
+                    return Math.min(highestValueOf(bucket), max);
+                }
+            }
+
+            return max;
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+
+            var exponent = 63 - Long.numberOfLeadingZeros(value);
+            var subBucket = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+            return (exponent - 2) * SUB_BUCKETS + subBucket;
+        }
+
+        static long highestValueOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+
+            var exponent = bucket / SUB_BUCKETS + 2;
+            var lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 3);
+            return lowest + (1L << (exponent - 3)) - 1;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.provider;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Runs the {@link TickFeedSimulator} against a fresh {@link ConversionModel}
+ * at increasing tick rates, to find the rate at which the model falls
+ * behind.
+ * <p>
+ * Usage:
+ * {@code TickFeedSweep [ticks per second,...] [seconds per step] [pairs]},
+ * e.g. {@code TickFeedSweep 1000,10000,100000 5 USD/KES,KES/UGX}. Each step
+ * prints the delivered rate, the share of dropped ticks and the lag.
+ */
+public class TickFeedSweep {
+
+    public static void main(String[] args) throws InterruptedException {
+        var rates = Arrays.stream((args.length > 0 ? args[0] : "1000,10000,100000,1000000").split(","))
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+        var step = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 5);
+        var pairs = TickFeedSimulator.Pair.parseAll(args.length > 2 ? args[2] : TickFeedSimulator.DEFAULT_PAIRS);
+
+        System.out.printf("%12s %12s %9s %12s %12s %12s%n",
+                "ticks/s", "delivered/s", "dropped", "p50 lag ms", "p99 lag ms", "max lag ms");
+
+        for (var rate : rates) {
+            var simulator = new TickFeedSimulator(pairs, rate);
+            simulator.start(new ConversionModel());
+            Thread.sleep(step.toMillis());
+            simulator.close();
+
+            var statistics = simulator.getStatistics();
+            System.out.printf("%12.0f %12.0f %8.2f%% %12.3f %12.3f %12.3f%n",
+                    rate, statistics.delivered() / (double) step.toSeconds(),
+                    statistics.getDropRatio() * 100, statistics.medianLagNanos() / 1e6,
+                    statistics.p99LagNanos() / 1e6, statistics.maxLagNanos() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.server;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures throughput and tail latency of a running {@link QuoteServer} on
+ * localhost.
+ * <p>
+ * Usage:
+ * {@code QuoteLoadGenerator <url> [clients] [seconds] [warm-up seconds]},
+ * e.g.
+ * {@code QuoteLoadGenerator "http://localhost:8080/convert?from=USD&to=KES&amount=100" 64 30 5}.
+ * Each client sends requests back to back over keep-alive connections; the
+ * latencies of requests completed after the warm-up are reported.
+ * <p>
+ * The load is closed-loop: a client sends its next request only once the
+ * previous one is answered, so a stalled server also stops the requests that
+ * would have waited on it. The reported latencies are therefore service
+ * times, not the response times clients sending at a fixed rate would see;
+ * under a stall they understate the tail (coordinated omission).
+ */
+public class QuoteLoadGenerator {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: QuoteLoadGenerator <url> [clients] [seconds] [warm-up seconds]");
+            System.exit(2);
+        }
+
+        var uri = URI.create(args[0]);
+        var clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        var duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 10);
+        var warmUp = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 2);
+
+        var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        var request = HttpRequest.newBuilder(uri).GET().build();
+        var measureFrom = System.nanoTime() + warmUp.toNanos();
+        var measureUntil = measureFrom + duration.toNanos();
+        var errors = new AtomicLong();
+
+        ExecutorService executor = QuoteServer.newExecutor();
+        var results = new Future<?>[clients];
+        var recorders = new LatencyRecorder[clients];
+
+        for (int c = 0; c < clients; c++) {
+            var recorder = recorders[c] = new LatencyRecorder();
+            results[c] = executor.submit(() -> {
+                long start;
+
+                while ((start = System.nanoTime()) < measureUntil) {
+                    try {
+                        var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception ex) {
+                        errors.incrementAndGet();
+                    }
+
+                    if (start >= measureFrom) {
+                        recorder.record(System.nanoTime() - start);
+                    }
+                }
+
+                return null;
+            });
+        }
+
+        for (var result : results) {
+            result.get();
+        }
+
+        executor.shutdown();
+        report(recorders, duration, errors.get());
+    }
+
+    private static void report(LatencyRecorder[] recorders, Duration duration, long errors) {
+        var latencies = Arrays.stream(recorders)
+                .flatMapToLong(recorder -> Arrays.stream(recorder.latencies, 0, recorder.count))
+                .sorted()
+                .toArray();
+
+        System.out.printf("requests: %d, errors: %d, throughput: %.1f req/s%n",
+                latencies.length, errors, latencies.length / (duration.toNanos() / 1e9));
+
+        if (latencies.length == 0) {
+            return;
+        }
+
+        for (var percentile : PERCENTILES) {
+            var rank = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            System.out.printf("p%s: %.3f ms%n",
+                    BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString(),
+                    latencies[Math.max(rank, 0)] / 1e6);
+        }
+
+        System.out.printf("max: %.3f ms%n", latencies[latencies.length - 1] / 1e6);
+    }
+
+    /**
+     * Latencies of one client, kept in a growing array so recording does not
+     * box.
+     */
+    private static final class LatencyRecorder {
+
+        private long[] latencies = new long[1 << 14];
+        private int count;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+
+            latencies[count++] = nanos;
+        }
+    }
+
+}
@@ -0,0 +1,344 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.server;
+
+import com.github.idelstak.currencycalcfx.model.BidPricing;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionTracer;
+import com.github.idelstak.currencycalcfx.model.currency.RingBufferConversionTracer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves conversions and bid quotes over HTTP with the JDK's built-in
+ * {@link HttpServer}, without the JavaFX UI.
+ * <p>
+ * Requests are handled on virtual threads when the JVM provides them (Java 21
+ * and later) and on a pool of platform threads otherwise. Every response has
+ * a {@code Content-Length}, so clients can keep connections alive and send
+ * many requests over each one. The JDK server writes headers and body
+ * separately, so without {@code -Dsun.net.httpserver.nodelay=true} each
+ * keep-alive response waits out the client's delayed ACK, about 40 ms;
+ * {@link com.github.idelstak.currencycalcfx.HeadlessLaunch} sets it before
+ * creating the server.
+ * <p>
+ * The endpoints take and return {@code text/plain}:
+ * <ul>
+ * <li> {@code GET /convert?from=USD&to=KES&amount=100} returns the converted
+ * amount, rounded to the minor units of {@code to}
+ * <li> {@code POST /convert} converts a batch: one {@code FROM,TO,AMOUNT}
+ * line per conversion in, one result line per conversion out, in the same
+ * order. A line that can not be converted is answered with
+ * {@code ERROR <reason>}.
+ * <li> {@code GET /quote?currency=USD&commissionRate=2.5&bidAmount=100} or
+ * {@code ...&youGetAmount=97.5} returns the priced bid as
+ * {@code currency=USD&commissionRate=2.5&bidAmount=100.00&youGetAmount=97.50}
+ * <li> {@code POST /rates} publishes {@code BASE,QUOTE,RATE} lines, with their
+ * reciprocals, to the {@link ConversionModel} in one change; every rate must
+ * be positive
+ * <li> {@code GET /trace} dumps the conversions recorded by the
+ * {@link RingBufferConversionTracer}, oldest first and one per line, and is
+ * answered with {@code 404} when tracing is disabled
+ * </ul>
+ * Malformed requests are answered with {@code 400}, conversions between
+ * currencies that are not connected with {@code 404}, and methods an endpoint
+ * does not support with {@code 405} and an {@code Allow} header.
+ */
+public class QuoteServer {
+
+    private static final Logger LOG = Logger.getLogger(QuoteServer.class.getName());
+
+    private final ConversionModel conversionModel;
+    private final BidPricing pricing;
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    public QuoteServer(InetSocketAddress address, ConversionModel conversionModel,
+            BidPricing pricing) throws IOException {
+        this.conversionModel = conversionModel;
+        this.pricing = pricing;
+        httpServer = HttpServer.create(address, 0);
+        executor = newExecutor();
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/convert", exchange -> handle(exchange, List.of("GET", "POST"), this::convert));
+        httpServer.createContext("/quote", exchange -> handle(exchange, List.of("GET"), this::quote));
+        httpServer.createContext("/rates", exchange -> handle(exchange, List.of("POST"), this::publishRates));
+        httpServer.createContext("/trace", exchange -> handle(exchange, List.of("GET"), this::trace));
+    }
+
+    /**
+     * @return an executor starting a virtual thread per request if the JVM
+     * supports them, or a pool of platform threads
+     */
+    static ExecutorService newExecutor() {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to {@code delaySeconds} for the
+     * ones being handled.
+     */
+    public void stop(int delaySeconds) {
+        httpServer.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    public ConversionModel getConversionModel() {
+        return conversionModel;
+    }
+
+    private Response convert(HttpExchange exchange) throws IOException {
+        var conversion = conversionModel.getConversion();
+        var precisionPolicy = conversion.getRateBook().getPrecisionPolicy();
+
+        if (isGet(exchange)) {
+            var query = parseQuery(exchange.getRequestURI().getRawQuery());
+            var to = currency(query, "to");
+            var result = conversion.convert(currency(query, "from"), to, amount(query, "amount"));
+
+            return Response.ok(precisionPolicy.roundToMinorUnits(result, to).toPlainString());
+        }
+
+        var results = new StringBuilder();
+
+        for (var line : readLines(exchange)) {
+            try {
+                var fields = split(line, 3);
+                var to = Currency.getInstance(fields[1]);
+                var result = conversion.convert(Currency.getInstance(fields[0]), to, new BigDecimal(fields[2]));
+
+                results.append(precisionPolicy.roundToMinorUnits(result, to).toPlainString());
+            } catch (IllegalArgumentException | NoSuchElementException ex) {
+                results.append("ERROR ").append(ex.getMessage());
+            }
+
+            results.append('\n');
+        }
+
+        return Response.ok(results.toString());
+    }
+
+    private Response quote(HttpExchange exchange) throws IOException {
+        var query = parseQuery(exchange.getRequestURI().getRawQuery());
+        var currency = currency(query, "currency");
+        var commissionRate = query.containsKey("commissionRate") ? amount(query, "commissionRate") : null;
+        var quote = query.containsKey("youGetAmount")
+                ? pricing.quoteYouGet(currency, commissionRate, amount(query, "youGetAmount"))
+                : pricing.quoteBid(currency, commissionRate, amount(query, "bidAmount"));
+
+        return Response.ok("currency=" + quote.currency().getCurrencyCode()
+                + "&commissionRate=" + quote.commissionRate().toPlainString()
+                + "&bidAmount=" + quote.bidAmount().toPlainString()
+                + "&youGetAmount=" + quote.youGetAmount().toPlainString());
+    }
+
+    private Response publishRates(HttpExchange exchange) throws IOException {
+        var index = conversionModel.getIndex();
+        var lines = readLines(exchange);
+        var bases = new int[lines.size()];
+        var quotes = new int[lines.size()];
+        var rates = new BigDecimal[lines.size()];
+
+        for (int i = 0; i < lines.size(); i++) {
+            var fields = split(lines.get(i), 3);
+            bases[i] = requireId(index.idOf(fields[0]), fields[0]);
+            quotes[i] = requireId(index.idOf(fields[1]), fields[1]);
+            rates[i] = new BigDecimal(fields[2]);
+
+            if (rates[i].signum() <= 0) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": rate must be positive: " + fields[2]);
+            }
+        }
+
+        var published = conversionModel.publishQuotes(bases, quotes, rates);
+
+        return Response.ok(Long.toString(published.getVersion()));
+    }
+
+    private Response trace(HttpExchange exchange) {
+        if (!(conversionModel.getConversion().getTracer() instanceof RingBufferConversionTracer tracer)) {
+            throw new NoSuchElementException("Conversion tracing is disabled, see "
+                    + ConversionTracer.TRACE_CAPACITY_PROPERTY);
+        }
+
+        var events = new StringBuilder();
+        tracer.dump(events);
+
+        return Response.ok(events.toString());
+    }
+
+    private void handle(HttpExchange exchange, List<String> allowedMethods,
+            Handler handler) throws IOException {
+        Response response;
+
+        try (exchange) {
+            try {
+                if (allowedMethods.contains(exchange.getRequestMethod())) {
+                    response = handler.handle(exchange);
+                } else {
+                    exchange.getResponseHeaders().set("Allow", String.join(", ", allowedMethods));
+                    response = Response.METHOD_NOT_ALLOWED;
+                }
+            } catch (NoSuchElementException ex) {
+                response = new Response(404, ex.getMessage());
+            } catch (IllegalArgumentException | ArithmeticException ex) {
+                response = new Response(400, String.valueOf(ex.getMessage()));
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Failed to handle " + exchange.getRequestURI(), ex);
+                response = new Response(500, "Internal error");
+            }
+
+            var body = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), body.length == 0 ? -1 : body.length);
+
+            if (body.length > 0) {
+                exchange.getResponseBody().write(body);
+            }
+        }
+    }
+
+    private static boolean isGet(HttpExchange exchange) {
+        return "GET".equals(exchange.getRequestMethod());
+    }
+
+    private static List<String> readLines(HttpExchange exchange) throws IOException {
+        var lines = new ArrayList<String>();
+        var reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                lines.add(line.strip());
+            }
+        }
+
+        return lines;
+    }
+
+    private static String[] split(String line, int count) {
+        var fields = line.split(",");
+
+        if (fields.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " comma separated fields: " + line);
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].strip();
+        }
+
+        return fields;
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        var query = new HashMap<String, String>();
+
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+
+        for (var parameter : rawQuery.split("&")) {
+            var separator = parameter.indexOf('=');
+
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+
+        return query;
+    }
+
+    private static Currency currency(Map<String, String> query, String name) {
+        return Currency.getInstance(required(query, name));
+    }
+
+    private static BigDecimal amount(Map<String, String> query, String name) {
+        return new BigDecimal(required(query, name));
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        var value = query.get(name);
+
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+
+        return value;
+    }
+
+    private static int requireId(int id, String code) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown currency: " + code);
+        }
+
+        return id;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private record Response(int status, String body) {
+
+        static final Response METHOD_NOT_ALLOWED = new Response(405, "Method not allowed");
+
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import com.github.idelstak.currencycalcfx.model.currency.RateBook;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Every rate of a {@link RateBook}, reciprocals included, with the version of
+ * the book and the time it was taken.
+ * <p>
+ * Snapshots are stored in a compact binary file: the {@link #MAGIC magic
+ * number} and the format version as {@code int}s, the version of the book and
+ * the time it was taken in epoch milliseconds as {@code long}s, the number of
+ * rates as an {@code int}, and the rates in the 15 byte quote format of
+ * {@link RateFileLoader}. A file is read with a single mapped read and
+ * written atomically.
+ *
+ * @param rates every rate of the book
+ * @param rateBookVersion the version of the book
+ * @param takenAt when the snapshot was taken
+ */
+public record RateBookSnapshot(RateSheet rates, long rateBookVersion, Instant takenAt) {
+
+    /**
+     * The first four bytes of a snapshot file, {@code "CCFS"}.
+     */
+    public static final int MAGIC = 0x43434653;
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+
+    /**
+     * @return a snapshot of every rate of {@code rateBook}
+     */
+    public static RateBookSnapshot of(RateBook rateBook, Instant takenAt) {
+        var size = rateBook.getIndex().size();
+        var count = 0;
+
+        for (int base = 0; base < size; base++) {
+            for (int quote = 0; quote < size; quote++) {
+                if (rateBook.hasRate(base, quote)) {
+                    count++;
+                }
+            }
+        }
+
+        var rates = new RateSheet(new int[count], new int[count], new BigDecimal[count]);
+        var i = 0;
+
+        for (int base = 0; base < size; base++) {
+            for (int quote = 0; quote < size; quote++) {
+                if (rateBook.hasRate(base, quote)) {
+                    rates.baseCurrencies()[i] = base;
+                    rates.quoteCurrencies()[i] = quote;
+                    rates.rates()[i++] = rateBook.getRate(base, quote);
+                }
+            }
+        }
+
+        return new RateBookSnapshot(rates, rateBook.getVersion(), takenAt);
+    }
+
+    /**
+     * @throws IOException if the file can not be read or is not a snapshot
+     */
+    public static RateBookSnapshot read(Path file, CurrencyIndex index) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a rate book snapshot: " + file);
+            }
+
+            var bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.BIG_ENDIAN);
+
+            if (bytes.getInt(0) != MAGIC) {
+                throw new IOException("Not a rate book snapshot: " + file);
+            }
+            if (bytes.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + bytes.getInt(Integer.BYTES));
+            }
+
+            var rateBookVersion = bytes.getLong(2 * Integer.BYTES);
+            var takenAt = Instant.ofEpochMilli(bytes.getLong(2 * Integer.BYTES + Long.BYTES));
+            var count = bytes.getInt(HEADER_SIZE - Integer.BYTES);
+
+            if (count < 0 || (long) count * RateFileLoader.QUOTE_SIZE != bytes.limit() - HEADER_SIZE) {
+                throw new IOException(String.format("Snapshot of %d bytes can not hold %d rates", bytes.limit(), count));
+            }
+
+            return new RateBookSnapshot(new RateFileLoader(index).decodeQuotes(bytes, HEADER_SIZE, count),
+                    rateBookVersion, takenAt);
+        }
+    }
+
+    public void write(Path file, CurrencyIndex index) throws IOException {
+        var bytes = ByteBuffer.allocate(HEADER_SIZE + rates.size() * RateFileLoader.QUOTE_SIZE)
+                .order(ByteOrder.BIG_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(rateBookVersion)
+                .putLong(takenAt.toEpochMilli())
+                .putInt(rates.size());
+
+        new RateFileWriter(index).putQuotes(bytes, rates);
+        RateFileWriter.writeAtomically(file, bytes.flip());
+    }
+
+    /**
+     * Publishes the rates of the snapshot, as they are, as one change of
+     * {@code conversionModel}. Books created afterwards get versions greater
+     * than the version of the snapshot.
+     *
+     * @return the published conversion
+     */
+    public ThreeWayCurrencyConversion restoreTo(ConversionModel conversionModel) {
+        RateBook.continueVersionsAfter(rateBookVersion);
+        return conversionModel.publish(rates.baseCurrencies(), rates.quoteCurrencies(), rates.rates());
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a {@link RateBookSnapshot} of a {@link ConversionModel} on disk, so
+ * the application starts with the rates it had when it last ran.
+ * <p>
+ * {@link #restore()} publishes the snapshot to the model at startup.
+ * {@link #start()} then saves the current rates every interval, and
+ * {@link #close()} saves them one last time on exit; rates that did not
+ * change since they were last saved or restored are not written again.
+ * <p>
+ * The snapshotter used by default saves to the file named by the
+ * {@value #FILE_PROPERTY} system property every {@value #INTERVAL_PROPERTY}
+ * seconds, {@code 60} unless it is set. Snapshots are disabled unless the
+ * file is set to a non-empty name, and an interval of {@code 0} saves only on
+ * exit.
+ */
+public class RateBookSnapshotter implements AutoCloseable {
+
+    public static final String FILE_PROPERTY = "currencycalcfx.snapshot.file";
+    public static final String INTERVAL_PROPERTY = "currencycalcfx.snapshot.interval";
+
+    private static final Logger LOG = Logger.getLogger(RateBookSnapshotter.class.getName());
+
+    private final ConversionModel conversionModel;
+    private final Path file;
+    private final Duration interval;
+    private ScheduledExecutorService scheduler;
+    private long savedVersion;
+
+    /**
+     * @param file the snapshot file, or {@code null} to disable snapshots
+     * @param interval the time between two saves, or {@link Duration#ZERO}
+     * to save only on {@link #close()}
+     */
+    public RateBookSnapshotter(ConversionModel conversionModel, Path file,
+            Duration interval) {
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("Snapshot interval can not be negative: " + interval);
+        }
+
+        this.conversionModel = conversionModel;
+        this.file = file;
+        this.interval = interval;
+        savedVersion = -1;
+    }
+
+    /**
+     * @return a snapshotter of {@code conversionModel} configured by the
+     * {@value #FILE_PROPERTY} and {@value #INTERVAL_PROPERTY} system
+     * properties
+     */
+    public static RateBookSnapshotter getDefault(ConversionModel conversionModel) {
+        var file = System.getProperty(FILE_PROPERTY, "");
+
+        return new RateBookSnapshotter(conversionModel,
+                file.isBlank() ? null : Path.of(file),
+                Duration.ofSeconds(Long.getLong(INTERVAL_PROPERTY, 60)));
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Publishes the saved snapshot, if there is one, to the model. A snapshot
+     * that can not be read is logged and ignored, leaving the model as it
+     * was.
+     *
+     * @return whether a snapshot was restored
+     */
+    public synchronized boolean restore() {
+        if (!isEnabled() || !Files.exists(file)) {
+            return false;
+        }
+
+        try {
+            var snapshot = RateBookSnapshot.read(file, conversionModel.getIndex());
+            savedVersion = snapshot.restoreTo(conversionModel).getRateBook().getVersion();
+            return true;
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Ignoring unreadable rate book snapshot " + file, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Starts saving the rates every interval, on a background thread.
+     */
+    public synchronized void start() {
+        if (!isEnabled() || interval.isZero() || scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "rate-book-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::saveQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Saves the current rates if they changed since they were last saved or
+     * restored.
+     *
+     * @return whether the rates were saved
+     */
+    public synchronized boolean save() throws IOException {
+        var rateBook = conversionModel.getConversion().getRateBook();
+
+        if (!isEnabled() || rateBook.getVersion() == savedVersion) {
+            return false;
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        RateBookSnapshot.of(rateBook, Instant.now()).write(file, conversionModel.getIndex());
+        savedVersion = rateBook.getVersion();
+        return true;
+    }
+
+    /**
+     * Stops the periodic saves and saves the rates one last time.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        saveQuietly();
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Failed to save rate book snapshot " + file, ex);
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import com.github.idelstak.currencycalcfx.model.currency.DecimalParser;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads rate files of thousands of quotes.
+ * <p>
+ * Files are memory-mapped and decoded in place: currency codes are looked up
+ * in the {@link CurrencyIndex} from their bytes and rates are parsed by
+ * {@link DecimalParser}, so no {@code String} is created per field. Two
+ * formats are read, told apart by their first bytes:
+ * <ul>
+ * <li> CSV: one {@code BASE,QUOTE,RATE} quote per line, e.g.
+ * {@code USD,KES,130.25}. Blank lines and lines starting with {@code #} are
+ * skipped.
+ * <li> Binary: the {@link #MAGIC magic number}, a format version and the
+ * number of quotes, each an {@code int}, followed by the quotes. A quote is
+ * the three ASCII letters of its base currency, the three of its quote
+ * currency, the scale of the rate as a byte and its unscaled value as a
+ * {@code long}, 15 bytes in all. Numbers are big-endian.
+ * {@link RateFileWriter} writes this format.
+ * </ul>
+ * Rates must be positive. The whole file is decoded before anything is
+ * returned, so a malformed file leaves the rate book untouched.
+ */
+public class RateFileLoader {
+
+    /**
+     * The first four bytes of a binary rate file, {@code "CCFR"}.
+     */
+    public static final int MAGIC = 0x43434652;
+    public static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 3 * Integer.BYTES;
+    static final int QUOTE_SIZE = 3 + 3 + 1 + Long.BYTES;
+
+    private final CurrencyIndex index;
+
+    public RateFileLoader(CurrencyIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the quotes of the file
+     * @throws IOException if the file can not be read or is malformed
+     */
+    public RateSheet load(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Rate file too large: " + channel.size() + " bytes");
+            }
+
+            var bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.BIG_ENDIAN);
+
+            return bytes.limit() >= Integer.BYTES && bytes.getInt(0) == MAGIC
+                    ? decodeBinary(bytes)
+                    : decodeCsv(bytes);
+        }
+    }
+
+    private RateSheet decodeBinary(ByteBuffer bytes) throws IOException {
+        if (bytes.limit() < HEADER_SIZE) {
+            throw new IOException("Truncated rate file header");
+        }
+        if (bytes.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported rate file version: " + bytes.getInt(Integer.BYTES));
+        }
+
+        var count = bytes.getInt(2 * Integer.BYTES);
+
+        if (count < 0 || (long) count * QUOTE_SIZE != bytes.limit() - HEADER_SIZE) {
+            throw new IOException(String.format("Rate file of %d bytes can not hold %d quotes", bytes.limit(), count));
+        }
+
+        return decodeQuotes(bytes, HEADER_SIZE, count);
+    }
+
+    /**
+     * Decodes {@code count} binary quotes starting at {@code position}.
+     */
+    RateSheet decodeQuotes(ByteBuffer bytes, int position, int count) throws IOException {
+        var sheet = new RateSheet(new int[count], new int[count], new BigDecimal[count]);
+
+        for (int i = 0; i < count; i++, position += QUOTE_SIZE) {
+            sheet.baseCurrencies()[i] = currency(bytes, position, position + 3, "Quote", i + 1);
+            sheet.quoteCurrencies()[i] = currency(bytes, position + 3, position + 6, "Quote", i + 1);
+            sheet.rates()[i] = positive(BigDecimal.valueOf(bytes.getLong(position + 7), bytes.get(position + 6)),
+                    "Quote " + (i + 1) + " at offset " + position);
+        }
+
+        return sheet;
+    }
+
+    private RateSheet decodeCsv(ByteBuffer bytes) throws IOException {
+        var limit = bytes.limit();
+        var capacity = 64;
+        var bases = new int[capacity];
+        var quotes = new int[capacity];
+        var rates = new BigDecimal[capacity];
+        var count = 0;
+        var line = 0;
+
+        for (int position = 0; position < limit;) {
+            var lineEnd = position;
+
+            while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            var from = skipBlanks(bytes, position, lineEnd);
+            var to = trimBlanks(bytes, from, lineEnd);
+            line++;
+
+            if (from < to && bytes.get(from) != '#') {
+                var firstComma = indexOf(bytes, ',', from, to);
+                var secondComma = indexOf(bytes, ',', firstComma + 1, to);
+
+                if (firstComma == to || secondComma == to) {
+                    throw new IOException("Line " + line + ": expected BASE,QUOTE,RATE");
+                }
+
+                if (count == capacity) {
+                    capacity *= 2;
+                    bases = Arrays.copyOf(bases, capacity);
+                    quotes = Arrays.copyOf(quotes, capacity);
+                    rates = Arrays.copyOf(rates, capacity);
+                }
+
+                bases[count] = currency(bytes, from, trimBlanks(bytes, from, firstComma), "Line", line);
+                quotes[count] = currency(bytes, skipBlanks(bytes, firstComma + 1, secondComma),
+                        trimBlanks(bytes, firstComma + 1, secondComma), "Line", line);
+
+                try {
+                    rates[count] = DecimalParser.parse(bytes, skipBlanks(bytes, secondComma + 1, to), to);
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Line " + line + ": " + ex.getMessage(), ex);
+                }
+
+                positive(rates[count], "Line " + line);
+
+                count++;
+            }
+
+            position = lineEnd + 1;
+        }
+
+        return new RateSheet(Arrays.copyOf(bases, count),
+                Arrays.copyOf(quotes, count),
+                Arrays.copyOf(rates, count));
+    }
+
+    private static BigDecimal positive(BigDecimal rate, String location) throws IOException {
+        if (rate.signum() <= 0) {
+            throw new IOException(location + ": rate must be positive: " + rate.toPlainString());
+        }
+
+        return rate;
+    }
+
+    private int currency(ByteBuffer bytes, int from, int to, String unit, int number) throws IOException {
+        var id = to - from == 3
+                ? index.idOf(bytes.get(from), bytes.get(from + 1), bytes.get(from + 2))
+                : -1;
+
+        if (id < 0) {
+            var code = new StringBuilder();
+
+            for (int i = from; i < to; i++) {
+                code.append((char) bytes.get(i));
+            }
+
+            throw new IOException(String.format("%s %d: unknown currency \"%s\"", unit, number, code));
+        }
+
+        return id;
+    }
+
+    private static int indexOf(ByteBuffer bytes, char b, int from, int to) {
+        var position = from;
+
+        while (position < to && bytes.get(position) != b) {
+            position++;
+        }
+
+        return position;
+    }
+
+    private static int skipBlanks(ByteBuffer bytes, int from, int to) {
+        while (from < to && isBlank(bytes.get(from))) {
+            from++;
+        }
+
+        return from;
+    }
+
+    private static int trimBlanks(ByteBuffer bytes, int from, int to) {
+        while (to > from && isBlank(bytes.get(to - 1))) {
+            to--;
+        }
+
+        return to;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes rate sheets in the binary format read by {@link RateFileLoader}.
+ * <p>
+ * A file is written next to its destination first and then moved over it,
+ * so readers see either the previous file or the complete new one. Rates
+ * are written with at most 18 significant digits, rounded
+ * {@link RoundingMode#HALF_EVEN HALF_EVEN}, so that their unscaled value fits
+ * a {@code long}.
+ */
+public class RateFileWriter {
+
+    static final MathContext RATE_PRECISION = new MathContext(18, RoundingMode.HALF_EVEN);
+
+    private final CurrencyIndex index;
+
+    public RateFileWriter(CurrencyIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * @throws ArithmeticException if the scale of a rate does not fit a byte
+     */
+    public void write(Path file, RateSheet sheet) throws IOException {
+        var bytes = ByteBuffer.allocate(RateFileLoader.HEADER_SIZE + sheet.size() * RateFileLoader.QUOTE_SIZE)
+                .order(ByteOrder.BIG_ENDIAN)
+                .putInt(RateFileLoader.MAGIC)
+                .putInt(RateFileLoader.VERSION)
+                .putInt(sheet.size());
+
+        putQuotes(bytes, sheet);
+        writeAtomically(file, bytes.flip());
+    }
+
+    /**
+     * Encodes every quote of {@code sheet} in the binary format.
+     */
+    void putQuotes(ByteBuffer bytes, RateSheet sheet) {
+        for (int i = 0; i < sheet.size(); i++) {
+            var rate = stored(sheet.rates()[i]);
+
+            if (rate.scale() < Byte.MIN_VALUE || rate.scale() > Byte.MAX_VALUE) {
+                throw new ArithmeticException("Rate scale does not fit a byte: " + rate);
+            }
+
+            bytes.put(code(sheet.baseCurrencies()[i]))
+                    .put(code(sheet.quoteCurrencies()[i]))
+                    .put((byte) rate.scale())
+                    .putLong(rate.unscaledValue().longValueExact());
+        }
+    }
+
+    /**
+     * @return {@code rate} rounded to the digits a quote can hold
+     */
+    static BigDecimal stored(BigDecimal rate) {
+        return rate.precision() > RATE_PRECISION.getPrecision() ? rate.round(RATE_PRECISION) : rate;
+    }
+
+    /**
+     * Writes {@code bytes} next to {@code file} and moves them over it.
+     */
+    static void writeAtomically(Path file, ByteBuffer bytes) throws IOException {
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+
+            channel.force(false);
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private byte[] code(int currency) {
+        return index.currencyOf(currency).getCurrencyCode().getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
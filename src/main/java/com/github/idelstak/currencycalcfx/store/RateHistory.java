@@ -0,0 +1,621 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import com.github.idelstak.currencycalcfx.model.currency.RateBook;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * An append-only history of the ticks of every currency pair, kept in
+ * memory-mapped files outside the Java heap.
+ * <p>
+ * The ticks of a pair are stored in their own directory, named after the pair
+ * as in {@code USD-KES}, in a sequence of {@link RateHistorySegment segments}
+ * of {@link #getSegmentCapacity()} ticks each, named by their sequence number
+ * as in {@code 000000.seg}. When the last segment is full the next one is
+ * created, so a history grows without ever rewriting what it holds. Ticks
+ * are stored in columns, so millions of ticks cost the garbage collector
+ * nothing but their segments.
+ * <p>
+ * Opening a history recovers it: the ticks of every segment are counted up
+ * to the last complete one, so a tick that was being written when the
+ * process died is dropped, and a segment whose creation did not complete is
+ * created again.
+ * <p>
+ * The rate of a pair at any instant is found by {@link #rateAt(int, int, long)}
+ * through a sparse time index kept on the heap: the timestamp of every
+ * {@value #TIME_INDEX_STRIDE}th tick, in a primitive array. A lookup bisects
+ * the index and then the block of ticks it points to, so it reads a handful
+ * of timestamps whatever the length of the history. The index costs 8 bytes
+ * per {@value #TIME_INDEX_STRIDE} ticks and is rebuilt when a history is
+ * opened.
+ * <p>
+ * The ticks of a pair must be appended in time order; ticks may share a
+ * timestamp, in which case the last one appended is the one in force. A tick
+ * either sets the rate of the pair or removes it. Rates are stored with at
+ * most 18 significant digits, rounded {@link RoundingMode#HALF_EVEN HALF_EVEN}.
+ * Ticks may be appended and read from any thread.
+ */
+public class RateHistory implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 16;
+    public static final int TIME_INDEX_STRIDE = 128;
+
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final MathContext RATE_PRECISION = new MathContext(18, RoundingMode.HALF_EVEN);
+    private static final int MAX_SEGMENT_CAPACITY = (Integer.MAX_VALUE - RateHistorySegment.HEADER_SIZE) / RateHistorySegment.TICK_SIZE;
+
+    private final Path directory;
+    private final CurrencyIndex index;
+    private final int segmentCapacity;
+    private final ConcurrentHashMap<Integer, PairHistory> pairs;
+    private volatile boolean closed;
+    private volatile AsOf lastAsOf;
+
+    private RateHistory(Path directory, CurrencyIndex index, int segmentCapacity) {
+        this.directory = directory;
+        this.index = index;
+        this.segmentCapacity = segmentCapacity;
+        pairs = new ConcurrentHashMap<>();
+    }
+
+    public static RateHistory open(Path directory, CurrencyIndex index) throws IOException {
+        return open(directory, index, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * Opens the history kept in {@code directory}, creating it if needed, and
+     * recovers the ticks of every pair.
+     *
+     * @param segmentCapacity the number of ticks of the segments created from
+     * now on; existing segments keep their capacity
+     * @throws IOException if the directory holds a file that is not a
+     * history segment
+     */
+    public static RateHistory open(Path directory, CurrencyIndex index,
+            int segmentCapacity) throws IOException {
+        if (segmentCapacity < 1 || segmentCapacity > MAX_SEGMENT_CAPACITY) {
+            throw new IllegalArgumentException("Invalid segment capacity: " + segmentCapacity);
+        }
+
+        Files.createDirectories(directory);
+        var history = new RateHistory(directory, index, segmentCapacity);
+
+        try (Stream<Path> pairDirectories = Files.list(directory)) {
+            for (var pairDirectory : (Iterable<Path>) pairDirectories::iterator) {
+                var name = pairDirectory.getFileName().toString();
+                var base = name.length() == 7 && name.charAt(3) == '-' ? index.idOf(name.substring(0, 3)) : -1;
+                var quote = base >= 0 ? index.idOf(name.substring(4)) : -1;
+
+                if (quote >= 0 && Files.isDirectory(pairDirectory)) {
+                    history.pairs.put(history.pairKey(base, quote), history.recover(pairDirectory));
+                }
+            }
+        }
+
+        return history;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public CurrencyIndex getIndex() {
+        return index;
+    }
+
+    public int getSegmentCapacity() {
+        return segmentCapacity;
+    }
+
+    /**
+     * Appends a tick to the history of the pair.
+     *
+     * @param rate the rate of the pair from {@code time} on, or {@code null}
+     * if the pair has no rate from then on
+     * @throws IllegalArgumentException if {@code time} is before the latest
+     * tick of the pair or not after the epoch, or if the rate is not positive
+     * @throws ArithmeticException if the rate is too small or too large to be
+     * stored
+     * @throws IOException if a new segment can not be created
+     */
+    public void append(Currency baseCurrency, Currency quoteCurrency,
+            Instant time, BigDecimal rate) throws IOException {
+        append(requireId(baseCurrency), requireId(quoteCurrency), toEpochNanos(time), rate);
+    }
+
+    /**
+     * Appends a tick to the history of the pair, identified by
+     * {@link CurrencyIndex} ids, at {@code timestamp} epoch nanoseconds.
+     *
+     * @see #append(Currency, Currency, Instant, BigDecimal)
+     */
+    public void append(int baseCurrency, int quoteCurrency, long timestamp,
+            BigDecimal rate) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Rate history is closed");
+        }
+        if (timestamp <= 0) {
+            throw new IllegalArgumentException("Tick must be after the epoch: " + timestamp);
+        }
+
+        if (rate != null && rate.signum() <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+
+        var stored = rate == null || rate.precision() <= RATE_PRECISION.getPrecision() ? rate : rate.round(RATE_PRECISION);
+
+        if (stored != null && (stored.scale() < Byte.MIN_VALUE || stored.scale() > Byte.MAX_VALUE)) {
+            throw new ArithmeticException("Rate scale does not fit a byte: " + rate);
+        }
+
+        // A removal is stored as an unscaled rate of 0, which no rate has
+        var unscaledRate = stored != null ? stored.unscaledValue().longValueExact() : 0;
+        byte scale = stored != null ? (byte) stored.scale() : 0;
+        var pair = pairs.computeIfAbsent(pairKey(baseCurrency, quoteCurrency),
+                key -> new PairHistory(directory.resolve(pairName(baseCurrency, quoteCurrency))));
+
+        pair.append(timestamp, unscaledRate, scale);
+    }
+
+    /**
+     * @return the number of ticks of the pair
+     */
+    public long getTickCount(int baseCurrency, int quoteCurrency) {
+        var pair = pairs.get(pairKey(baseCurrency, quoteCurrency));
+        return pair != null ? pair.size() : 0;
+    }
+
+    /**
+     * @return the timestamp, in epoch nanoseconds, of the tick of the pair at
+     * {@code tick}, counting from the oldest
+     * @throws IndexOutOfBoundsException if the pair has no such tick
+     */
+    public long getTickTimestamp(int baseCurrency, int quoteCurrency, long tick) {
+        return requirePair(baseCurrency, quoteCurrency).timestamp(tick);
+    }
+
+    /**
+     * @return the rate of the tick of the pair at {@code tick}, counting from
+     * the oldest, or {@code null} if the tick removed the rate
+     * @throws IndexOutOfBoundsException if the pair has no such tick
+     */
+    public BigDecimal getTickRate(int baseCurrency, int quoteCurrency, long tick) {
+        return requirePair(baseCurrency, quoteCurrency).rate(tick);
+    }
+
+    /**
+     * @return the rate of the pair in force at {@code time}, which is the
+     * rate of its latest tick at or before {@code time}, or {@code null} if
+     * the pair had no tick by then or that tick removed the rate
+     */
+    public BigDecimal rateAt(Currency baseCurrency, Currency quoteCurrency, Instant time) {
+        return rateAt(requireId(baseCurrency), requireId(quoteCurrency), toEpochNanos(time));
+    }
+
+    /**
+     * @return the rate of the pair, identified by {@link CurrencyIndex} ids,
+     * in force at {@code timestamp} epoch nanoseconds
+     * @see #rateAt(Currency, Currency, Instant)
+     */
+    public BigDecimal rateAt(int baseCurrency, int quoteCurrency, long timestamp) {
+        var pair = pairs.get(pairKey(baseCurrency, quoteCurrency));
+
+        if (pair == null) {
+            return null;
+        }
+
+        var tick = pair.floorTick(timestamp);
+        return tick >= 0 ? pair.rate(tick) : null;
+    }
+
+    /**
+     * @return a rate book of every rate in force at {@code time}
+     */
+    public RateBook rateBookAt(Instant time) {
+        return asOf(toEpochNanos(time)).conversion().getRateBook();
+    }
+
+    /**
+     * @return a conversion with the rates in force at {@code time}, to
+     * convert many amounts as of the same instant
+     */
+    public ThreeWayCurrencyConversion conversionAt(Instant time) {
+        return asOf(toEpochNanos(time)).conversion();
+    }
+
+    /**
+     * Converts an amount at the rates in force at {@code time}, as
+     * {@link ThreeWayCurrencyConversion#convert(Currency, Currency, BigDecimal)}
+     * would have then.
+     * <p>
+     * Each call bisects the history of every pair for its tick in force. The
+     * conversion built from those ticks is kept until a call finds other
+     * ticks in force, so converting many amounts as of one instant, or of
+     * instants with no tick between them, builds the rate book and its cross
+     * rates once.
+     *
+     * @throws java.util.NoSuchElementException if the currencies were not
+     * connected by any route at that time
+     */
+    public BigDecimal convert(Currency fromCurrency, Currency toCurrency,
+            BigDecimal amount, Instant time) {
+        return conversionAt(time).convert(fromCurrency, toCurrency, amount);
+    }
+
+    /**
+     * @return the timestamp of the latest tick of the pair, or {@code 0} if
+     * it has none
+     */
+    public long getLatestTimestamp(int baseCurrency, int quoteCurrency) {
+        var pair = pairs.get(pairKey(baseCurrency, quoteCurrency));
+        return pair != null ? pair.latestTimestamp() : 0;
+    }
+
+    /**
+     * Writes the ticks appended so far to disk.
+     */
+    public void force() {
+        pairs.values().forEach(PairHistory::force);
+    }
+
+    /**
+     * Writes every tick to disk and refuses further appends.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        force();
+    }
+
+    public static long toEpochNanos(Instant time) {
+        return Math.addExact(Math.multiplyExact(time.getEpochSecond(), 1_000_000_000L), time.getNano());
+    }
+
+    public static Instant fromEpochNanos(long timestamp) {
+        return Instant.ofEpochSecond(Math.floorDiv(timestamp, 1_000_000_000L), Math.floorMod(timestamp, 1_000_000_000L));
+    }
+
+    private PairHistory recover(Path pairDirectory) throws IOException {
+        Path[] files;
+
+        try (Stream<Path> segmentFiles = Files.list(pairDirectory)) {
+            files = segmentFiles.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toArray(Path[]::new);
+        }
+
+        var segments = new RateHistorySegment[files.length];
+        var count = 0;
+
+        for (var file : files) {
+            var segment = RateHistorySegment.open(file);
+
+            if (segment != null) {
+                segments[count++] = segment;
+            }
+        }
+
+        return new PairHistory(pairDirectory, Arrays.copyOf(segments, count));
+    }
+
+    /**
+     * @return the ticks in force at {@code timestamp} and their conversion,
+     * reusing the last one built if the same ticks are in force
+     */
+    private AsOf asOf(long timestamp) {
+        var keys = pairs.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        var ticks = new long[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            ticks[i] = pairs.get(keys[i]).floorTick(timestamp);
+        }
+
+        var cached = lastAsOf;
+
+        if (cached != null && Arrays.equals(cached.keys(), keys) && Arrays.equals(cached.ticks(), ticks)) {
+            return cached;
+        }
+
+        var bases = new int[keys.length];
+        var quotes = new int[keys.length];
+        var rates = new BigDecimal[keys.length];
+        var count = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            var rate = ticks[i] >= 0 ? pairs.get(keys[i]).rate(ticks[i]) : null;
+
+            if (rate != null) {
+                bases[count] = keys[i] / index.size();
+                quotes[count] = keys[i] % index.size();
+                rates[count++] = rate;
+            }
+        }
+
+        var rateBook = new RateBook(index).withRates(Arrays.copyOf(bases, count),
+                Arrays.copyOf(quotes, count), Arrays.copyOf(rates, count));
+        var asOf = new AsOf(keys, ticks, new ThreeWayCurrencyConversion(rateBook));
+        lastAsOf = asOf;
+        return asOf;
+    }
+
+    private PairHistory requirePair(int baseCurrency, int quoteCurrency) {
+        var pair = pairs.get(pairKey(baseCurrency, quoteCurrency));
+
+        if (pair == null) {
+            throw new IndexOutOfBoundsException("No ticks for " + pairName(baseCurrency, quoteCurrency));
+        }
+
+        return pair;
+    }
+
+    private int pairKey(int baseCurrency, int quoteCurrency) {
+        return baseCurrency * index.size() + quoteCurrency;
+    }
+
+    private String pairName(int baseCurrency, int quoteCurrency) {
+        return index.currencyOf(baseCurrency).getCurrencyCode() + "-" + index.currencyOf(quoteCurrency).getCurrencyCode();
+    }
+
+    private int requireId(Currency currency) {
+        var id = index.idOf(currency);
+
+        if (id < 0) {
+            throw new IllegalArgumentException("Currency is not indexed: " + currency);
+        }
+
+        return id;
+    }
+
+    /**
+     * The segments of one pair. Appends are serialized on the pair; readers
+     * always see a consistent set of segments.
+     */
+    private final class PairHistory {
+
+        private final Path directory;
+        private volatile Segments segments;
+        private volatile TimeIndex timeIndex;
+
+        PairHistory(Path directory) {
+            this(directory, new RateHistorySegment[0]);
+        }
+
+        PairHistory(Path directory, RateHistorySegment[] segments) {
+            this.directory = directory;
+            this.segments = new Segments(segments);
+
+            var index = new TimeIndex(new long[0], 0);
+
+            for (long tick = 0; tick < size(); tick += TIME_INDEX_STRIDE) {
+                index = index.with(timestamp(tick));
+            }
+
+            timeIndex = index;
+        }
+
+        synchronized void append(long timestamp, long unscaledRate, byte scale) throws IOException {
+            var current = segments;
+            var latestTimestamp = current.latestTimestamp();
+
+            if (timestamp < latestTimestamp) {
+                throw new IllegalArgumentException(String.format("Tick at %d is older than the latest tick at %d",
+                        timestamp, latestTimestamp));
+            }
+
+            var last = current.last();
+
+            if (last == null || last.isFull()) {
+                Files.createDirectories(directory);
+                last = RateHistorySegment.create(directory.resolve(
+                        String.format("%06d%s", current.segments().length, SEGMENT_SUFFIX)), segmentCapacity);
+                segments = current.with(last);
+            }
+
+            last.append(timestamp, unscaledRate, scale);
+
+            if ((segments.size() - 1) % TIME_INDEX_STRIDE == 0) {
+                timeIndex = timeIndex.with(timestamp);
+            }
+        }
+
+        /**
+         * @return the last tick at or before {@code timestamp}, or {@code -1}
+         * if there is none
+         */
+        long floorTick(long timestamp) {
+            // Read the index before the size, so every tick it samples is there
+            var index = timeIndex;
+            var size = size();
+            var block = index.floor(timestamp);
+
+            if (block < 0) {
+                return -1;
+            }
+
+            long low = (long) block * TIME_INDEX_STRIDE;
+            var high = Math.min(low + TIME_INDEX_STRIDE, size) - 1;
+
+            while (low < high) {
+                var middle = (low + high + 1) >>> 1;
+
+                if (timestamp(middle) <= timestamp) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            return low;
+        }
+
+        long size() {
+            return segments.size();
+        }
+
+        long latestTimestamp() {
+            return segments.latestTimestamp();
+        }
+
+        long timestamp(long tick) {
+            var current = segments;
+            var segment = current.segmentOf(tick);
+            return current.segments()[segment].timestamp((int) (tick - current.firstTicks()[segment]));
+        }
+
+        BigDecimal rate(long tick) {
+            var current = segments;
+            var segment = current.segmentOf(tick);
+            return current.segments()[segment].rate((int) (tick - current.firstTicks()[segment]));
+        }
+
+        void force() {
+            for (var segment : segments.segments()) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * The conversion of the rates of the ticks in force at some instant: tick
+     * {@code ticks[i]}, or none if it is {@code -1}, of the pair of key
+     * {@code keys[i]}.
+     */
+    private record AsOf(int[] keys, long[] ticks, ThreeWayCurrencyConversion conversion) {
+    }
+
+    /**
+     * The timestamps of every {@value #TIME_INDEX_STRIDE}th tick of a pair.
+     * The array is shared by successive indexes and only written past their
+     * size, so an index never changes once published.
+     */
+    private record TimeIndex(long[] timestamps, int size) {
+
+        TimeIndex with(long timestamp) {
+            var grown = size < timestamps.length ? timestamps : Arrays.copyOf(timestamps, Math.max(16, size * 2));
+            grown[size] = timestamp;
+            return new TimeIndex(grown, size + 1);
+        }
+
+        /**
+         * @return the last sample at or before {@code timestamp}, or
+         * {@code -1} if there is none
+         */
+        int floor(long timestamp) {
+            var low = 0;
+            var high = size - 1;
+
+            while (low <= high) {
+                var middle = (low + high) >>> 1;
+
+                if (timestamps[middle] <= timestamp) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            return high;
+        }
+    }
+
+    /**
+     * The segments of a pair with the number of the first tick of each.
+     */
+    private record Segments(RateHistorySegment[] segments, long[] firstTicks) {
+
+        Segments(RateHistorySegment[] segments) {
+            this(segments, new long[segments.length]);
+
+            for (int i = 1; i < segments.length; i++) {
+                firstTicks[i] = firstTicks[i - 1] + segments[i - 1].size();
+            }
+        }
+
+        Segments with(RateHistorySegment segment) {
+            var grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[segments.length] = segment;
+            return new Segments(grown);
+        }
+
+        RateHistorySegment last() {
+            return segments.length > 0 ? segments[segments.length - 1] : null;
+        }
+
+        long size() {
+            return segments.length > 0
+                    ? firstTicks[segments.length - 1] + segments[segments.length - 1].size()
+                    : 0;
+        }
+
+        long latestTimestamp() {
+            var size = size();
+
+            if (size == 0) {
+                return 0;
+            }
+
+            var segment = segmentOf(size - 1);
+            return segments[segment].timestamp((int) (size - 1 - firstTicks[segment]));
+        }
+
+        int segmentOf(long tick) {
+            if (tick < 0 || tick >= size()) {
+                throw new IndexOutOfBoundsException("No tick " + tick + " of " + size());
+            }
+
+            // The last segment starting at or before the tick; empty segments
+            // share their first tick with the next one
+            var low = 0;
+            var high = segments.length - 1;
+
+            while (low < high) {
+                var middle = (low + high + 1) >>> 1;
+
+                if (firstTicks[middle] <= tick) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            return low;
+        }
+    }
+
+}
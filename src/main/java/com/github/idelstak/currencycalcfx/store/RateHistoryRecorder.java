@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.RateBook;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records every rate published to a {@link ConversionModel} in a
+ * {@link RateHistory}.
+ * <p>
+ * Each published rate book is compared with the previous one. Only the rows of
+ * the base currencies whose quotes changed are compared, since unchanged rows
+ * are shared between books, and every rate that was added, changed or
+ * removed becomes a tick stamped with the time it was received, a removal
+ * being a tick without a rate. Ticks of a pair never go back in time, even if
+ * the clock does.
+ * <p>
+ * The recorder used by default keeps its history in the directory named by
+ * the {@value #DIRECTORY_PROPERTY} system property. Recording is disabled
+ * unless it is set to a non-empty name, and when the history can not be
+ * opened.
+ */
+public class RateHistoryRecorder implements ConversionModel.RateListener, AutoCloseable {
+
+    public static final String DIRECTORY_PROPERTY = "currencycalcfx.history.dir";
+
+    private static final Logger LOG = Logger.getLogger(RateHistoryRecorder.class.getName());
+
+    private final ConversionModel conversionModel;
+    private final RateHistory history;
+    private RateBook previous;
+
+    /**
+     * Records the rates published to {@code conversionModel} from now on.
+     *
+     * @param history the history to append to, or {@code null} to record
+     * nothing
+     */
+    public RateHistoryRecorder(ConversionModel conversionModel, RateHistory history) {
+        this.conversionModel = conversionModel;
+        this.history = history;
+        previous = conversionModel.getConversion().getRateBook();
+
+        if (history != null) {
+            conversionModel.addListener(this);
+        }
+    }
+
+    /**
+     * @return a recorder of {@code conversionModel} configured by the
+     * {@value #DIRECTORY_PROPERTY} system property
+     */
+    public static RateHistoryRecorder getDefault(ConversionModel conversionModel) {
+        var directory = System.getProperty(DIRECTORY_PROPERTY, "");
+        RateHistory history = null;
+
+        if (!directory.isBlank()) {
+            try {
+                history = RateHistory.open(Path.of(directory), conversionModel.getIndex());
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Not recording rates, can not open rate history " + directory, ex);
+            }
+        }
+
+        return new RateHistoryRecorder(conversionModel, history);
+    }
+
+    public boolean isEnabled() {
+        return history != null;
+    }
+
+    /**
+     * @return the history appended to, or {@code null} if recording is
+     * disabled
+     */
+    public RateHistory getHistory() {
+        return history;
+    }
+
+    @Override
+    public synchronized void ratesChanged(ThreeWayCurrencyConversion conversion) {
+        var rateBook = conversion.getRateBook();
+
+        // Listeners of concurrent publishes may be called out of order
+        if (rateBook.getVersion() <= previous.getVersion()) {
+            return;
+        }
+
+        var now = RateHistory.toEpochNanos(Instant.now());
+        var size = rateBook.getIndex().size();
+
+        try {
+            for (int base = 0; base < size; base++) {
+                if (rateBook.sharesRow(previous, base)) {
+                    continue;
+                }
+
+                for (int quote = 0; quote < size; quote++) {
+                    var rate = rateBook.getRate(base, quote);
+
+                    if (!Objects.equals(rate, previous.getRate(base, quote))) {
+                        history.append(base, quote, Math.max(now, history.getLatestTimestamp(base, quote)), rate);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Failed to record rates of " + rateBook, ex);
+        }
+
+        previous = rateBook;
+    }
+
+    /**
+     * Writes the recorded ticks to disk and stops recording.
+     */
+    @Override
+    public synchronized void close() {
+        if (history != null) {
+            conversionModel.removeListener(this);
+            history.close();
+        }
+    }
+
+}
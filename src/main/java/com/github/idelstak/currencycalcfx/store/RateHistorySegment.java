@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped file of the ticks of a pair in a {@link RateHistory}.
+ * <p>
+ * A segment holds a fixed number of ticks in three columns that follow a
+ * 16 byte header (magic number, format version and capacity): the
+ * timestamps, in epoch nanoseconds, as {@code long}s, then the unscaled rates
+ * as {@code long}s and then the scales of the rates as bytes. Rates are
+ * positive, so a tick of unscaled rate {@code 0} records that the pair has no
+ * rate from then on. The timestamp of
+ * a tick is written after its rate and is never {@code 0}, so it marks the
+ * tick as complete: after a crash, the ticks of a segment are the ones up to
+ * the first zero timestamp, found by binary search since timestamps only grow.
+ * <p>
+ * A segment is written by one thread at a time and may be read by any number
+ * of threads; ticks become visible to readers once {@link #size()} includes
+ * them.
+ */
+final class RateHistorySegment {
+
+    static final int MAGIC = 0x43434648;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    static final int TICK_SIZE = 2 * Long.BYTES + 1;
+
+    private final Path file;
+    private final MappedByteBuffer bytes;
+    private final int capacity;
+    private final int rates;
+    private final int scales;
+    private volatile int size;
+
+    private RateHistorySegment(Path file, MappedByteBuffer bytes, int capacity, int size) {
+        this.file = file;
+        this.bytes = bytes;
+        this.capacity = capacity;
+        this.rates = HEADER_SIZE + capacity * Long.BYTES;
+        this.scales = rates + capacity * Long.BYTES;
+        this.size = size;
+    }
+
+    /**
+     * Creates an empty segment, replacing any file left by an incomplete
+     * rollover.
+     */
+    static RateHistorySegment create(Path file, int capacity) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var bytes = map(channel, capacity);
+            bytes.putInt(0, MAGIC)
+                    .putInt(Integer.BYTES, VERSION)
+                    .putInt(2 * Integer.BYTES, capacity);
+
+            return new RateHistorySegment(file, bytes, capacity, 0);
+        }
+    }
+
+    /**
+     * Opens an existing segment and recovers the number of complete ticks it
+     * holds.
+     *
+     * @return the segment, or {@code null} if the file is too short to hold a
+     * header or its header was never written
+     * @throws IOException if the file is not a history segment
+     */
+    static RateHistorySegment open(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+
+            if (header.getInt(0) == 0) {
+                return null;
+            }
+            if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Not a rate history segment: " + file);
+            }
+
+            var capacity = header.getInt(2 * Integer.BYTES);
+
+            if (capacity < 1 || channel.size() != HEADER_SIZE + (long) capacity * TICK_SIZE) {
+                throw new IOException("Truncated rate history segment: " + file);
+            }
+
+            var bytes = map(channel, capacity);
+            var size = 0;
+            var end = capacity;
+
+            // Complete ticks come first, so the first empty slot is found by bisection
+            while (size < end) {
+                var middle = (size + end) >>> 1;
+
+                if (bytes.getLong(HEADER_SIZE + middle * Long.BYTES) != 0) {
+                    size = middle + 1;
+                } else {
+                    end = middle;
+                }
+            }
+
+            return new RateHistorySegment(file, bytes, capacity, size);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, int capacity) throws IOException {
+        var bytes = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * TICK_SIZE);
+        bytes.order(ByteOrder.BIG_ENDIAN);
+        return bytes;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    long timestamp(int tick) {
+        return bytes.getLong(HEADER_SIZE + tick * Long.BYTES);
+    }
+
+    /**
+     * @return the rate of the tick, or {@code null} if it removed the rate
+     */
+    BigDecimal rate(int tick) {
+        var unscaledRate = bytes.getLong(rates + tick * Long.BYTES);
+        return unscaledRate != 0 ? BigDecimal.valueOf(unscaledRate, bytes.get(scales + tick)) : null;
+    }
+
+    /**
+     * Writes a tick after the last one; the caller checks that the segment is
+     * not full and that the timestamp is positive.
+     */
+    void append(long timestamp, long unscaledRate, byte scale) {
+        var tick = size;
+
+        bytes.putLong(rates + tick * Long.BYTES, unscaledRate);
+        bytes.put(scales + tick, scale);
+        bytes.putLong(HEADER_SIZE + tick * Long.BYTES, timestamp);
+        size = tick + 1;
+    }
+
+    void force() {
+        bytes.force();
+    }
+
+}
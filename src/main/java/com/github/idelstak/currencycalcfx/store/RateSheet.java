@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.math.BigDecimal;
+
+/**
+ * Quotes read from a rate file, held as the parallel arrays the rate book is
+ * updated with: quote {@code i} is {@code rates[i]} units of
+ * {@code quoteCurrencies[i]} per unit of {@code baseCurrencies[i]}, the
+ * currencies being {@link com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex}
+ * ids.
+ *
+ * @param baseCurrencies the ids of the base currencies
+ * @param quoteCurrencies the ids of the quote currencies
+ * @param rates the rates
+ */
+public record RateSheet(int[] baseCurrencies, int[] quoteCurrencies, BigDecimal[] rates) {
+
+    public RateSheet {
+        if (baseCurrencies.length != rates.length || quoteCurrencies.length != rates.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Rate sheet arrays differ in length: %d base currencies, %d quote currencies, %d rates",
+                    baseCurrencies.length, quoteCurrencies.length, rates.length));
+        }
+    }
+
+    public int size() {
+        return rates.length;
+    }
+
+    /**
+     * Publishes every quote of the sheet, with its reciprocal, as one change
+     * of {@code conversionModel}.
+     *
+     * @return the published conversion
+     */
+    public ThreeWayCurrencyConversion publishTo(ConversionModel conversionModel) {
+        return conversionModel.publishQuotes(baseCurrencies, quoteCurrencies, rates);
+    }
+
+}
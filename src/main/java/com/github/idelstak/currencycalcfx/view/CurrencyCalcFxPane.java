@@ -27,6 +27,7 @@ import java.util.Currency;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
 
 public class CurrencyCalcFxPane extends VBox {
@@ -53,6 +54,10 @@ public class CurrencyCalcFxPane extends VBox {
         return threeWayCurrencyExchangePane.getSourceQuoteCurrenciesComboBox();
     }
 
+    public TextField getSourceQuoteCurrencyRateTextField() {
+        return threeWayCurrencyExchangePane.getSourceQuoteCurrencyRateTextField();
+    }
+
     public ComboBox<Currency> getTargetBaseCurrenciesComboBox() {
         return threeWayCurrencyExchangePane.getTargetBaseCurrenciesComboBox();
     }
@@ -61,6 +66,10 @@ public class CurrencyCalcFxPane extends VBox {
         return threeWayCurrencyExchangePane.getTargetQuoteCurrenciesComboBox();
     }
 
+    public TextField getTargetQuoteCurrencyRateTextField() {
+        return threeWayCurrencyExchangePane.getTargetQuoteCurrencyRateTextField();
+    }
+
     public ComboBox<Currency> getCurrenciesComboBox() {
         return bidPane.getCurrenciesComboBox();
     }
@@ -24,13 +24,16 @@
 package com.github.idelstak.currencycalcfx.view.formatter;
 
 import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 import javafx.scene.control.TextFormatter.Change;
 
 class TwoDecimalPlacesNumberFilter implements UnaryOperator<Change> {
 
+    private static final Pattern TWO_DECIMAL_PLACES_NUMBER = Pattern.compile("^(?!$)(\\d+(\\.\\d{0,2})?|\\.\\d{0,2})$");
+
     @Override
     public Change apply(Change change) {
-        if (change.getControlNewText().matches("^(?!$)(\\d+(\\.\\d{0,2})?|\\.\\d{0,2})$")) {
+        if (TWO_DECIMAL_PLACES_NUMBER.matcher(change.getControlNewText()).matches()) {
             return change;
         } else {
             //else make no change
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.batch;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CsvBatchConversionTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    @TempDir
+    Path directory;
+    private ThreeWayCurrencyConversion conversion;
+
+    @BeforeEach
+    public void setup() {
+        var conversionModel = new ConversionModel();
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        conversion = conversionModel.getConversion();
+    }
+
+    @Test
+    public void converting_should_append_the_converted_amount_to_every_row() throws IOException {
+        var input = write("date,amount,currency\r\n"
+                + "2024-01-02,\"1300\",KES\r\n"
+                + "\n"
+                + "2024-01-03,2.5,USD\r\n"
+                + "2024-01-04,\"1,000\",KES\r\n"
+                + "2024-01-05,1,EUR");
+        var output = directory.resolve("output.csv");
+
+        var result = new CsvBatchConversion(conversion, USD, 1, 2)
+                .withHeader(true)
+                .convert(input, output);
+
+        assertThat(Files.readAllLines(output), equalTo(List.of(
+                "date,amount,currency,amount_USD",
+                "2024-01-02,\"1300\",KES,10.00",
+                "2024-01-03,2.5,USD,2.50",
+                "2024-01-04,\"1,000\",KES,",
+                "2024-01-05,1,EUR,")));
+        assertThat(result, equalTo(new CsvBatchConversion.Result(2, 2)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 1 << 20})
+    public void converting_should_not_depend_on_the_chunk_size(int chunkSize) throws IOException {
+        var input = write(IntStream.range(0, 2_000)
+                .mapToObj(i -> i + (i % 2 == 0 ? ",USD" : ",KES"))
+                .collect(Collectors.joining("\n", "", "\n")));
+        var output = directory.resolve("output.csv");
+
+        var result = new CsvBatchConversion(conversion, KES, 0, 1)
+                .withChunkSize(chunkSize)
+                .withParallelism(3)
+                .convert(input, output);
+
+        var lines = Files.readAllLines(output);
+        assertThat(result, equalTo(new CsvBatchConversion.Result(2_000, 0)));
+        assertThat(lines.size(), equalTo(2_000));
+        assertThat(lines.get(1_998), equalTo("1998,USD,259740.00"));
+        assertThat(lines.get(1_999), equalTo("1999,KES,1999.00"));
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("input.csv"), content);
+    }
+
+}
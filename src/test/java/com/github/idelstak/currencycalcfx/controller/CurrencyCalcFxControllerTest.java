@@ -25,10 +25,16 @@ package com.github.idelstak.currencycalcfx.controller;
 
 import com.github.idelstak.currencycalcfx.module.CurrencyCalcFxModule;
 import com.github.idelstak.currencycalcfx.model.*;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
 import com.github.idelstak.currencycalcfx.model.currency.ExchangeRate;
+import com.github.idelstak.currencycalcfx.provider.DirectoryRateProvider;
 import com.google.inject.Guice;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Currency;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -39,6 +45,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.testfx.framework.junit5.ApplicationExtension;
 import org.testfx.framework.junit5.Start;
 import static org.testfx.util.WaitForAsyncUtils.sleep;
@@ -49,6 +56,7 @@ public class CurrencyCalcFxControllerTest {
     private CurrencyExchange targetCurrencyExchange;
     private CurrencyExchange sourceCurrencyExchange;
     private Bid bid;
+    private ConversionModel conversionModel;
 
     @Start
     public void setup(Stage stage) {
@@ -56,6 +64,7 @@ public class CurrencyCalcFxControllerTest {
         var currencyCalcFxController = injector.getInstance(CurrencyCalcFxController.class);
         
         bid = currencyCalcFxController.getBid();
+        conversionModel = currencyCalcFxController.getConversionModel();
         sourceCurrencyExchange = currencyCalcFxController.getSourceCurrencyExchange();
         targetCurrencyExchange = currencyCalcFxController.getTargetCurrencyExchange();
 
@@ -100,4 +109,26 @@ public class CurrencyCalcFxControllerTest {
         assertThat(bid.getBidAmount(), equalTo(new BigDecimal("13000").setScale(2, RoundingMode.HALF_UP)));
     }
 
+    @Test
+    public void browsing_past_a_provided_quote_should_leave_it_in_the_model(@TempDir Path directory) throws IOException {
+        var usd = Currency.getInstance("USD");
+        var kes = Currency.getInstance("KES");
+        var ugx = Currency.getInstance("UGX");
+        Files.writeString(directory.resolve("rates.csv"), "USD,KES,130\n");
+
+        try (var provider = new DirectoryRateProvider(directory, Duration.ofMillis(10))) {
+            provider.start(conversionModel);
+
+            sourceCurrencyExchange.setExchangeRate(new ExchangeRate(usd, kes, new BigDecimal("130")));
+            sleep(1, TimeUnit.SECONDS);
+            sourceCurrencyExchange.setExchangeRate(new ExchangeRate(usd, ugx, new BigDecimal("3380")));
+            sleep(1, TimeUnit.SECONDS);
+
+            var rateBook = conversionModel.getConversion().getRateBook();
+
+            assertThat(rateBook.getRate(usd, kes).compareTo(new BigDecimal("130")), equalTo(0));
+            assertThat(rateBook.getRate(usd, ugx).compareTo(new BigDecimal("3380")), equalTo(0));
+        }
+    }
+
 }
@@ -30,8 +30,10 @@ import com.github.idelstak.currencycalcfx.model.CurrencyExchange;
 import com.github.idelstak.currencycalcfx.view.CurrencyExchangePane;
 import com.google.inject.Guice;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import org.junit.jupiter.api.Test;
@@ -42,6 +44,7 @@ import org.testfx.framework.junit5.ApplicationExtension;
 import org.testfx.framework.junit5.Start;
 import static org.testfx.matcher.control.ComboBoxMatchers.*;
 import static org.testfx.matcher.control.TextInputControlMatchers.hasText;
+import static org.testfx.util.WaitForAsyncUtils.sleep;
 
 @ExtendWith(ApplicationExtension.class)
 public class CurrencyExchangeControllerTest {
@@ -177,10 +180,24 @@ public class CurrencyExchangeControllerTest {
         var oldRate = currencyExchange.getExchangeRate();
 
         RobotActions.writeText(robot, quoteCurrencyTextField, "15");
+        sleep(1, TimeUnit.SECONDS);
 
         assertThat(oldRate, not(currencyExchange.getExchangeRate()));
     }
 
+    @Test
+    public void typing_a_zero_quote_currency_rate_should_not_update_the_exchange_rate(
+            FxRobot robot) {
+        var quoteCurrencyTextField = currencyExchangePane.getQuoteCurrencyRateTextField();
+        sleep(1, TimeUnit.SECONDS);
+        var oldRate = currencyExchange.getExchangeRate();
+
+        RobotActions.writeText(robot, quoteCurrencyTextField, "0.0");
+        sleep(1, TimeUnit.SECONDS);
+
+        assertThat(currencyExchange.getExchangeRate(), equalTo(oldRate));
+    }
+
     private Currency[] getFilteredQuoteCurrencies() {
         return currencyExchangePane
                 .getQuoteCurrenciesComboBox()
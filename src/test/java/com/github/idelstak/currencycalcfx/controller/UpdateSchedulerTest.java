@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.controller;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.jupiter.api.Test;
+
+public class UpdateSchedulerTest {
+
+    private final BlockingQueue<Runnable> applicationThread = new LinkedBlockingQueue<>();
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final UpdateScheduler scheduler = new UpdateScheduler(applicationThread::add, clock::get);
+    private final List<String> applied = new ArrayList<>();
+
+    @Test
+    public void only_the_latest_update_of_each_target_should_be_applied_by_one_task() {
+        var first = new Object();
+        var second = new Object();
+
+        scheduler.schedule(first, () -> applied.add("first 1"));
+        scheduler.schedule(second, () -> applied.add("second 1"));
+        scheduler.schedule(first, () -> applied.add("first 2"));
+
+        assertThat(applicationThread.size(), equalTo(1));
+        applicationThread.poll().run();
+
+        assertThat(applied, equalTo(List.of("first 2", "second 1")));
+        assertThat(scheduler.getAppliedCount(), equalTo(2L));
+        assertThat(scheduler.getCoalescedCount(), equalTo(1L));
+        assertThat(applicationThread.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void updates_scheduled_while_applying_should_be_applied_by_the_next_task() {
+        var target = new Object();
+
+        scheduler.schedule(target, () -> {
+            applied.add("outer");
+            scheduler.schedule(target, () -> applied.add("inner"));
+        });
+        applicationThread.poll().run();
+
+        assertThat(applied, equalTo(List.of("outer")));
+        applicationThread.poll().run();
+        assertThat(applied, equalTo(List.of("outer", "inner")));
+    }
+
+    @Test
+    public void a_failing_update_should_not_stop_the_others() {
+        var failures = new ArrayList<Throwable>();
+        var thread = Thread.currentThread();
+        var handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((failedThread, throwable) -> failures.add(throwable));
+
+        try {
+            scheduler.schedule(new Object(), () -> {
+                throw new IllegalStateException("failed");
+            });
+            scheduler.schedule(new Object(), () -> applied.add("applied"));
+            applicationThread.poll().run();
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+
+        assertThat(failures.size(), equalTo(1));
+        assertThat(applied, equalTo(List.of("applied")));
+    }
+
+    @Test
+    public void slow_tasks_should_hold_back_the_next_one_until_the_load_drops() throws InterruptedException {
+        var target = new Object();
+        var frame = UpdateScheduler.FRAME.toNanos();
+        Runnable slowUpdate = () -> clock.addAndGet(3 * frame);
+
+        scheduler.schedule(target, slowUpdate);
+        applicationThread.poll().run();
+        assertThat(scheduler.getInterval(), equalTo(UpdateScheduler.FRAME));
+
+        scheduler.schedule(target, slowUpdate);
+        assertThat(applicationThread.poll(), nullValue());
+        var heldBack = applicationThread.poll(1, TimeUnit.SECONDS);
+        assertThat(heldBack, notNullValue());
+        heldBack.run();
+        assertThat(scheduler.getInterval(), equalTo(Duration.ofNanos(2 * frame)));
+
+        clock.addAndGet(2 * frame);
+        scheduler.schedule(target, () -> applied.add("fast"));
+        applicationThread.poll().run();
+        assertThat(scheduler.getInterval(), equalTo(Duration.ofNanos(frame)));
+        assertThat(applied, equalTo(List.of("fast")));
+    }
+
+}
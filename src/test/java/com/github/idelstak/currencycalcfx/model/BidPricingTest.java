@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model;
+
+import com.github.idelstak.currencycalcfx.model.currency.ArithmeticMode;
+import com.github.idelstak.currencycalcfx.model.currency.PrecisionPolicy;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.stream.IntStream;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class BidPricingTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @ParameterizedTest
+    @EnumSource(ArithmeticMode.class)
+    public void quotes_should_price_both_ways(ArithmeticMode arithmeticMode) {
+        var pricing = new BidPricing(arithmeticMode, PrecisionPolicy.getDefault());
+
+        var bidQuote = pricing.quoteBid(USD, new BigDecimal("25"), new BigDecimal("100"));
+        var youGetQuote = pricing.quoteYouGet(USD, new BigDecimal("25"), new BigDecimal("75"));
+
+        assertThat(bidQuote, equalTo(new BidPricing.Quote(USD, new BigDecimal("25"), new BigDecimal("100.00"), new BigDecimal("75.00"))));
+        assertThat(youGetQuote.bidAmount(), equalTo(new BigDecimal("100.00")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArithmeticMode.class)
+    public void bid_should_price_like_its_pricing(ArithmeticMode arithmeticMode) {
+        var bid = new Bid(arithmeticMode);
+        bid.setCurrency(USD);
+        bid.setCommissionRate(new BigDecimal("2.5"));
+        bid.setBidAmount(new BigDecimal("1234.56"));
+        bid.setYouGetAmount(new BigDecimal("987.65"));
+
+        var pricing = bid.getPricing();
+
+        assertThat(bid.calculateYouGetAmount(), equalTo(pricing.youGetAmount(USD, new BigDecimal("2.5"), new BigDecimal("1234.56"))));
+        assertThat(bid.calculateBidAmount(), equalTo(pricing.bidAmount(USD, new BigDecimal("2.5"), new BigDecimal("987.65"))));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ArithmeticMode.class)
+    public void pricing_should_give_the_same_results_on_many_threads(ArithmeticMode arithmeticMode) {
+        var pricing = new BidPricing(arithmeticMode, PrecisionPolicy.getDefault());
+        var commissionRate = new BigDecimal("3.75");
+
+        var sequential = IntStream.range(0, 10_000)
+                .mapToObj(i -> pricing.youGetAmount(USD, commissionRate, BigDecimal.valueOf(i, 2)))
+                .toList();
+        var parallel = IntStream.range(0, 10_000).parallel()
+                .mapToObj(i -> pricing.youGetAmount(USD, commissionRate, BigDecimal.valueOf(i, 2)))
+                .toList();
+
+        assertThat(parallel, equalTo(sequential));
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ArbitrageDetectorTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+    private static final Currency TZS = Currency.getInstance("TZS");
+
+    private ConversionModel conversionModel;
+
+    @BeforeEach
+    public void setup() {
+        conversionModel = new ConversionModel();
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        conversionModel.putQuote(KES, UGX, new BigDecimal("26"));
+    }
+
+    @Test
+    public void consistent_quotes_and_their_reciprocals_should_not_be_flagged() {
+        conversionModel.putQuote(UGX, USD, BigDecimal.ONE.divide(new BigDecimal("3380"), 15, RoundingMode.HALF_UP));
+
+        assertThat(conversionModel.getArbitrageDetector().getArbitrages().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void a_quote_closing_a_profitable_loop_should_be_flagged() {
+        conversionModel.putQuote(USD, UGX, new BigDecimal("3000"));
+
+        var detector = conversionModel.getArbitrageDetector();
+        var arbitrages = detector.getArbitrages();
+
+        assertThat(arbitrages.size(), equalTo(1));
+        assertThat(new HashSet<>(arbitrages.get(0).getCurrencies()), equalTo(new HashSet<>(List.of(USD, KES, UGX))));
+        assertThat(arbitrages.get(0).getFactor(), greaterThan(BigDecimal.ONE));
+        assertThat(detector.involves(USD, KES), equalTo(true));
+        assertThat(detector.involves(KES, UGX), equalTo(true));
+    }
+
+    @Test
+    public void correcting_the_quote_should_clear_the_loop() {
+        conversionModel.putQuote(USD, UGX, new BigDecimal("3000"));
+        conversionModel.putQuote(USD, UGX, new BigDecimal("3380"));
+
+        assertThat(conversionModel.getArbitrageDetector().getArbitrages().isEmpty(), equalTo(true));
+        assertThat(conversionModel.getArbitrageDetector().involves(USD, KES), equalTo(false));
+    }
+
+    @Test
+    public void quotes_and_their_coarsely_rounded_reciprocals_should_not_be_flagged() {
+        var policy = ReciprocalPolicy.ofPrecision(new MathContext(3, RoundingMode.HALF_UP));
+        var coarseModel = new ConversionModel(new ThreeWayCurrencyConversion(new RateBook(CurrencyIndex.ofAvailableCurrencies(), policy)));
+        coarseModel.putQuote(USD, KES, new BigDecimal("130"));
+        coarseModel.putQuote(KES, UGX, new BigDecimal("28.4"));
+        coarseModel.putQuote(USD, UGX, new BigDecimal("3692"));
+
+        assertThat(coarseModel.getArbitrageDetector().getArbitrages().isEmpty(), equalTo(true));
+
+        coarseModel.putQuote(USD, UGX, new BigDecimal("3000"));
+
+        assertThat(coarseModel.getArbitrageDetector().involves(USD, UGX), equalTo(true));
+    }
+
+    @Test
+    public void every_loop_through_a_changed_quote_should_be_flagged() {
+        conversionModel.putQuote(USD, UGX, new BigDecimal("3380"));
+        conversionModel.putQuote(KES, TZS, new BigDecimal("18"));
+        conversionModel.putQuote(USD, TZS, new BigDecimal("2340"));
+
+        assertThat(conversionModel.getArbitrageDetector().getArbitrages().isEmpty(), equalTo(true));
+
+        conversionModel.putQuote(USD, KES, new BigDecimal("150"));
+
+        var detector = conversionModel.getArbitrageDetector();
+        var loops = new HashSet<>();
+
+        for (var arbitrage : detector.getArbitrages()) {
+            loops.add(new HashSet<>(arbitrage.getCurrencies()));
+        }
+
+        assertThat(loops.contains(new HashSet<>(List.of(USD, KES, UGX))), equalTo(true));
+        assertThat(loops.contains(new HashSet<>(List.of(USD, KES, TZS))), equalTo(true));
+        assertThat(detector.involves(KES, UGX), equalTo(true));
+        assertThat(detector.involves(KES, TZS), equalTo(true));
+    }
+
+    @Test
+    public void incremental_detection_should_find_loops_whenever_a_full_search_does() {
+        var random = new Random(3);
+        var index = conversionModel.getIndex();
+        var currencies = new int[12];
+
+        for (int i = 0; i < currencies.length; i++) {
+            currencies[i] = random.nextInt(index.size());
+        }
+
+        for (int change = 0; change < 200; change++) {
+            var base = currencies[random.nextInt(currencies.length)];
+            var quote = currencies[random.nextInt(currencies.length)];
+
+            if (base == quote) {
+                continue;
+            }
+
+            if (random.nextInt(5) == 0) {
+                conversionModel.removeQuote(index.currencyOf(base), index.currencyOf(quote));
+            } else {
+                var rate = BigDecimal.valueOf(500 + random.nextInt(1_000), 3);
+                conversionModel.putQuote(index.currencyOf(base), index.currencyOf(quote), rate);
+            }
+
+            var incremental = conversionModel.getArbitrageDetector();
+            var rebuilt = new ArbitrageDetector(incremental.getCrossRateTable());
+
+            assertThat(incremental.getArbitrages().isEmpty(), equalTo(rebuilt.getArbitrages().isEmpty()));
+
+            for (var arbitrage : incremental.getArbitrages()) {
+                assertThat(arbitrage.getFactor(), greaterThan(BigDecimal.ONE));
+            }
+        }
+    }
+
+}
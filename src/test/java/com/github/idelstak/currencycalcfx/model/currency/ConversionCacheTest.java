@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConversionCacheTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+
+    private ThreeWayCurrencyConversion conversion;
+
+    @BeforeEach
+    public void setup() {
+        var rateBook = new RateBook()
+                .withRate(USD, KES, new BigDecimal("130"))
+                .withRate(KES, UGX, new BigDecimal("26"));
+        conversion = new ThreeWayCurrencyConversion(rateBook);
+    }
+
+    @Test
+    public void repeated_conversions_should_be_served_from_the_cache() {
+        var cache = new ConversionCache(16);
+
+        var first = cache.convert(conversion, USD, UGX, new BigDecimal("2"));
+        var second = cache.convert(conversion, USD, UGX, new BigDecimal("2"));
+
+        assertThat(first, equalTo(new BigDecimal("6760")));
+        assertThat(second, equalTo(first));
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(cache.getMissCount(), equalTo(1L));
+    }
+
+    @Test
+    public void a_rate_change_should_bypass_results_of_older_rates() {
+        var cache = new ConversionCache(16);
+        cache.convert(conversion, USD, KES, new BigDecimal("2"));
+
+        var updated = conversion.withRate(USD, KES, new BigDecimal("131"));
+
+        assertThat(cache.convert(updated, USD, KES, new BigDecimal("2")), equalTo(new BigDecimal("262")));
+        assertThat(cache.getHitCount(), equalTo(0L));
+        assertThat(cache.getMissCount(), equalTo(2L));
+    }
+
+    @Test
+    public void least_recently_used_results_should_be_evicted() {
+        var cache = new ConversionCache(2);
+        cache.convert(conversion, USD, KES, new BigDecimal("1"));
+        cache.convert(conversion, USD, KES, new BigDecimal("2"));
+        cache.convert(conversion, USD, KES, new BigDecimal("1"));
+        cache.convert(conversion, USD, KES, new BigDecimal("3"));
+
+        cache.convert(conversion, USD, KES, new BigDecimal("1"));
+        cache.convert(conversion, USD, KES, new BigDecimal("2"));
+
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.getHitCount(), equalTo(2L));
+        assertThat(cache.getMissCount(), equalTo(4L));
+    }
+
+}
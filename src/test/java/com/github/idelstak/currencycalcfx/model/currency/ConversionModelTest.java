@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConversionModelTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    private ConversionModel conversionModel;
+
+    @BeforeEach
+    public void setup() {
+        conversionModel = new ConversionModel();
+    }
+
+    @Test
+    public void putting_a_quote_should_also_put_its_reciprocal() {
+        conversionModel.putQuote(USD, KES, new BigDecimal("4"));
+
+        var rateBook = conversionModel.getConversion().getRateBook();
+
+        assertThat(rateBook.getRate(USD, KES), comparesEqualTo(new BigDecimal("4")));
+        assertThat(rateBook.getRate(KES, USD), comparesEqualTo(new BigDecimal("0.25")));
+    }
+
+    @Test
+    public void putting_a_quote_should_only_copy_the_changed_rows() {
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        var before = conversionModel.getConversion().getRateBook();
+
+        conversionModel.putQuote(KES, UGX, new BigDecimal("26"));
+        var after = conversionModel.getConversion().getRateBook();
+        var index = after.getIndex();
+
+        assertThat(after.sharesRow(before, index.idOf(USD)), equalTo(true));
+        assertThat(after.sharesRow(before, index.idOf(KES)), equalTo(false));
+        assertThat(after.sharesRow(before, index.idOf(UGX)), equalTo(false));
+        assertThat(conversionModel.getConversion().convert(USD, UGX, BigDecimal.ONE), comparesEqualTo(new BigDecimal("3380")));
+    }
+
+    @Test
+    public void replacing_a_quote_should_remove_the_old_pair_in_the_same_change() {
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        var published = new ArrayList<ThreeWayCurrencyConversion>();
+        conversionModel.addListener(published::add);
+
+        conversionModel.replaceQuote(USD, KES, USD, EUR, new BigDecimal("0.9"));
+
+        var rateBook = conversionModel.getConversion().getRateBook();
+
+        assertThat(published.size(), equalTo(1));
+        assertThat(rateBook.getRate(USD, KES), nullValue());
+        assertThat(rateBook.getRate(KES, USD), nullValue());
+        assertThat(rateBook.getRate(USD, EUR), comparesEqualTo(new BigDecimal("0.9")));
+    }
+
+    @Test
+    public void only_listeners_of_the_changed_pair_should_be_notified() {
+        List<ThreeWayCurrencyConversion> usdKes = new ArrayList<>();
+        List<ThreeWayCurrencyConversion> kesUgx = new ArrayList<>();
+        conversionModel.addListener(KES, USD, usdKes::add);
+        conversionModel.addListener(KES, UGX, kesUgx::add);
+
+        var published = conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+
+        assertThat(usdKes, equalTo(List.of(published)));
+        assertThat(kesUgx.isEmpty(), equalTo(true));
+        assertThat(usdKes.get(0), sameInstance(conversionModel.getConversion()));
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.jupiter.api.Test;
+
+public class CrossRateTableTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency GBP = Currency.getInstance("GBP");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency TZS = Currency.getInstance("TZS");
+    private static final Currency UGX = Currency.getInstance("UGX");
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @Test
+    public void routes_should_span_more_than_one_intermediate_currency() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26"));
+        rateBook = rateBook.withRate(UGX, TZS, new BigDecimal("0.6"));
+
+        var table = new CrossRateTable(rateBook);
+
+        assertThat(table.getRoute(USD, TZS), equalTo(List.of(USD, KES, UGX, TZS)));
+        assertThat(table.getCrossRate(id(USD), id(TZS)), equalTo(new BigDecimal("2028.0")));
+    }
+
+    @Test
+    public void routes_with_the_same_number_of_hops_should_be_chosen_deterministically() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, GBP, new BigDecimal("0.8"));
+        rateBook = rateBook.withRate(USD, EUR, new BigDecimal("0.9"));
+        rateBook = rateBook.withRate(GBP, KES, new BigDecimal("160"));
+        rateBook = rateBook.withRate(EUR, KES, new BigDecimal("140"));
+
+        var table = new CrossRateTable(rateBook);
+
+        // EUR has a lower id than GBP, so it is explored first
+        assertThat(table.getRoute(USD, KES), equalTo(List.of(USD, EUR, KES)));
+    }
+
+    @Test
+    public void changing_a_quote_should_update_the_cross_rates_routed_through_it() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26"));
+        rateBook = rateBook.withRate(UGX, TZS, new BigDecimal("0.6"));
+
+        var table = new CrossRateTable(rateBook);
+
+        rateBook = rateBook.withRate(id(KES), id(UGX), new BigDecimal("27"));
+        var updatedTable = table.withRateBook(rateBook, id(KES), id(UGX));
+
+        assertThat(updatedTable.getCrossRate(id(USD), id(TZS)), equalTo(new CrossRateTable(rateBook).getCrossRate(id(USD), id(TZS))));
+        assertThat(updatedTable.getCrossRate(id(USD), id(KES)), equalTo(new BigDecimal("130")));
+        assertThat(table.getCrossRate(id(USD), id(TZS)), equalTo(new BigDecimal("2028.0")));
+    }
+
+    @Test
+    public void adding_and_removing_quotes_should_reroute() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26"));
+
+        var table = new CrossRateTable(rateBook);
+
+        rateBook = rateBook.withRate(id(USD), id(UGX), new BigDecimal("3700"));
+        table = table.withRateBook(rateBook, id(USD), id(UGX));
+
+        assertThat(table.getRoute(USD, UGX), equalTo(List.of(USD, UGX)));
+
+        rateBook = rateBook.withoutRate(id(KES), id(UGX));
+        table = table.withRateBook(rateBook, id(KES), id(UGX));
+
+        assertThat(table.getCrossRate(id(KES), id(UGX)), nullValue());
+        assertThat(table.getHops(id(KES), id(UGX)), equalTo(-1));
+    }
+
+    @Test
+    public void several_changes_at_once_should_match_a_full_rebuild() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26"));
+        rateBook = rateBook.withRate(EUR, GBP, new BigDecimal("0.85"));
+
+        var table = new CrossRateTable(rateBook);
+        int[] bases = {id(KES), id(UGX), id(GBP), id(USD)};
+        int[] quotes = {id(UGX), id(EUR), id(USD), id(KES)};
+        var newRateBook = rateBook.withRates(bases, quotes, new BigDecimal[]{null, new BigDecimal("0.00024"), new BigDecimal("1.25"), new BigDecimal("131")});
+
+        var updatedTable = table.withRateBook(newRateBook, bases, quotes);
+        var rebuiltTable = new CrossRateTable(newRateBook);
+
+        for (var from : List.of(EUR, GBP, KES, TZS, UGX, USD)) {
+            for (var to : List.of(EUR, GBP, KES, TZS, UGX, USD)) {
+                assertThat(updatedTable.getRoute(from, to), equalTo(rebuiltTable.getRoute(from, to)));
+                assertThat(updatedTable.getCrossRate(id(from), id(to)), equalTo(rebuiltTable.getCrossRate(id(from), id(to))));
+            }
+        }
+    }
+
+    private static int id(Currency currency) {
+        return CurrencyIndex.ofAvailableCurrencies().idOf(currency);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class DecimalParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "12", "-12.50", "+0.001", "7.", ".5", "123456789012345678",
+        "-1234567890123456789.0123456789"})
+    public void parsing_should_keep_the_value_and_scale(String text) {
+        assertThat(parse(text), equalTo(new BigDecimal(text)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "-", ".", "1.2.3", "1e5", "1,000", " 1", "12345678901234567890x"})
+    public void parsing_should_reject_anything_but_plain_decimals(String text) {
+        assertThrows(NumberFormatException.class, () -> parse(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "1.10", "-12.50", "+0.001", "7.", ".5", "123456789012345678",
+        "-1234567890123456789.0123456789"})
+    public void parsing_text_should_keep_the_value_and_scale(String text) {
+        assertThat(DecimalParser.isDecimal(text), equalTo(true));
+        assertThat(DecimalParser.parse(text), equalTo(new BigDecimal(text)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "-", ".", "+.", "1.2.3", "1e5", "1,000", " 1", "12345678901234567890x"})
+    public void text_being_typed_should_not_be_a_decimal_until_it_has_a_digit(String text) {
+        assertThat(DecimalParser.isDecimal(text), equalTo(false));
+        assertThrows(NumberFormatException.class, () -> DecimalParser.parse(text));
+    }
+
+    @Test
+    public void parsing_text_should_not_go_through_double() {
+        assertThat(DecimalParser.parse(new StringBuilder("1.10")).unscaledValue().longValue(), equalTo(110L));
+        assertThat(DecimalParser.parse("0.1").scale(), equalTo(1));
+    }
+
+    private static BigDecimal parse(String text) {
+        var bytes = ByteBuffer.wrap(("[" + text + "]").getBytes(StandardCharsets.US_ASCII));
+        return DecimalParser.parse(bytes, 1, bytes.limit() - 1);
+    }
+
+}
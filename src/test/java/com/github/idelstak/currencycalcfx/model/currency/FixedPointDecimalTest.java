@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class FixedPointDecimalTest {
+
+    @Test
+    public void packed_rates_should_round_trip() {
+        var rate = new BigDecimal("0.007692307692308");
+        var packedRate = FixedPointDecimal.packRate(rate);
+
+        assertThat(FixedPointDecimal.toBigDecimal(FixedPointDecimal.unscaledRate(packedRate), FixedPointDecimal.rateScale(packedRate)), equalTo(rate));
+        assertThat(FixedPointDecimal.packRate(new BigDecimal("1E+30")), equalTo(FixedPointDecimal.NO_RATE));
+    }
+
+    @Test
+    public void conversions_should_match_rounded_decimal_conversions() {
+        var random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            var amount = BigDecimal.valueOf(random.nextLong() % 100_000_000_000_000L, 2);
+            var rate = BigDecimal.valueOf(Math.abs(random.nextLong() % 10_000_000_000_000_000L), random.nextInt(16));
+            var expected = ArithmeticMode.DECIMAL.convert(amount, rate).setScale(FixedPointDecimal.AMOUNT_SCALE, RoundingMode.HALF_UP);
+
+            assertThat(ArithmeticMode.FIXED_POINT.convert(amount, rate), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void products_wider_than_a_long_should_still_be_rounded_exactly() {
+        var amount = new BigDecimal("92233720368547.75");
+        var rate = new BigDecimal("0.000123456789012345");
+        var expected = amount.multiply(rate).setScale(6, RoundingMode.HALF_UP);
+
+        var result = FixedPointDecimal.convert(amount.unscaledValue().longValueExact(), 2, FixedPointDecimal.packRate(rate), 6);
+
+        assertThat(BigDecimal.valueOf(result, 6), equalTo(expected));
+    }
+
+    @Test
+    public void conversions_that_do_not_fit_a_long_should_be_rounded_once() {
+        // 1000000000000000.000049 rounds to .00005 at 21 digits, then to .0001
+        var amount = new BigDecimal("1000000000000000");
+        var rate = new BigDecimal("1.000000000000000000049");
+        var expected = ArithmeticMode.DECIMAL.convert(amount, rate).setScale(FixedPointDecimal.AMOUNT_SCALE, RoundingMode.HALF_UP);
+
+        var result = ArithmeticMode.FIXED_POINT.convert(amount, rate, new MathContext(21, RoundingMode.HALF_UP));
+
+        assertThat(result, equalTo(expected));
+        assertThat(result, equalTo(new BigDecimal("1000000000000000.0000")));
+    }
+
+    @Test
+    public void results_that_do_not_fit_a_long_should_fail() {
+        assertThrows(ArithmeticException.class, () -> FixedPointDecimal.convert(Long.MAX_VALUE, 0, FixedPointDecimal.packRate(new BigDecimal("10")), 0));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"25, 100, 75.00", "12.5, 33.33, 29.16", "0, 0.01, 0.01", "7.25, -10, -9.28", "150, 10, -5.00"})
+    public void you_get_amounts_should_match_the_decimal_engine(String commission,
+            String bidAmount, String youGetAmount) {
+        var commissionRate = new BigDecimal(commission);
+        var amount = new BigDecimal(bidAmount);
+
+        assertThat(ArithmeticMode.DECIMAL.calculateYouGetAmount(amount, commissionRate), equalTo(new BigDecimal(youGetAmount)));
+        assertThat(ArithmeticMode.FIXED_POINT.calculateYouGetAmount(amount, commissionRate), equalTo(new BigDecimal(youGetAmount)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"25, 75, 100.00", "12.5, 29.16, 33.33", "3, 1, 1.03", "7.25, -9.28, -10.01", "150, -5, 10.00"})
+    public void bid_amounts_should_match_the_decimal_engine(String commission,
+            String youGetAmount, String bidAmount) {
+        var commissionRate = new BigDecimal(commission);
+        var amount = new BigDecimal(youGetAmount);
+
+        assertThat(ArithmeticMode.DECIMAL.calculateBidAmount(amount, commissionRate), equalTo(new BigDecimal(bidAmount)));
+        assertThat(ArithmeticMode.FIXED_POINT.calculateBidAmount(amount, commissionRate), equalTo(new BigDecimal(bidAmount)));
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ParallelBatchConversionTest {
+
+    private static final int BATCH_SIZE = 100_000;
+
+    private final Currency[] currencies = {
+        Currency.getInstance("USD"), Currency.getInstance("KES"),
+        Currency.getInstance("UGX"), Currency.getInstance("EUR")
+    };
+    private ForkJoinPool pool;
+    private ThreeWayCurrencyConversion conversion;
+    private int[] fromCurrencies;
+    private int[] toCurrencies;
+
+    @BeforeEach
+    public void setup() {
+        pool = new ForkJoinPool(4);
+
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(currencies[0], currencies[1], new BigDecimal("130.25"));
+        rateBook = rateBook.withRate(currencies[1], currencies[2], new BigDecimal("26.1"));
+        rateBook = rateBook.withRate(currencies[2], currencies[3], new BigDecimal("0.00025"));
+        rateBook = rateBook.withRate(currencies[3], currencies[0], new BigDecimal("1.09"));
+        conversion = new ThreeWayCurrencyConversion(rateBook, ArithmeticMode.FIXED_POINT);
+
+        var random = new Random(7);
+        var index = rateBook.getIndex();
+        fromCurrencies = new int[BATCH_SIZE];
+        toCurrencies = new int[BATCH_SIZE];
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            fromCurrencies[i] = index.idOf(currencies[random.nextInt(currencies.length)]);
+            toCurrencies[i] = index.idOf(currencies[random.nextInt(currencies.length)]);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void parallel_conversion_should_match_sequential_conversion() {
+        var random = new Random(11);
+        var amounts = new long[BATCH_SIZE];
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            amounts[i] = random.nextInt(10_000_000);
+        }
+
+        var sequentialResults = new long[BATCH_SIZE];
+        var parallelResults = new long[BATCH_SIZE];
+
+        conversion.convert(fromCurrencies, toCurrencies, amounts, 2, sequentialResults, 4);
+        new ParallelBatchConversion(pool, 1_000).convert(conversion, fromCurrencies, toCurrencies, amounts, 2, parallelResults, 4);
+
+        assertArrayEquals(sequentialResults, parallelResults);
+    }
+
+    @Test
+    public void parallel_decimal_conversion_should_match_sequential_conversion() {
+        var amounts = new BigDecimal[BATCH_SIZE];
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            amounts[i] = BigDecimal.valueOf(i, 2);
+        }
+
+        var sequentialResults = new BigDecimal[BATCH_SIZE];
+        var parallelResults = new BigDecimal[BATCH_SIZE];
+
+        conversion.convert(fromCurrencies, toCurrencies, amounts, sequentialResults);
+        new ParallelBatchConversion(pool, 1_000).convert(conversion, fromCurrencies, toCurrencies, amounts, parallelResults);
+
+        assertArrayEquals(sequentialResults, parallelResults);
+    }
+
+    @Test
+    public void rates_changed_after_the_snapshot_should_not_affect_it() {
+        var snapshot = conversion.snapshot();
+        var updated = conversion.withRate(currencies[0], currencies[1], new BigDecimal("1"));
+
+        assertThat(snapshot.convert(currencies[0], currencies[1], BigDecimal.ONE), equalTo(new BigDecimal("130.2500")));
+        assertThat(updated.convert(currencies[0], currencies[1], BigDecimal.ONE), equalTo(new BigDecimal("1.0000")));
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import com.github.idelstak.currencycalcfx.model.Bid;
+import java.math.BigDecimal;
+import java.util.Currency;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import org.junit.jupiter.api.Test;
+
+public class PrecisionPolicyTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+    private static final Currency BHD = Currency.getInstance("BHD");
+    private static final Currency XAU = Currency.getInstance("XAU");
+
+    @Test
+    public void amounts_should_be_rounded_to_the_minor_units_of_their_currency() {
+        var policy = PrecisionPolicy.getDefault();
+        var amount = new BigDecimal("1234.5678");
+
+        assertThat(policy.roundToMinorUnits(amount, USD), equalTo(new BigDecimal("1234.57")));
+        assertThat(policy.roundToMinorUnits(amount, JPY), equalTo(new BigDecimal("1235")));
+        assertThat(policy.roundToMinorUnits(amount, BHD), equalTo(new BigDecimal("1234.568")));
+        assertThat(policy.roundToMinorUnits(amount, XAU), equalTo(new BigDecimal("1234.57")));
+        assertThat(new CurrencyAmount(JPY, amount).amount(), equalTo(new BigDecimal("1235")));
+    }
+
+    @Test
+    public void cross_rates_should_not_grow_beyond_the_rate_precision() {
+        var policy = PrecisionPolicy.getDefault().withIntermediatePrecision(20);
+        var index = CurrencyIndex.ofAvailableCurrencies();
+        var rateBook = new RateBook(index, policy);
+        var codes = new String[]{"USD", "KES", "UGX", "TZS", "RWF", "BIF"};
+
+        for (int i = 1; i < codes.length; i++) {
+            rateBook = rateBook.withQuote(Currency.getInstance(codes[i]), Currency.getInstance(codes[i - 1]), new BigDecimal("7.3"));
+        }
+
+        var table = new CrossRateTable(rateBook);
+        var crossRate = table.getCrossRate(index.idOf("USD"), index.idOf("BIF"));
+
+        assertThat(table.getHops(index.idOf("USD"), index.idOf("BIF")), equalTo(5));
+        assertThat(crossRate.precision(), lessThanOrEqualTo(20));
+    }
+
+    @Test
+    public void bid_amounts_should_follow_the_selected_currency() {
+        var bid = new Bid(ArithmeticMode.DECIMAL);
+        bid.setCommissionRate(new BigDecimal("25"));
+        bid.setBidAmount(new BigDecimal("1001"));
+
+        bid.setCurrency(JPY);
+        assertThat(bid.calculateYouGetAmount(), equalTo(new BigDecimal("751")));
+
+        bid.setCurrency(USD);
+        assertThat(bid.calculateYouGetAmount(), equalTo(new BigDecimal("750.75")));
+    }
+
+}
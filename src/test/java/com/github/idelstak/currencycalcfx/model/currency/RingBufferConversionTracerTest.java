@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RingBufferConversionTracerTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+
+    @Test
+    public void conversions_should_be_recorded_with_their_route() {
+        var tracer = new RingBufferConversionTracer(8, 1);
+        var conversion = new ThreeWayCurrencyConversion(createRateBook(), ArithmeticMode.DECIMAL, tracer);
+
+        conversion.convert(USD, UGX, new BigDecimal("2"));
+
+        var event = tracer.getEvents().get(0);
+        assertThat(event.route(), equalTo(List.of(USD, KES, UGX)));
+        assertThat(event.rate(), equalTo(new BigDecimal("3380")));
+        assertThat(event.result(), equalTo(new BigDecimal("6760")));
+        assertThat(event.toString(), containsString("USD -> KES -> UGX 2 @ 3380 = 6760"));
+    }
+
+    @Test
+    public void only_the_most_recent_conversions_should_be_kept() {
+        var tracer = new RingBufferConversionTracer(3, 1);
+        var conversion = new ThreeWayCurrencyConversion(createRateBook(), ArithmeticMode.DECIMAL, tracer);
+
+        for (int amount = 1; amount <= 5; amount++) {
+            conversion.convert(USD, KES, BigDecimal.valueOf(amount));
+        }
+
+        var amounts = tracer.getEvents().stream().map(RingBufferConversionTracer.ConversionEvent::amount).toList();
+        assertThat(amounts, equalTo(List.of(BigDecimal.valueOf(3), BigDecimal.valueOf(4), BigDecimal.valueOf(5))));
+        assertThat(tracer.getRecordedCount(), equalTo(5L));
+    }
+
+    @Test
+    public void sampling_should_record_a_fraction_of_the_conversions() {
+        var tracer = new RingBufferConversionTracer(16, 10);
+        var conversion = new ThreeWayCurrencyConversion(createRateBook(), ArithmeticMode.DECIMAL, tracer);
+
+        for (int i = 0; i < 10_000; i++) {
+            conversion.convert(USD, KES, BigDecimal.ONE);
+        }
+
+        assertThat(tracer.getRecordedCount() > 500 && tracer.getRecordedCount() < 1_500, equalTo(true));
+    }
+
+    @Test
+    public void dumping_to_a_file_should_write_one_line_per_conversion(@TempDir Path directory) throws IOException {
+        var tracer = new RingBufferConversionTracer(8, 1);
+        var conversion = new ThreeWayCurrencyConversion(createRateBook(), ArithmeticMode.DECIMAL, tracer);
+        var file = directory.resolve("trace.log");
+
+        conversion.convert(USD, KES, BigDecimal.ONE);
+        conversion.convert(USD, UGX, new BigDecimal("2"));
+        tracer.dump(file);
+
+        var lines = Files.readAllLines(file);
+        assertThat(lines.size(), equalTo(2));
+        assertThat(lines.get(1), containsString("USD -> KES -> UGX 2 @ 3380 = 6760"));
+    }
+
+    private static RateBook createRateBook() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26"));
+        return rateBook;
+    }
+
+}
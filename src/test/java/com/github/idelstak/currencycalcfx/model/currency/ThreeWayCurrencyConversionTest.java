@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.model.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class ThreeWayCurrencyConversionTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+
+    @Test
+    public void currency_ids_should_be_compact_and_follow_currency_code_order() {
+        var index = CurrencyIndex.ofAvailableCurrencies();
+
+        assertThat(index.currencyOf(index.idOf(KES)), equalTo(KES));
+        assertThat(index.idOf("KES") < index.idOf("UGX"), equalTo(true));
+        assertThat(index.idOf("UGX") < index.idOf("USD"), equalTo(true));
+        assertThat(index.idOf("kes"), equalTo(-1));
+    }
+
+    @Test
+    public void direct_rate_should_be_used_when_available() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+
+        var conversion = new ThreeWayCurrencyConversion(rateBook);
+
+        assertThat(conversion.convert(USD, KES, new BigDecimal("100")), equalTo(new BigDecimal("13000")));
+    }
+
+    @Test
+    public void fallback_should_go_through_an_intermediate_currency() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26"));
+
+        var conversion = new ThreeWayCurrencyConversion(rateBook);
+
+        assertThat(conversion.convert(USD, UGX, new BigDecimal("2")), equalTo(new BigDecimal("6760")));
+    }
+
+    @Test
+    public void id_based_conversion_should_match_currency_based_conversion() {
+        var conversion = new ThreeWayCurrencyConversion(Map.of(USD, Map.of(KES, new BigDecimal("130"))));
+        var index = conversion.getRateBook().getIndex();
+        var amount = new BigDecimal("12.34");
+
+        assertThat(conversion.convert(index.idOf(USD), index.idOf(KES), amount), equalTo(conversion.convert(USD, KES, amount)));
+    }
+
+    @Test
+    public void batch_conversion_should_match_single_conversions() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("130"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26"));
+
+        var conversion = new ThreeWayCurrencyConversion(rateBook);
+        var index = rateBook.getIndex();
+        int[] fromCurrencies = {index.idOf(USD), index.idOf(USD), index.idOf(KES), index.idOf(UGX)};
+        int[] toCurrencies = {index.idOf(KES), index.idOf(KES), index.idOf(UGX), index.idOf(UGX)};
+        BigDecimal[] amounts = {new BigDecimal("1.50"), new BigDecimal("2"), new BigDecimal("10"), new BigDecimal("7")};
+        var results = new BigDecimal[amounts.length];
+
+        conversion.convert(fromCurrencies, toCurrencies, amounts, results);
+
+        for (int i = 0; i < amounts.length; i++) {
+            assertThat(results[i], equalTo(conversion.convert(fromCurrencies[i], toCurrencies[i], amounts[i])));
+        }
+    }
+
+    @Test
+    public void fixed_point_batch_conversion_should_match_the_fixed_point_engine() {
+        var rateBook = new RateBook();
+        rateBook = rateBook.withRate(USD, KES, new BigDecimal("0.007692307692308"));
+        rateBook = rateBook.withRate(KES, UGX, new BigDecimal("26.5"));
+
+        var conversion = new ThreeWayCurrencyConversion(rateBook, ArithmeticMode.FIXED_POINT);
+        var index = rateBook.getIndex();
+        int[] fromCurrencies = {index.idOf(USD), index.idOf(KES), index.idOf(USD)};
+        int[] toCurrencies = {index.idOf(KES), index.idOf(UGX), index.idOf(UGX)};
+        long[] amounts = {12345, 99, -100000};
+        var results = new long[amounts.length];
+
+        conversion.convert(fromCurrencies, toCurrencies, amounts, 2, results, FixedPointDecimal.AMOUNT_SCALE);
+
+        for (int i = 0; i < amounts.length; i++) {
+            var expected = conversion.convert(fromCurrencies[i], toCurrencies[i], BigDecimal.valueOf(amounts[i], 2));
+            assertThat(BigDecimal.valueOf(results[i], FixedPointDecimal.AMOUNT_SCALE), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void rate_books_should_be_versioned_and_share_unchanged_rows() {
+        var rateBook = new RateBook()
+                .withRate(USD, KES, new BigDecimal("130"))
+                .withRate(KES, UGX, new BigDecimal("26"));
+        var index = rateBook.getIndex();
+
+        var updated = rateBook.withRate(USD, KES, new BigDecimal("131"));
+
+        assertThat(updated.getVersion() > rateBook.getVersion(), equalTo(true));
+        assertThat(updated.sharesRow(rateBook, index.idOf(KES)), equalTo(true));
+        assertThat(updated.sharesRow(rateBook, index.idOf(USD)), equalTo(false));
+        assertThat(rateBook.getRate(USD, KES), equalTo(new BigDecimal("130")));
+    }
+
+    @Test
+    public void quotes_should_store_their_reciprocal_once() {
+        var rateBook = new RateBook().withQuote(USD, KES, new BigDecimal("130"));
+
+        assertThat(rateBook.getRate(KES, USD), equalTo(new BigDecimal("0.007692307692308")));
+        assertThat(rateBook.getRate(KES, USD), sameInstance(rateBook.getRate(KES, USD)));
+
+        var removed = rateBook.withQuote(USD, KES, null);
+
+        assertThat(removed.hasRate(removed.requireId(USD), removed.requireId(KES)), equalTo(false));
+        assertThat(removed.hasRate(removed.requireId(KES), removed.requireId(USD)), equalTo(false));
+    }
+
+    @Test
+    public void reciprocal_precision_should_follow_the_policy_of_the_book() {
+        var policy = ReciprocalPolicy.ofPrecision(new MathContext(20, RoundingMode.HALF_UP));
+        var rateBook = new RateBook(CurrencyIndex.ofAvailableCurrencies(), policy)
+                .withQuote(USD, UGX, new BigDecimal("3380"));
+
+        assertThat(rateBook.getRate(UGX, USD), equalTo(new BigDecimal("0.00029585798816568047337")));
+        assertThat(rateBook.getRate(UGX, USD).precision(), equalTo(20));
+    }
+
+    @Test
+    public void missing_rates_should_fail_the_conversion() {
+        var conversion = new ThreeWayCurrencyConversion(new RateBook());
+
+        assertThrows(NoSuchElementException.class, () -> conversion.convert(USD, KES, BigDecimal.ONE));
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.provider;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DirectoryRateProviderTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+    private static final Duration SETTLE_DELAY = Duration.ofMillis(20);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void starting_should_publish_the_files_already_in_the_directory() throws IOException {
+        Files.writeString(directory.resolve("usd.csv"), "USD,KES,130\n");
+        Files.writeString(directory.resolve("kes.csv"), "KES,UGX,26.5\n");
+        Files.writeString(directory.resolve("next.csv.tmp"), "USD,UGX,1\n");
+        var conversionModel = new ConversionModel();
+
+        try (var provider = new DirectoryRateProvider(directory, SETTLE_DELAY)) {
+            provider.start(conversionModel);
+
+            var rateBook = conversionModel.getConversion().getRateBook();
+            assertThat(rateBook.getRate(USD, KES), equalTo(new BigDecimal("130")));
+            assertThat(rateBook.getRate(KES, UGX), equalTo(new BigDecimal("26.5")));
+            assertThat(hasRate(conversionModel, USD, UGX), equalTo(false));
+        }
+    }
+
+    @Test
+    public void changing_a_file_should_publish_only_its_changed_quotes_at_once() throws Exception {
+        var file = directory.resolve("rates.csv");
+        Files.writeString(file, "USD,KES,130\nKES,UGX,26.5\n");
+        var conversionModel = new ConversionModel();
+        var changes = new AtomicInteger();
+
+        try (var provider = new DirectoryRateProvider(directory, SETTLE_DELAY)) {
+            provider.start(conversionModel);
+            var before = conversionModel.getConversion().getRateBook();
+            conversionModel.addListener(conversion -> changes.incrementAndGet());
+
+            replace(file, "USD,KES,131\nKES,UGX,26.5\n");
+
+            await(() -> conversionModel.getConversion().getRateBook().getRate(USD, KES)
+                    .equals(new BigDecimal("131")));
+            var after = conversionModel.getConversion().getRateBook();
+            assertThat(changes.get(), equalTo(1));
+            assertThat(after.sharesRow(before, conversionModel.getIndex().idOf(KES)), equalTo(false));
+            assertThat(after.sharesRow(before, conversionModel.getIndex().idOf(UGX)), equalTo(true));
+        }
+    }
+
+    @Test
+    public void removing_a_quote_should_fall_back_to_another_file_that_quotes_the_pair() throws Exception {
+        var first = directory.resolve("a.csv");
+        var second = directory.resolve("b.csv");
+        Files.writeString(first, "USD,KES,130\nKES,UGX,26.5\n");
+        Files.writeString(second, "USD,KES,130\n");
+        var conversionModel = new ConversionModel();
+
+        try (var provider = new DirectoryRateProvider(directory, SETTLE_DELAY)) {
+            provider.start(conversionModel);
+
+            Files.delete(first);
+
+            await(() -> !hasRate(conversionModel, KES, UGX));
+            assertThat(conversionModel.getConversion().getRateBook().getRate(USD, KES),
+                    equalTo(new BigDecimal("130")));
+        }
+    }
+
+    @Test
+    public void removing_a_quote_should_keep_the_reverse_quote_of_another_file() throws Exception {
+        var first = directory.resolve("a.csv");
+        var second = directory.resolve("b.csv");
+        Files.writeString(first, "USD,KES,130\nKES,UGX,26.5\n");
+        Files.writeString(second, "KES,USD,0.0077\n");
+        var conversionModel = new ConversionModel();
+
+        try (var provider = new DirectoryRateProvider(directory, SETTLE_DELAY)) {
+            provider.start(conversionModel);
+
+            Files.delete(first);
+
+            await(() -> !hasRate(conversionModel, KES, UGX));
+            assertThat(conversionModel.getConversion().getRateBook().getRate(KES, USD),
+                    equalTo(new BigDecimal("0.0077")));
+            assertThat(hasRate(conversionModel, USD, KES), equalTo(true));
+        }
+    }
+
+    @Test
+    public void a_file_with_a_quote_that_can_not_be_published_should_keep_its_previous_quotes() throws Exception {
+        var file = directory.resolve("rates.csv");
+        Files.writeString(file, "USD,KES,130\n");
+        var conversionModel = new ConversionModel();
+
+        try (var provider = new DirectoryRateProvider(directory, SETTLE_DELAY)) {
+            provider.start(conversionModel);
+
+            replace(file, "USD,KES,131\nUSD,USD,2\n");
+            Files.writeString(directory.resolve("other.csv"), "KES,UGX,26.5\n");
+
+            await(() -> hasRate(conversionModel, KES, UGX));
+            assertThat(conversionModel.getConversion().getRateBook().getRate(USD, KES),
+                    equalTo(new BigDecimal("130")));
+        }
+    }
+
+    @Test
+    public void an_unreadable_file_should_keep_its_previous_quotes() throws Exception {
+        var file = directory.resolve("rates.csv");
+        Files.writeString(file, "USD,KES,130\n");
+        var conversionModel = new ConversionModel();
+
+        try (var provider = new DirectoryRateProvider(directory, SETTLE_DELAY)) {
+            provider.start(conversionModel);
+
+            replace(file, "USD,QQQ,1\n");
+            Files.writeString(directory.resolve("other.csv"), "KES,UGX,26.5\n");
+
+            await(() -> hasRate(conversionModel, KES, UGX));
+            assertThat(conversionModel.getConversion().getRateBook().getRate(USD, KES),
+                    equalTo(new BigDecimal("130")));
+        }
+    }
+
+    private static boolean hasRate(ConversionModel conversionModel, Currency base, Currency quote) {
+        var index = conversionModel.getIndex();
+        return conversionModel.getConversion().getRateBook().hasRate(index.idOf(base), index.idOf(quote));
+    }
+
+    private void replace(Path file, String content) throws IOException {
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, content);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(condition.getAsBoolean(), "Timed out waiting for the rates to be reloaded");
+    }
+
+}
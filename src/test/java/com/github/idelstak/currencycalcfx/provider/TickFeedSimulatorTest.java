@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.provider;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.provider.TickFeedSimulator.LagHistogram;
+import com.github.idelstak.currencycalcfx.provider.TickFeedSimulator.Pair;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import org.junit.jupiter.api.Test;
+
+public class TickFeedSimulatorTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+
+    @Test
+    public void ticks_should_walk_each_pair_from_its_known_rate() throws InterruptedException {
+        var conversionModel = new ConversionModel();
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        var simulator = new TickFeedSimulator(List.of(new Pair(USD, KES), new Pair(KES, UGX)), 2000)
+                .withSeed(1);
+
+        simulator.start(conversionModel);
+        Thread.sleep(200);
+        simulator.close();
+
+        var rateBook = conversionModel.getConversion().getRateBook();
+        var statistics = simulator.getStatistics();
+        assertThat(statistics.delivered(), greaterThan(0L));
+        assertThat(statistics.delivered() + statistics.dropped(), equalTo(statistics.generated()));
+        assertThat(rateBook.getRate(USD, KES), not(equalTo(new BigDecimal("130"))));
+        assertThat(rateBook.getRate(USD, KES).doubleValue(), greaterThan(120.0));
+        assertThat(rateBook.getRate(USD, KES).doubleValue(), lessThanOrEqualTo(140.0));
+        assertThat(rateBook.getRate(KES, UGX).doubleValue(), greaterThan(0.9));
+    }
+
+    @Test
+    public void a_slow_model_should_drop_the_ticks_its_buffer_can_not_hold() throws InterruptedException {
+        var conversionModel = new ConversionModel();
+        conversionModel.addListener(conversion -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        var simulator = new TickFeedSimulator(List.of(new Pair(USD, KES)), 5000)
+                .withBufferCapacity(4);
+
+        simulator.start(conversionModel);
+        Thread.sleep(300);
+        simulator.close();
+
+        var statistics = simulator.getStatistics();
+        assertThat(statistics.dropped(), greaterThan(0L));
+        assertThat(statistics.delivered(), greaterThan(0L));
+        assertThat(statistics.delivered() + statistics.dropped(), equalTo(statistics.generated()));
+        assertThat(statistics.medianLagNanos(), greaterThanOrEqualTo(5_000_000L));
+        assertThat(statistics.maxLagNanos(), greaterThanOrEqualTo(statistics.p99LagNanos()));
+        assertThat(statistics.p99LagNanos(), greaterThanOrEqualTo(statistics.medianLagNanos()));
+    }
+
+    @Test
+    public void lag_percentiles_should_be_within_an_eighth_of_the_recorded_values() {
+        var histogram = new LagHistogram();
+
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.max(), equalTo(1_000_000L));
+        assertThat((double) histogram.percentile(0.5), greaterThanOrEqualTo(500_000.0));
+        assertThat((double) histogram.percentile(0.5), lessThanOrEqualTo(500_000 * 1.125));
+        assertThat((double) histogram.percentile(0.99), greaterThanOrEqualTo(990_000.0));
+        assertThat(histogram.percentile(1), equalTo(1_000_000L));
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.server;
+
+import com.github.idelstak.currencycalcfx.model.BidPricing;
+import com.github.idelstak.currencycalcfx.model.currency.ArithmeticMode;
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import com.github.idelstak.currencycalcfx.model.currency.RateBook;
+import com.github.idelstak.currencycalcfx.model.currency.RingBufferConversionTracer;
+import com.github.idelstak.currencycalcfx.model.currency.ThreeWayCurrencyConversion;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Currency;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class QuoteServerTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    private ConversionModel conversionModel;
+    private QuoteServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        conversionModel = new ConversionModel();
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        conversionModel.putQuote(KES, UGX, new BigDecimal("26"));
+        server = new QuoteServer(new InetSocketAddress("localhost", 0), conversionModel, BidPricing.getDefault());
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void converting_should_round_to_the_target_minor_units() throws Exception {
+        var response = get("/convert?from=KES&to=USD&amount=100");
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.body(), equalTo("0.77"));
+    }
+
+    @Test
+    public void converting_a_batch_should_answer_every_line_in_order() throws Exception {
+        var response = post("/convert", "USD,UGX,1\nUGX,XYZ,1\nKES,USD,13\n");
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.body().split("\n")[0], equalTo("3380"));
+        assertThat(response.body().split("\n")[1].startsWith("ERROR"), equalTo(true));
+        assertThat(response.body().split("\n")[2], equalTo("0.10"));
+    }
+
+    @Test
+    public void quoting_should_price_the_bid_after_commission() throws Exception {
+        var response = get("/quote?currency=USD&commissionRate=2.5&bidAmount=100");
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.body(), equalTo("currency=USD&commissionRate=2.5&bidAmount=100.00&youGetAmount=97.50"));
+    }
+
+    @Test
+    public void publishing_rates_should_update_the_model() throws Exception {
+        var response = post("/rates", "USD,EUR,0.9\n");
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(conversionModel.getConversion().getRateBook().getRate(USD, EUR), comparesEqualTo(new BigDecimal("0.9")));
+        assertThat(get("/convert?from=EUR&to=USD&amount=9").body(), equalTo("10.00"));
+    }
+
+    @Test
+    public void bad_requests_should_be_rejected() throws Exception {
+        assertThat(get("/convert?from=USD&to=KES").statusCode(), equalTo(400));
+        assertThat(get("/convert?from=USD&to=EUR&amount=1").statusCode(), equalTo(404));
+        assertThat(post("/quote", "").statusCode(), equalTo(405));
+    }
+
+    @Test
+    public void unsupported_methods_should_be_answered_with_the_allowed_ones() throws Exception {
+        var rates = get("/rates");
+        var quote = post("/quote", "");
+
+        assertThat(rates.statusCode(), equalTo(405));
+        assertThat(rates.headers().firstValue("Allow").orElse(null), equalTo("POST"));
+        assertThat(quote.headers().firstValue("Allow").orElse(null), equalTo("GET"));
+    }
+
+    @Test
+    public void publishing_a_rate_that_is_not_positive_should_be_rejected() throws Exception {
+        var response = post("/rates", "USD,EUR,0.9\nUSD,UGX,0\n");
+
+        assertThat(response.statusCode(), equalTo(400));
+        assertThat(response.body(), equalTo("Line 2: rate must be positive: 0"));
+        assertThat(conversionModel.getConversion().getRateBook().getRate(USD, EUR), equalTo(null));
+    }
+
+    @Test
+    public void the_trace_should_list_the_recorded_conversions() throws Exception {
+        assertThat(get("/trace").statusCode(), equalTo(404));
+        server.stop(0);
+
+        var tracer = new RingBufferConversionTracer(16, 1);
+        var rateBook = new RateBook(CurrencyIndex.ofAvailableCurrencies());
+        conversionModel = new ConversionModel(new ThreeWayCurrencyConversion(rateBook, ArithmeticMode.DECIMAL, tracer));
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        conversionModel.putQuote(KES, UGX, new BigDecimal("26"));
+        server = new QuoteServer(new InetSocketAddress("localhost", 0), conversionModel, BidPricing.getDefault());
+        server.start();
+
+        get("/convert?from=USD&to=UGX&amount=2");
+        var response = get("/trace");
+
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(response.body().strip().endsWith("USD -> KES -> UGX 2 @ 3380 = 6760"), equalTo(true));
+        assertThat(post("/trace", "").statusCode(), equalTo(405));
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Currency;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RateBookSnapshotterTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void restoring_should_bring_back_every_rate_saved_on_close() throws IOException {
+        var file = directory.resolve("snapshots").resolve("rates.snapshot");
+        var conversionModel = new ConversionModel();
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+        conversionModel.putQuote(KES, UGX, new BigDecimal("26.125"));
+        var savedVersion = conversionModel.getConversion().getRateBook().getVersion();
+
+        new RateBookSnapshotter(conversionModel, file, Duration.ZERO).close();
+        var restoredModel = new ConversionModel();
+        var restored = new RateBookSnapshotter(restoredModel, file, Duration.ZERO).restore();
+
+        var rateBook = restoredModel.getConversion().getRateBook();
+        var snapshot = RateBookSnapshot.read(file, restoredModel.getIndex());
+        assertThat(restored, equalTo(true));
+        assertThat(snapshot.rates().size(), equalTo(4));
+        assertThat(snapshot.rateBookVersion(), equalTo(savedVersion));
+        assertThat(rateBook.getRate(KES, UGX), equalTo(new BigDecimal("26.125")));
+        assertThat(rateBook.getRate(KES, USD), equalTo(conversionModel.getConversion().getRateBook().getRate(KES, USD)));
+        assertThat(rateBook.getVersion(), greaterThan(savedVersion));
+    }
+
+    @Test
+    public void saving_should_skip_rates_that_did_not_change() throws IOException {
+        var file = directory.resolve("rates.snapshot");
+        var conversionModel = new ConversionModel();
+        var snapshotter = new RateBookSnapshotter(conversionModel, file, Duration.ZERO);
+
+        assertThat(snapshotter.save(), equalTo(true));
+        assertThat(snapshotter.save(), equalTo(false));
+
+        conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+
+        assertThat(snapshotter.save(), equalTo(true));
+        assertThat(snapshotter.save(), equalTo(false));
+        assertThat(RateBookSnapshot.read(file, conversionModel.getIndex()).rates().size(), equalTo(2));
+    }
+
+    @Test
+    public void saving_should_round_rates_too_precise_for_a_snapshot() throws IOException {
+        var file = directory.resolve("rates.snapshot");
+        var conversionModel = new ConversionModel();
+        conversionModel.putQuote(USD, KES, new BigDecimal("130.12345678901234567890123"));
+
+        assertThat(new RateBookSnapshotter(conversionModel, file, Duration.ZERO).save(), equalTo(true));
+
+        var restoredModel = new ConversionModel();
+        new RateBookSnapshotter(restoredModel, file, Duration.ZERO).restore();
+        assertThat(restoredModel.getConversion().getRateBook().getRate(USD, KES),
+                equalTo(new BigDecimal("130.123456789012346")));
+    }
+
+    @Test
+    public void restoring_an_unreadable_snapshot_should_leave_the_model_empty() throws IOException {
+        var file = Files.writeString(directory.resolve("rates.snapshot"), "USD,KES,130\n");
+        var conversionModel = new ConversionModel();
+        var before = conversionModel.getConversion();
+
+        var restored = new RateBookSnapshotter(conversionModel, file, Duration.ZERO).restore();
+
+        assertThat(restored, equalTo(false));
+        assertThat(conversionModel.getConversion() == before, equalTo(true));
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Currency;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RateFileLoaderTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+
+    @TempDir
+    Path directory;
+    private final CurrencyIndex index = CurrencyIndex.ofAvailableCurrencies();
+    private final RateFileLoader loader = new RateFileLoader(index);
+
+    @Test
+    public void loading_a_csv_file_should_publish_every_quote_at_once() throws IOException {
+        var file = Files.writeString(directory.resolve("rates.csv"),
+                "# base,quote,rate\r\n USD , KES , 130.25 \r\n\nKES,UGX,26\n");
+        var conversionModel = new ConversionModel();
+        var versions = new int[1];
+        conversionModel.addListener(conversion -> versions[0]++);
+
+        var sheet = loader.load(file);
+        var conversion = sheet.publishTo(conversionModel);
+
+        assertThat(sheet.size(), equalTo(2));
+        assertThat(versions[0], equalTo(1));
+        assertThat(conversion.getRateBook().getRate(USD, KES), equalTo(new BigDecimal("130.25")));
+        assertThat(conversion.convert(USD, UGX, BigDecimal.ONE), comparesEqualTo(new BigDecimal("3386.5")));
+    }
+
+    @Test
+    public void loading_a_binary_file_should_read_what_was_written() throws IOException {
+        var csv = Files.writeString(directory.resolve("rates.csv"), "USD,KES,130.25\nKES,UGX,26\nUGX,USD,0.00029\n");
+        var binary = directory.resolve("rates.bin");
+
+        var written = loader.load(csv);
+        new RateFileWriter(index).write(binary, written);
+        var read = loader.load(binary);
+
+        assertThat(Files.size(binary), equalTo(12L + 3 * 15));
+        assertThat(read.baseCurrencies(), equalTo(written.baseCurrencies()));
+        assertThat(read.quoteCurrencies(), equalTo(written.quoteCurrencies()));
+        assertThat(read.rates(), equalTo(written.rates()));
+    }
+
+    @Test
+    public void loading_a_malformed_file_should_fail() throws IOException {
+        var unknownCurrency = Files.writeString(directory.resolve("unknown.csv"), "USD,KES,130\nUSD,XYZZ,1\n");
+        var badRate = Files.writeString(directory.resolve("rate.csv"), "USD,KES,1e3\n");
+        var truncated = directory.resolve("truncated.bin");
+        new RateFileWriter(index).write(truncated, loader.load(Files.writeString(directory.resolve("ok.csv"), "USD,KES,1\n")));
+        Files.write(truncated, Arrays.copyOf(Files.readAllBytes(truncated), 20));
+
+        assertThat(assertThrows(IOException.class, () -> loader.load(unknownCurrency)).getMessage(),
+                equalTo("Line 2: unknown currency \"XYZZ\""));
+        assertThrows(IOException.class, () -> loader.load(badRate));
+        assertThrows(IOException.class, () -> loader.load(truncated));
+    }
+
+    @Test
+    public void loading_a_line_without_every_field_should_fail() throws IOException {
+        var oneField = Files.writeString(directory.resolve("one.csv"), "USD,KES,130\nUSD\n");
+        var twoFields = Files.writeString(directory.resolve("two.csv"), "USD,KES\n");
+
+        assertThat(assertThrows(IOException.class, () -> loader.load(oneField)).getMessage(),
+                equalTo("Line 2: expected BASE,QUOTE,RATE"));
+        assertThat(assertThrows(IOException.class, () -> loader.load(twoFields)).getMessage(),
+                equalTo("Line 1: expected BASE,QUOTE,RATE"));
+    }
+
+    @Test
+    public void loading_a_rate_that_is_not_positive_should_fail() throws IOException {
+        var zero = Files.writeString(directory.resolve("zero.csv"), "USD,KES,130\nKES,UGX,0.0\n");
+        var negative = directory.resolve("negative.bin");
+        new RateFileWriter(index).write(negative, new RateSheet(new int[]{index.idOf(USD), index.idOf(KES)},
+                new int[]{index.idOf(KES), index.idOf(UGX)},
+                new BigDecimal[]{new BigDecimal("130"), new BigDecimal("-26")}));
+
+        assertThat(assertThrows(IOException.class, () -> loader.load(zero)).getMessage(),
+                equalTo("Line 2: rate must be positive: 0.0"));
+        assertThat(assertThrows(IOException.class, () -> loader.load(negative)).getMessage(),
+                equalTo("Quote 2 at offset 27: rate must be positive: -26"));
+    }
+
+}
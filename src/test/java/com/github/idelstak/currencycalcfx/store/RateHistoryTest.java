@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Hiram K
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.idelstak.currencycalcfx.store;
+
+import com.github.idelstak.currencycalcfx.model.currency.ConversionModel;
+import com.github.idelstak.currencycalcfx.model.currency.CurrencyIndex;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.NoSuchElementException;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RateHistoryTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency KES = Currency.getInstance("KES");
+    private static final Currency UGX = Currency.getInstance("UGX");
+
+    @TempDir
+    Path directory;
+    private final CurrencyIndex index = CurrencyIndex.ofAvailableCurrencies();
+    private final int usd = index.idOf(USD);
+    private final int kes = index.idOf(KES);
+
+    @Test
+    public void appending_should_roll_over_into_new_segments_that_survive_reopening() throws IOException {
+        try (var history = RateHistory.open(directory, index, 4)) {
+            for (int i = 1; i <= 10; i++) {
+                history.append(usd, kes, i * 1_000L, new BigDecimal("130." + i));
+            }
+        }
+
+        try (var history = RateHistory.open(directory, index, 4)) {
+            history.append(usd, kes, 11_000L, new BigDecimal("131"));
+
+            try (var segments = Files.list(directory.resolve("USD-KES"))) {
+                assertThat(segments.count(), equalTo(3L));
+            }
+            assertThat(history.getTickCount(usd, kes), equalTo(11L));
+            assertThat(history.getTickTimestamp(usd, kes, 4), equalTo(5_000L));
+            assertThat(history.getTickRate(usd, kes, 9), equalTo(new BigDecimal("130.10")));
+            assertThat(history.getTickRate(usd, kes, 10), equalTo(new BigDecimal("131")));
+            assertThat(history.getTickCount(kes, usd), equalTo(0L));
+        }
+    }
+
+    @Test
+    public void opening_should_drop_a_tick_whose_write_did_not_complete() throws IOException {
+        try (var history = RateHistory.open(directory, index, 8)) {
+            history.append(USD, KES, Instant.ofEpochSecond(1), new BigDecimal("130"));
+            history.append(USD, KES, Instant.ofEpochSecond(2), new BigDecimal("131"));
+        }
+
+        // A torn write: the rate of a third tick, without its timestamp
+        try (var file = new RandomAccessFile(directory.resolve("USD-KES").resolve("000000.seg").toFile(), "rw")) {
+            file.seek(RateHistorySegment.HEADER_SIZE + 8 * Long.BYTES + 2 * Long.BYTES);
+            file.writeLong(132);
+        }
+
+        try (var history = RateHistory.open(directory, index, 8)) {
+            assertThat(history.getTickCount(usd, kes), equalTo(2L));
+
+            history.append(USD, KES, Instant.ofEpochSecond(3), new BigDecimal("133"));
+
+            assertThat(history.getTickRate(usd, kes, 2), equalTo(new BigDecimal("133")));
+            assertThat(RateHistory.fromEpochNanos(history.getTickTimestamp(usd, kes, 2)), equalTo(Instant.ofEpochSecond(3)));
+        }
+    }
+
+    @Test
+    public void appending_should_refuse_ticks_out_of_time_order() throws IOException {
+        try (var history = RateHistory.open(directory, index)) {
+            history.append(usd, kes, 2_000L, new BigDecimal("130"));
+
+            assertThrows(IllegalArgumentException.class, () -> history.append(usd, kes, 1_000L, new BigDecimal("131")));
+            assertThrows(IndexOutOfBoundsException.class, () -> history.getTickRate(usd, kes, 1));
+        }
+    }
+
+    @Test
+    public void looking_up_a_rate_should_find_the_one_in_force_at_the_time() throws IOException {
+        try (var history = RateHistory.open(directory, index, 300)) {
+            for (int i = 0; i < 1_000; i++) {
+                // Two ticks per timestamp, the second one wins
+                history.append(usd, kes, 10 + i * 10L, BigDecimal.valueOf(i + 1));
+                history.append(usd, kes, 10 + i * 10L, BigDecimal.valueOf(i).add(new BigDecimal("0.5")));
+            }
+        }
+
+        try (var history = RateHistory.open(directory, index)) {
+            assertThat(history.rateAt(usd, kes, 9), equalTo(null));
+            assertThat(history.rateAt(usd, kes, 10), equalTo(new BigDecimal("0.5")));
+
+            for (int i = 0; i < 1_000; i++) {
+                var expected = BigDecimal.valueOf(i).add(new BigDecimal("0.5"));
+
+                assertThat(history.rateAt(usd, kes, 10 + i * 10L), equalTo(expected));
+                assertThat(history.rateAt(usd, kes, 19 + i * 10L), equalTo(expected));
+            }
+
+            assertThat(history.rateAt(kes, usd, 10), equalTo(null));
+        }
+    }
+
+    @Test
+    public void converting_as_of_a_time_should_use_the_rates_in_force_then() throws IOException {
+        try (var history = RateHistory.open(directory, index)) {
+            history.append(USD, KES, Instant.parse("2024-01-01T00:00:00Z"), new BigDecimal("150"));
+            history.append(KES, UGX, Instant.parse("2024-01-01T00:00:00Z"), new BigDecimal("25"));
+            history.append(USD, KES, Instant.parse("2024-06-01T00:00:00Z"), new BigDecimal("130"));
+
+            assertThat(history.rateAt(USD, KES, Instant.parse("2024-03-15T12:00:00Z")), equalTo(new BigDecimal("150")));
+            assertThat(history.convert(USD, UGX, BigDecimal.ONE, Instant.parse("2024-03-15T12:00:00Z")),
+                    comparesEqualTo(new BigDecimal("3750")));
+            assertThat(history.convert(USD, UGX, BigDecimal.ONE, Instant.parse("2024-06-01T00:00:00Z")),
+                    comparesEqualTo(new BigDecimal("3250")));
+            assertThrows(NoSuchElementException.class,
+                    () -> history.convert(USD, UGX, BigDecimal.ONE, Instant.parse("2023-12-31T00:00:00Z")));
+        }
+    }
+
+    @Test
+    public void recording_should_append_only_the_rates_that_changed() throws IOException {
+        var conversionModel = new ConversionModel();
+
+        try (var recorder = new RateHistoryRecorder(conversionModel, RateHistory.open(directory, index))) {
+            var history = recorder.getHistory();
+
+            conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+            conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+            conversionModel.putQuote(USD, KES, new BigDecimal("129.5"));
+
+            assertThat(history.getTickCount(usd, kes), equalTo(2L));
+            assertThat(history.getTickCount(kes, usd), equalTo(2L));
+            assertThat(history.getTickRate(usd, kes, 1), equalTo(new BigDecimal("129.5")));
+        }
+    }
+
+    @Test
+    public void a_removed_quote_should_no_longer_convert_after_its_removal() throws IOException, InterruptedException {
+        var conversionModel = new ConversionModel();
+
+        try (var recorder = new RateHistoryRecorder(conversionModel, RateHistory.open(directory, index))) {
+            var history = recorder.getHistory();
+
+            conversionModel.putQuote(USD, KES, new BigDecimal("130"));
+            var quoted = RateHistory.fromEpochNanos(history.getLatestTimestamp(usd, kes));
+            Thread.sleep(1);
+            conversionModel.removeQuote(USD, KES);
+            var removed = RateHistory.fromEpochNanos(history.getLatestTimestamp(usd, kes));
+
+            assertThat(history.getTickCount(usd, kes), equalTo(2L));
+            assertThat(history.getTickRate(usd, kes, 1), nullValue());
+            assertThat(history.rateAt(USD, KES, quoted), equalTo(new BigDecimal("130")));
+            assertThat(history.rateAt(USD, KES, removed), nullValue());
+            assertThat(history.rateAt(KES, USD, removed), nullValue());
+            assertThat(history.convert(USD, KES, BigDecimal.ONE, quoted), comparesEqualTo(new BigDecimal("130")));
+            assertThat(history.conversionAt(quoted.plusNanos(1)), sameInstance(history.conversionAt(quoted)));
+            assertThrows(NoSuchElementException.class,
+                    () -> history.convert(USD, KES, BigDecimal.ONE, removed.plusSeconds(1)));
+        }
+    }
+
+}